@@ -396,6 +396,8 @@ public class ChartsDownloadActivity extends Activity {
              *  
              */
             mService.getTiles().forceReload();
+            mService.getElevationCache().clear();
+            mService.getObstacleCache().clear();
         }
         
     }
@@ -19,7 +19,6 @@ import android.content.Intent;
 import android.content.ServiceConnection;
 import android.os.Handler;
 import android.os.IBinder;
-import android.os.Looper;
 import android.os.Message;
 
 import org.json.JSONObject;
@@ -117,9 +116,9 @@ public class IHelperService extends Service {
     };
     
     /**
-     * Posting a location hence do from UI thread
+     * Decode and put in caches on IO thread, service posts what UI needs
      */
-    private Handler mHandler = new Handler(Looper.getMainLooper()) {
+    private Handler mHandler = new Handler(StorageService.getIOLooper()) {
         @Override
         public void handleMessage(Message msg) {
 
@@ -44,6 +44,7 @@ import android.widget.Toast;
 import com.ds.avare.animation.AnimateButton;
 import com.ds.avare.animation.TwoButton;
 import com.ds.avare.animation.TwoButton.TwoClickListener;
+import com.ds.avare.connections.FileConnectionIn;
 import com.ds.avare.connections.WifiConnection;
 import com.ds.avare.flight.FlightStatusInterface;
 import com.ds.avare.gps.Gps;
@@ -154,6 +155,8 @@ public class LocationActivity extends Activity implements Observer {
     private AlertDialog mAlertDialogDestination;
     private WebAppMapInterface mInfc;
     private WifiConnection mWifi;
+    private FileConnectionIn mReplay;
+    private String mReplayFile;
 
     private Button mPlanPrev;
     private ImageButton mPlanPause;
@@ -187,6 +190,22 @@ public class LocationActivity extends Activity implements Observer {
         }
     };
 
+    /*
+     * Traffic and weather from IO changed, redraw. Traffic is drawn on top of base every frame.
+     */
+    private GenericCallback mIOInfc = new GenericCallback() {
+        @Override
+        public Object callback(Object o, Object o1) {
+            if(Boolean.TRUE.equals(o)) {
+                mLocationView.invalidateBase();
+            }
+            else {
+                mLocationView.postInvalidate();
+            }
+            return null;
+        }
+    };
+
     private GpsInterface mGpsInfc = new GpsInterface() {
 
         @Override
@@ -410,9 +429,20 @@ public class LocationActivity extends Activity implements Observer {
         requestWindowFeature(Window.FEATURE_NO_TITLE);
         mPref = new Preferences(this);
 
+        /*
+         * Replay a capture for testing, once, in place of live WiFi input so recorded and live
+         * traffic do not mix. It starts when the service is connected, else its events are lost.
+         */
         mWifi = WifiConnection.getInstance(this);
-        mWifi.connect(mPref.getWiFiPort(),false);
-        mWifi.start(mPref);
+        mReplay = FileConnectionIn.getInstance(this);
+        mReplayFile = mPref.getReplayFile();
+        if(null != mReplayFile) {
+            mPref.clearReplayFile();
+        }
+        else {
+            mWifi.connect(mPref.getWiFiPort(),false);
+            mWifi.start(mPref);
+        }
 
         /*
          * Create toast beforehand so multiple clicks dont throw up a new toast
@@ -1114,6 +1144,7 @@ public class LocationActivity extends Activity implements Observer {
             StorageService.LocalBinder binder = (StorageService.LocalBinder)service;
             mService = binder.getService();
             mService.registerGpsListener(mGpsInfc);
+            mService.registerIOListener(mIOInfc);
             mService.getFlightStatus().registerListener(mFSInfc);
 
             mService.getTiles().setOrientation();
@@ -1222,6 +1253,19 @@ public class LocationActivity extends Activity implements Observer {
             }
 
             mWifi.setHelper(mService);
+            mReplay.setHelper(mService);
+
+            if(null != mReplayFile) {
+                mReplay.setSpeed(mPref.getReplaySpeed());
+                if(mReplay.connect(mReplayFile, false)) {
+                    mReplay.start(mPref);
+                }
+                else {
+                    mWifi.connect(mPref.getWiFiPort(),false);
+                    mWifi.start(mPref);
+                }
+                mReplayFile = null;
+            }
 
         }
 
@@ -1359,6 +1403,7 @@ public class LocationActivity extends Activity implements Observer {
 
         if(null != mService) {
             mService.unregisterGpsListener(mGpsInfc);
+            mService.unregisterIOListener(mIOInfc);
             mService.getFlightStatus().unregisterListener(mFSInfc);
             mService.getFuelTimer().removeObserver(mTankObserver);
             mService.getUpTimer().removeObserver(mTimerObserver);
@@ -1451,6 +1496,8 @@ public class LocationActivity extends Activity implements Observer {
 
         mWifi.stop();
         mWifi.disconnect();
+        mReplay.stop();
+        mReplay.disconnect();
     }
 
     /**
@@ -145,7 +145,8 @@ public class SatelliteActivity extends Activity  {
  	    // Subtract one tile from map width / height
 		mMapAreaText.setText(
 				getString(R.string.MapSize) + " " + (mService.getTiles().getXTilesNum() * BitmapHolder.WIDTH - BitmapHolder.WIDTH)+ "x" + (mService.getTiles().getYTilesNum() * BitmapHolder.HEIGHT - BitmapHolder.HEIGHT) + "px\n" +
-        		getString(R.string.ScreenSize) + " " + width + "x" + height + "px" + "\n" + getString(R.string.Tiles) + " " + (mService.getTiles().getOverhead() + mService.getTiles().getTilesNum()));
+        		getString(R.string.ScreenSize) + " " + width + "x" + height + "px" + "\n" + getString(R.string.Tiles) + " " + (mService.getTiles().getOverhead() + mService.getTiles().getTilesNum()) + "\n" +
+                getString(R.string.TileMemoryReuse) + " " + mService.getTiles().getPoolHits() + "/" + (mService.getTiles().getPoolHits() + mService.getTiles().getPoolMisses()));
     }
 
     /*
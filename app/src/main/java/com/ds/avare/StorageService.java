@@ -24,13 +24,18 @@ import android.location.LocationManager;
 import android.media.MediaScannerConnection;
 import android.os.Binder;
 import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
 import androidx.core.app.NotificationCompat;
 
 import com.ds.avare.adsb.TfrCache;
 import com.ds.avare.adsb.TrafficCache;
 import com.ds.avare.cap.DrawCapLines;
 import com.ds.avare.connections.BTOutConnection;
+import com.ds.avare.connections.IOEvent;
 import com.ds.avare.externalFlightPlan.ExternalPlanMgr;
 import com.ds.avare.flight.Checklist;
 import com.ds.avare.flight.FlightStatus;
@@ -56,21 +61,25 @@ import com.ds.avare.orientation.OrientationInterface;
 import com.ds.avare.place.Area;
 import com.ds.avare.place.Destination;
 import com.ds.avare.place.Obstacle;
+import com.ds.avare.place.ObstacleCache;
 import com.ds.avare.place.Plan;
 import com.ds.avare.position.LabelCoordinate;
 import com.ds.avare.position.Movement;
 import com.ds.avare.position.Pan;
 import com.ds.avare.shapes.Draw;
+import com.ds.avare.shapes.ElevationCache;
 import com.ds.avare.shapes.MetarLayer;
 import com.ds.avare.shapes.PixelDraw;
 import com.ds.avare.shapes.RadarLayer;
 import com.ds.avare.shapes.ShapeFileShape;
+import com.ds.avare.shapes.ShapeIndex;
 import com.ds.avare.shapes.TFRShape;
 import com.ds.avare.shapes.TileMap;
 import com.ds.avare.content.DataSource;
 import com.ds.avare.storage.Preferences;
 import com.ds.avare.userDefinedWaypoints.UDWMgr;
 import com.ds.avare.utils.BitmapHolder;
+import com.ds.avare.utils.GenericCallback;
 import com.ds.avare.utils.Helper;
 import com.ds.avare.utils.InfoLines;
 import com.ds.avare.utils.Mutex;
@@ -80,7 +89,6 @@ import com.ds.avare.utils.TimeConstants;
 import com.ds.avare.weather.AdsbWeatherCache;
 import com.ds.avare.weather.InternetWeatherCache;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -121,7 +129,24 @@ public class StorageService extends Service {
      */
     private Movement mMovement;
 
-    private JSONObject mGeoAltitude = null;
+    private volatile IOEvent.GeoAltitude mGeoAltitude = null;
+
+    /*
+     * IO data is decoded and put in caches on the IO thread. UI only gets the latest
+     * ownship and AHRS at display rate, and a data changed signal once in a while.
+     */
+    private static final long IO_POST_INTERVAL = 50;
+    private static final long IO_CHANGED_INTERVAL = 1000;
+    private static HandlerThread mIOThread;
+    private Handler mUiHandler;
+    private final Object mIOLock = new Object();
+    private Location mIOLocation;
+    private String mIOLocationType;
+    private IOEvent.Ahrs mIOAhrs;
+    private boolean mIOPosted;
+    private boolean mIOChangedPosted;
+    private boolean mIOWeatherChanged;
+    private LinkedList<GenericCallback> mIOCallbacks;
 
     public static final int MIN_ALTITUDE = -1000;
 
@@ -196,6 +221,16 @@ public class StorageService extends Service {
 
     private ShapeFetcher mShapeFetcher;
 
+    /**
+     * Elevation from elevation tiles
+     */
+    private ElevationCache mElevationCache;
+
+    /*
+     * Obstacles loaded ahead, found in memory
+     */
+    private ObstacleCache mObstacleCache;
+
     /**
      * For performing periodic activities.
      */
@@ -406,6 +441,8 @@ public class StorageService extends Service {
         mTFRFetcher.parse();
         mShapeFetcher = new ShapeFetcher(getApplicationContext());
         mShapeFetcher.parse();
+        mElevationCache = new ElevationCache(getApplicationContext());
+        mObstacleCache = new ObstacleCache(mDataSource);
         mGpsParamsExtended = new ExtendedGpsParams();
 
         mTimer = new Timer();
@@ -413,6 +450,8 @@ public class StorageService extends Service {
         mIsGpsOn = false;
         mGpsCallbacks = new LinkedList<GpsInterface>();
         mOrientationCallbacks = new LinkedList<OrientationInterface>();
+        mIOCallbacks = new LinkedList<GenericCallback>();
+        mUiHandler = new Handler(Looper.getMainLooper());
         mAfdDiagramBitmap = null;
         mPlateDiagramBitmap = null;
         mAfdIndex = mDataSource.getPreferences().isDefaultAFDImage() ? 1 : 0;
@@ -759,10 +798,33 @@ public class StorageService extends Service {
         return mTFRFetcher.getShapes();
     }
 
+    public ShapeIndex<TFRShape> getTFRIndex() {
+        return mTFRFetcher.getIndex();
+    }
+
+    /**
+     * @return
+     */
+    public ElevationCache getElevationCache() {
+        return mElevationCache;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public ObstacleCache getObstacleCache() {
+        return mObstacleCache;
+    }
+
     public LinkedList<TFRShape> getAdsbTFRShapes() {
         return mAdsbTfrCache.getShapes();
     }
 
+    public ShapeIndex<TFRShape> getAdsbTFRIndex() {
+        return mAdsbTfrCache.getIndex();
+    }
+
     public LinkedList<LabelCoordinate> getGameTfrLabels() {
         return mGameTfrLabels;
     }
@@ -868,6 +930,7 @@ public class StorageService extends Service {
      */
     public void setGpsParams(GpsParams params) {
         mGpsParams = params;
+        mTrafficCache.setOwnship(params);
     }
 
     /**
@@ -1025,7 +1088,8 @@ public class StorageService extends Service {
                 }
                 if(0 == mCounter % 5) {
                     if(null != mGpsParams) {
-                        mObstacles = mDataSource.getObstacles(mGpsParams.getLongitude(), mGpsParams.getLatitude(), mGpsParams.getAltitude());
+                        mObstacles = mObstacleCache.getObstacles(mGpsParams.getLongitude(), mGpsParams.getLatitude(),
+                                mGpsParams.getAltitude(), mGpsParams.getBearing(), mGpsParams.getSpeedInKnots());
                     }
                 }
                 if(0 == mCounter % 60) {
@@ -1106,6 +1170,121 @@ public class StorageService extends Service {
 
     }
 
+    /**
+     * Called on UI thread when IO data like traffic or weather changes.
+     * First argument is Boolean.TRUE when weather / TFRs changed, FALSE when only traffic did.
+     * @param cb
+     */
+    public void registerIOListener(GenericCallback cb) {
+        synchronized(mIOCallbacks) {
+            mIOCallbacks.add(cb);
+        }
+    }
+
+    /**
+     *
+     * @param cb
+     */
+    public void unregisterIOListener(GenericCallback cb) {
+        synchronized(mIOCallbacks) {
+            mIOCallbacks.remove(cb);
+        }
+    }
+
+    /**
+     * Looper of the thread on which all IO data is decoded and put in caches
+     * @return
+     */
+    public static synchronized Looper getIOLooper() {
+        if(null == mIOThread) {
+            mIOThread = new HandlerThread("IO");
+            mIOThread.start();
+        }
+        return mIOThread.getLooper();
+    }
+
+    /*
+     * Latest ownship and AHRS to UI, older ones are dropped
+     */
+    private final Runnable mIORunnable = new Runnable() {
+        @Override
+        public void run() {
+            Location l;
+            String type;
+            IOEvent.Ahrs a;
+            synchronized(mIOLock) {
+                l = mIOLocation;
+                type = mIOLocationType;
+                a = mIOAhrs;
+                mIOLocation = null;
+                mIOAhrs = null;
+                mIOPosted = false;
+            }
+            if(null != a) {
+                mOrientationInterface.onSensorChanged(a.mYaw, a.mPitch, a.mRoll, a.mSlip, a.mAcceleration,
+                        a.mYawRate, a.mAoa, a.mAirspeed, a.mAltitude, a.mVsi);
+            }
+            if(null != l) {
+                getGps().onLocationChanged(l, type);
+            }
+        }
+    };
+
+    /*
+     * Tell UI that caches changed
+     */
+    private final Runnable mIOChangedRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Boolean weather;
+            synchronized(mIOLock) {
+                mIOChangedPosted = false;
+                weather = mIOWeatherChanged;
+                mIOWeatherChanged = false;
+            }
+            LinkedList<GenericCallback> list;
+            synchronized(mIOCallbacks) {
+                list = (LinkedList<GenericCallback>)mIOCallbacks.clone();
+            }
+            for(GenericCallback cb : list) {
+                cb.callback(weather, null);
+            }
+        }
+    };
+
+    /**
+     * From IO thread, post to UI unless already posted
+     */
+    private void postIO(Location l, String type, IOEvent.Ahrs a) {
+        synchronized(mIOLock) {
+            if(null != l) {
+                mIOLocation = l;
+                mIOLocationType = type;
+            }
+            if(null != a) {
+                mIOAhrs = a;
+            }
+            if(!mIOPosted) {
+                mIOPosted = true;
+                mUiHandler.postDelayed(mIORunnable, IO_POST_INTERVAL);
+            }
+        }
+    }
+
+    /**
+     * From IO thread, caches changed
+     * @param weather true if weather / TFRs changed, false if only traffic
+     */
+    private void postIOChanged(boolean weather) {
+        synchronized(mIOLock) {
+            mIOWeatherChanged |= weather;
+            if(!mIOChangedPosted) {
+                mIOChangedPosted = true;
+                mUiHandler.postAtTime(mIOChangedRunnable, SystemClock.uptimeMillis() + IO_CHANGED_INTERVAL);
+            }
+        }
+    }
+
     /**
      * Get points to draw
      * @return
@@ -1399,7 +1578,7 @@ public class StorageService extends Service {
 
 
     /**
-     * Receive data for weather / traffic etc
+     * Receive data for weather / traffic etc from the external helper as JSON
      * @return
      */
     public void getDataFromIO(String text) {
@@ -1412,187 +1591,184 @@ public class StorageService extends Service {
              * Get JSON
              */
         try {
-            JSONObject object = new JSONObject(text);
+            getDataFromIO(IOEvent.fromJSON(text));
+        } catch (JSONException e) {
+            return;
+        }
+    }
 
-            String type = object.getString("type");
-            if(type == null) {
-                return;
-            }
-            else if(type.equals("traffic")) {
-                getTrafficCache().putTraffic(
-                        object.getString("callsign"),
-                        object.getInt("address"),
-                        (float)object.getDouble("latitude"),
-                        (float)object.getDouble("longitude"),
-                        object.getInt("altitude"),
-                        (float)object.getDouble("bearing"),
-                        (int)object.getInt("speed"),
-                        Helper.getMillisGMT()
-                            /*XXX:object.getLong("time")*/);
-            }
-            else if(type.equals("geoaltitude")) {
-                mGeoAltitude = object;
-            }
-            else if(type.equals("ahrs")) {
-                double yaw = object.getDouble("yaw");
-                double pitch = object.getDouble("pitch");
-                double roll = object.getDouble("roll");
-                double slip = object.getDouble("slip");
-                double yawrate = object.getDouble("yawrate");
-                double acceleration = object.getDouble("acceleration");
-                double aoa = object.getDouble("aoa");
-                double airspeed = object.getDouble("airspeed");
-                double altitude = object.getDouble("altitude");
-                double vsi = object.getDouble("vsi");
-                mOrientationInterface.onSensorChanged(yaw, pitch, roll, slip, acceleration, yawrate, aoa, airspeed, altitude, vsi);
-            }
-            else if(type.equals("ownship")) {
-                Location l = new Location(LocationManager.GPS_PROVIDER);
-                l.setLongitude(object.getDouble("longitude"));
-                l.setLatitude(object.getDouble("latitude"));
-                l.setSpeed((float) object.getDouble("speed"));
-                l.setBearing((float) object.getDouble("bearing"));
-                l.setTime(object.getLong("time"));
-
-                // Choose most appropriate altitude. This is because people fly all sorts
-                // of equipment with or without altitudes
-                // convert all altitudes in feet
-                double pressureAltitude = object.getDouble("altitude") * Preferences.heightConversion;
-                double deviceAltitude = MIN_ALTITUDE;
-                double geoAltitude = MIN_ALTITUDE;
-                // If geo altitude from adsb available, use it if not too old
-                if(mGeoAltitude != null) {
-                    long t1 = object.getLong("time");
-                    long t2 = mGeoAltitude.getLong("time");
-                    if((t1 - t2) < 10000) { // 10 seconds
-                        geoAltitude = mGeoAltitude.getDouble("altitude") * Preferences.heightConversion;
-                        if(geoAltitude < MIN_ALTITUDE) {
-                            geoAltitude = MIN_ALTITUDE;
-                        }
+    /**
+     * Receive data for weather / traffic etc. Called on IO thread, see getIOLooper()
+     * @return
+     */
+    public void getDataFromIO(IOEvent event) {
+
+        if(event == null) {
+            return;
+        }
+
+        String type = event.getType();
+        if(event instanceof IOEvent.Traffic) {
+            IOEvent.Traffic t = (IOEvent.Traffic)event;
+            getTrafficCache().putTraffic(
+                    t.mCallSign,
+                    t.mAddress,
+                    t.mLat,
+                    t.mLon,
+                    t.mAltitude,
+                    t.mBearing,
+                    t.mSpeed,
+                    Helper.getMillisGMT()
+                        /*XXX:t.getTime()*/);
+        }
+        else if(event instanceof IOEvent.GeoAltitude) {
+            mGeoAltitude = (IOEvent.GeoAltitude)event;
+        }
+        else if(event instanceof IOEvent.Ahrs) {
+            postIO(null, null, (IOEvent.Ahrs)event);
+        }
+        else if(event instanceof IOEvent.Ownship) {
+            IOEvent.Ownship o = (IOEvent.Ownship)event;
+            Location l = new Location(LocationManager.GPS_PROVIDER);
+            l.setLongitude(o.mLon);
+            l.setLatitude(o.mLat);
+            l.setSpeed((float) o.mSpeed);
+            l.setBearing((float) o.mBearing);
+            l.setTime(o.getTime());
+
+            // Choose most appropriate altitude. This is because people fly all sorts
+            // of equipment with or without altitudes
+            // convert all altitudes in feet
+            double pressureAltitude = o.mAltitude * Preferences.heightConversion;
+            double deviceAltitude = MIN_ALTITUDE;
+            double geoAltitude = MIN_ALTITUDE;
+            // If geo altitude from adsb available, use it if not too old
+            if(mGeoAltitude != null) {
+                long t1 = o.getTime();
+                long t2 = mGeoAltitude.getTime();
+                if((t1 - t2) < 10000) { // 10 seconds
+                    geoAltitude = mGeoAltitude.mAltitude * Preferences.heightConversion;
+                    if(geoAltitude < MIN_ALTITUDE) {
+                        geoAltitude = MIN_ALTITUDE;
                     }
                 }
-                // If geo altitude from device available, use it if not too old
-                if(getGpsParams() != null) {
-                    long t1 = System.currentTimeMillis();
-                    long t2 = getGpsParams().getTime();
-                    if ((t1 - t2) < 10000) { // 10 seconds
-                        deviceAltitude = getGpsParams().getAltitude();
-                        if(deviceAltitude < MIN_ALTITUDE) {
-                            deviceAltitude = MIN_ALTITUDE;
-                        }
+            }
+            // If geo altitude from device available, use it if not too old
+            if(getGpsParams() != null) {
+                long t1 = System.currentTimeMillis();
+                long t2 = getGpsParams().getTime();
+                if ((t1 - t2) < 10000) { // 10 seconds
+                    deviceAltitude = getGpsParams().getAltitude();
+                    if(deviceAltitude < MIN_ALTITUDE) {
+                        deviceAltitude = MIN_ALTITUDE;
                     }
                 }
+            }
 
-                // choose best altitude. give preference to pressure altitude because that is
-                // the most correct for traffic purpose.
-                double alt = pressureAltitude;
-                if(alt <= MIN_ALTITUDE) {
-                    alt = geoAltitude;
-                }
-                if(alt <= MIN_ALTITUDE) {
-                    alt = deviceAltitude;
-                }
-                if(alt <= MIN_ALTITUDE) {
-                    alt = MIN_ALTITUDE;
-                }
-
-                // set pressure altitude for traffic alerts
-                getTrafficCache().setOwnAltitude((int) alt);
-
-                // For own height prefer geo altitude, do not use deviceAltitude here because
-                // we could get into rising altitude condition through feedback
+            // choose best altitude. give preference to pressure altitude because that is
+            // the most correct for traffic purpose.
+            double alt = pressureAltitude;
+            if(alt <= MIN_ALTITUDE) {
                 alt = geoAltitude;
-                if(alt <= MIN_ALTITUDE) {
-                    alt = pressureAltitude;
-                }
-                if(alt <= MIN_ALTITUDE) {
-                    alt = MIN_ALTITUDE;
-                }
-                l.setAltitude(alt / Preferences.heightConversion);
-                getGps().onLocationChanged(l, type);
             }
-            else if(type.equals("nexrad")) {
+            if(alt <= MIN_ALTITUDE) {
+                alt = deviceAltitude;
+            }
+            if(alt <= MIN_ALTITUDE) {
+                alt = MIN_ALTITUDE;
+            }
 
-                    /*
-                     * XXX: If we are getting this from station, it must be current, fix this.
-                     */
-                long time = Helper.getMillisGMT();//object.getLong("time");
-                int cols = object.getInt("x");
-                int rows = object.getInt("y");
-                int block = object.getInt("blocknumber");
-                boolean conus = object.getBoolean("conus");
-                JSONArray emptyArray = object.getJSONArray("empty");
-                JSONArray dataArray = object.getJSONArray("data");
-
-                if(emptyArray == null || dataArray == null) {
-                    return;
-                }
-                int empty[] = new int[emptyArray.length()];
-                for(int i = 0; i < empty.length; i++) {
-                    empty[i] = emptyArray.getInt(i);
-                }
-                int data[] = new int[dataArray.length()];
-                for(int i = 0; i < data.length; i++) {
-                    data[i] = dataArray.getInt(i);
-                }
+            // set pressure altitude for traffic alerts
+            getTrafficCache().setOwnAltitude((int) alt);
 
-                    /*
-                     * Put in nexrad.
-                     */
-                getAdsbWeather().putImg(
-                        time, block, empty, conus, data, cols, rows);
+            // For own height prefer geo altitude, do not use deviceAltitude here because
+            // we could get into rising altitude condition through feedback
+            alt = geoAltitude;
+            if(alt <= MIN_ALTITUDE) {
+                alt = pressureAltitude;
             }
-            else if(type.equals("sua")) {
+            if(alt <= MIN_ALTITUDE) {
+                alt = MIN_ALTITUDE;
+            }
+            l.setAltitude(alt / Preferences.heightConversion);
+            postIO(l, type, null);
+        }
+        else if(event instanceof IOEvent.Nexrad) {
+            IOEvent.Nexrad n = (IOEvent.Nexrad)event;
+
+                /*
+                 * XXX: If we are getting this from station, it must be current, fix this.
+                 */
+            long time = Helper.getMillisGMT();//n.getTime();
+
+                /*
+                 * Put in nexrad.
+                 */
+            getAdsbWeather().putImg(
+                    time, n.mBlock, n.mEmpty, n.mConus, n.mData, n.mCols, n.mRows);
+        }
+        else if(event instanceof IOEvent.Graphics) {
+            IOEvent.Graphics g = (IOEvent.Graphics)event;
+            if(type.equals("sua")) {
                 getAdsbWeather().putSua(
                         Helper.getMillisGMT(),
-                        object.getString("text"));
+                        g.mText);
             }
             else if(type.equals("airmet") || type.equals("sigmet")) {
                 getAdsbWeather().putAirSigMet(
                         Helper.getMillisGMT(),
-                        object.getString("number"),
-                        object.getString("shape"),
-                        object.getString("data"),
-                        object.getString("text"),
-                        object.getString("startTime"),
-                        object.getString("endTime")
+                        g.mNumber,
+                        g.mShape,
+                        g.mData,
+                        g.mText,
+                        g.mStartTime,
+                        g.mEndTime
                 );
             }
             else if(type.equals("notam")) {
                 getAdsbTfrCache().putTfr(
                         Helper.getMillisGMT(),
-                        object.getString("number"),
-                        object.getString("shape"),
-                        object.getString("data"),
-                        object.getString("text"),
-                        object.getString("startTime"),
-                        object.getString("endTime"));
+                        g.mNumber,
+                        g.mShape,
+                        g.mData,
+                        g.mText,
+                        g.mStartTime,
+                        g.mEndTime);
             }
-            else if(type.equals("METAR") || type.equals("SPECI")) {
+        }
+        else if(event instanceof IOEvent.Text) {
+            IOEvent.Text t = (IOEvent.Text)event;
+            if(type.equals("METAR") || type.equals("SPECI")) {
                     /*
                      * Put METAR
                      */
-                getAdsbWeather().putMetar(object.getLong("time"),
-                        object.getString("location"), object.getString("data"), object.getString("flight_category"));
+                getAdsbWeather().putMetar(t.getTime(),
+                        t.mLocation, t.mData, t.mFlightCategory);
             }
             else if(type.equals("TAF") || type.equals("TAF.AMD")) {
-                getAdsbWeather().putTaf(object.getLong("time"),
-                        object.getString("location"), object.getString("data"));
+                getAdsbWeather().putTaf(t.getTime(),
+                        t.mLocation, t.mData);
             }
             else if(type.equals("WINDS")) {
-                getAdsbWeather().putWinds(object.getLong("time"),
-                        object.getString("location"), object.getString("data"));
+                getAdsbWeather().putWinds(t.getTime(),
+                        t.mLocation, t.mData);
             }
             else if(type.equals("PIREP")) {
-                getAdsbWeather().putAirep(object.getLong("time"),
-                        object.getString("location"), object.getString("data"),
+                getAdsbWeather().putAirep(t.getTime(),
+                        t.mLocation, t.mData,
                         getDBResource());
             }
-
-        } catch (JSONException e) {
-            return;
         }
 
+        /*
+         * Caches changed, UI redraws when it is told
+         */
+        if(event instanceof IOEvent.Nexrad || event instanceof IOEvent.Graphics || event instanceof IOEvent.Text) {
+            postIOChanged(true);
+        }
+        else if(event instanceof IOEvent.Traffic) {
+            postIOChanged(false);
+        }
     }
 
 
@@ -45,9 +45,9 @@ import com.ds.avare.shapes.SubTile;
 import com.ds.avare.shapes.Tile;
 import com.ds.avare.storage.Preferences;
 import com.ds.avare.threed.AreaMapper;
+import com.ds.avare.threed.TerrainCache;
 import com.ds.avare.threed.TerrainRenderer;
 import com.ds.avare.threed.data.Vector4d;
-import com.ds.avare.threed.objects.Map;
 import com.ds.avare.utils.BitmapHolder;
 import com.ds.avare.utils.GenericCallback;
 import com.ds.avare.utils.Helper;
@@ -89,8 +89,7 @@ public class ThreeDActivity extends Activity {
     private Location mLocation;
     private long mTime;
 
-    private BitmapHolder mTempBitmap;
-    private short[] mVertices;
+    private TerrainCache mTerrainCache;
 
     /**
      * Hold a reference to our GLSurfaceView
@@ -99,7 +98,7 @@ public class ThreeDActivity extends Activity {
     private TerrainRenderer mRenderer = null;
 
     // This task loads bitmaps and makes elevation vertices in background
-    private AsyncTask<Object, Void, Float> mLoadTask;
+    private AsyncTask<Object, Void, TerrainRenderer.Patch[]> mLoadTask;
 
     private static final int MESSAGE_INIT = 0;
     private static final int MESSAGE_TEXT = 1;
@@ -295,6 +294,8 @@ public class ThreeDActivity extends Activity {
                                  */
                                 int mZoomM = Tile.getMaxZoom(mContext, mPref.getChartType3D());
                                 int mZoomE = Tile.getMaxZoom(mContext, "6");  // 6 is elevation tile index
+                                final int zoomE = mZoomE > mZoomM ? mZoomE - mZoomM : 0;
+                                final int zoomM = mZoomE > mZoomM ? 0 : mZoomM - mZoomE;
                                 if (mZoomE > mZoomM) {
                                     tm = new SubTile(mContext, mPref, lon, lat, 0, mPref.getChartType3D());
                                     te = new SubTile(mContext, mPref, lon, lat, mZoomE - mZoomM, "6"); // lower res elev tile
@@ -315,35 +316,83 @@ public class ThreeDActivity extends Activity {
                                         }
                                     }
 
-                                    mLoadTask = new AsyncTask<Object, Void, Float>() {
+                                    mLoadTask = new AsyncTask<Object, Void, TerrainRenderer.Patch[]>() {
 
                                         @Override
-                                        protected Float doInBackground(Object... params) {
-                                            // load tiles for elevation
-                                            if(mTempBitmap != null) {
-                                                mTempBitmap.recycle();
-                                            }
-                                            mTempBitmap = new BitmapHolder(SubTile.DIM, SubTile.DIM);
-                                            if(!mAreaMapper.getElevationTile().load(mTempBitmap, mPref.mapsFolder())) {
-                                                mVertices = null;
-                                            }
-                                            else {
-                                                mVertices = Map.genTerrainFromBitmap(mTempBitmap.getBitmap());
-                                            }
-                                            // load tiles for map/texture
-                                            if(mPref.getChartType3D().equals("6")) {
+                                        protected TerrainRenderer.Patch[] doInBackground(Object... params) {
+                                            SubTile elevation = mAreaMapper.getElevationTile();
+                                            SubTile map = mAreaMapper.getMapTile(); // clear flag
+                                            boolean palette = mPref.getChartType3D().equals("6");
+                                            if(palette) {
                                                 // Show palette when elevation is chosen for height guidance
-                                                mAreaMapper.getMapTile(); // clear flag
-                                                mTempBitmap = new BitmapHolder(mContext, R.drawable.palette);
                                                 mRenderer.setAltitude((float)Helper.findPixelFromElevation((float)mAreaMapper.getGpsParams().getAltitude()));
                                             }
                                             else {
-                                                if(!mAreaMapper.getMapTile().load(mTempBitmap, mPref.mapsFolder())) {
-                                                    mTempBitmap.recycle();
-                                                }
                                                 mRenderer.setAltitude(256); // this tells shader to skip palette for texture
                                             }
-                                            return (Float)mAreaMapper.getTerrainRatio();
+                                            float ratio = mAreaMapper.getTerrainRatio();
+
+                                            /*
+                                             * Grid of patches around us, center first as that is where we are.
+                                             * Only make patches renderer does not have, farther ones with less detail.
+                                             */
+                                            int half = TerrainRenderer.GRID / 2;
+                                            TerrainRenderer.Patch patches[] = new TerrainRenderer.Patch[TerrainRenderer.GRID * TerrainRenderer.GRID];
+                                            int count = 0;
+                                            for(int ring = 0; ring <= half; ring++) {
+                                                for(int row = -ring; row <= ring; row++) {
+                                                    for(int col = -ring; col <= ring; col++) {
+                                                        if(Math.max(Math.abs(row), Math.abs(col)) != ring) {
+                                                            continue;
+                                                        }
+                                                        if(isCancelled()) {
+                                                            return patches; // freed in onCancelled
+                                                        }
+                                                        SubTile te = getTileNext(elevation, row, col, zoomE, "6");
+                                                        SubTile tm = getTileNext(map, row, col, zoomM, mPref.getChartType3D());
+                                                        int step = ring == 0 ? 1 : ring == 1 ? 2 : 4;
+
+                                                        TerrainRenderer.Patch p = new TerrainRenderer.Patch();
+                                                        p.name = te.getName() + "," + tm.getName() + "," + step;
+                                                        p.row = row;
+                                                        p.col = col;
+                                                        p.ratio = ratio;
+                                                        if(!mRenderer.hasPatch(p.name)) {
+                                                            p.vertices = mTerrainCache.get(te, mPref.mapsFolder(), step);
+                                                            if(palette) {
+                                                                p.texture = new BitmapHolder(mContext, R.drawable.palette);
+                                                            }
+                                                            else {
+                                                                p.texture = new BitmapHolder(SubTile.DIM, SubTile.DIM);
+                                                                if(!tm.load(p.texture, mPref.mapsFolder())) {
+                                                                    p.texture.recycle();
+                                                                }
+                                                            }
+                                                        }
+                                                        patches[count++] = p;
+                                                    }
+                                                }
+                                            }
+
+                                            /*
+                                             * Make mesh of the sub tile we are heading into while this one shows
+                                             */
+                                            if(!isCancelled()) {
+                                                SubTile ahead = getTileAhead(elevation, mAreaMapper.getGpsParams(), zoomE);
+                                                mTerrainCache.prefetch(ahead, mPref.mapsFolder());
+                                            }
+                                            return patches;
+                                        }
+
+                                        @Override
+                                        protected void onCancelled(TerrainRenderer.Patch[] patches) {
+                                            if(null != patches) {
+                                                for(TerrainRenderer.Patch p : patches) {
+                                                    if(null != p && null != p.texture) {
+                                                        p.texture.recycle();
+                                                    }
+                                                }
+                                            }
                                         }
 
                                         @Override
@@ -356,15 +405,13 @@ public class ThreeDActivity extends Activity {
                                         }
 
                                         @Override
-                                        protected void onPostExecute(Float arg) {
-                                            final float ratio = arg;
+                                        protected void onPostExecute(final TerrainRenderer.Patch[] patches) {
                                             // Tell GL that new stuff is ready which will be loaded in Runnable
                                             mGlSurfaceView.queueEvent(
                                                     new Runnable() {
                                                         @Override
                                                         public void run() {
-                                                            mRenderer.setTexture(mTempBitmap);
-                                                            mRenderer.setTerrain(mVertices, ratio);
+                                                            mRenderer.setPatches(patches);
                                                             // show errors or success
                                                             Message m = mHandler.obtainMessage();
                                                             m.what = MESSAGE_TEXT;
@@ -449,6 +496,7 @@ public class ThreeDActivity extends Activity {
         }
 
         mAreaMapper = new AreaMapper();
+        mTerrainCache = new TerrainCache();
 
         mCenterButton = (ImageButton) view.findViewById(R.id.threed_button_center);
         mCenterButton.getBackground().setAlpha(255);
@@ -521,6 +569,47 @@ public class ThreeDActivity extends Activity {
         }
     };
 
+    /**
+     * Sub tile in grid of sub tiles around this one, sub tiles are DIM pixels apart
+     * @param tile
+     * @param row rows to go south
+     * @param col cols to go east
+     * @param zoom
+     * @param index chart index
+     * @return
+     */
+    private SubTile getTileNext(SubTile tile, int row, int col, int zoom, String index) {
+        if(0 == row && 0 == col) {
+            return tile;
+        }
+        double lon = tile.getLongitude() + tile.getPx() * SubTile.DIM * col;
+        double lat = tile.getLatitude() + tile.getPy() * SubTile.DIM * row;
+        return new SubTile(mContext, mPref, lon, lat, zoom, index);
+    }
+
+    /**
+     * Elevation sub tile next to this one in the direction of travel
+     * @param tile
+     * @param params
+     * @param zoom
+     * @return null if not moving
+     */
+    private SubTile getTileAhead(SubTile tile, GpsParams params, int zoom) {
+        if(null == tile || null == params || params.getSpeed() <= 0) {
+            return null;
+        }
+        double bearing = Math.toRadians(params.getBearing());
+        // sub tiles are 128 pixels apart
+        long dx = Math.round(Math.sin(bearing)) * 128;
+        long dy = -Math.round(Math.cos(bearing)) * 128;
+        if(dx == 0 && dy == 0) {
+            return null;
+        }
+        double lon = params.getLongitude() + tile.getPx() * dx;
+        double lat = params.getLatitude() + tile.getPy() * dy;
+        return new SubTile(mContext, mPref, lon, lat, zoom, "6");
+    }
+
     /**
      * Get elevation at this location
      * @return
@@ -531,6 +620,10 @@ public class ThreeDActivity extends Activity {
         // Find from Map
         double elev = mRenderer.getElevationNormalized(y, x, mAreaMapper.getTerrainRatio());
         if(elev <= -1) {
+            // terrain not loaded yet, or off it
+            if(null != mService) {
+                return mService.getElevationCache().elevation(lon, lat);
+            }
             return Helper.ALTITUDE_FT_ELEVATION_PER_PIXEL_INTERCEPT - 1;
         }
 
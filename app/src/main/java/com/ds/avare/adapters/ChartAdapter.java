@@ -218,7 +218,7 @@ public class ChartAdapter extends BaseExpandableListAdapter {
         double lat = l.getLatitude();
         double lon = l.getLongitude();
         // sectional index in boundries is 0
-        String chart = Boundaries.getInstance().findChartOn("0", lon, lat);
+        String chart = Boundaries.getInstance(mContext).findChartOn("0", lon, lat);
 
         for(int child = 0; child < mChildrenFiles[GROUP_SECTIONAL].length; child++) {
             if(chart.equals(mChildrenFiles[GROUP_SECTIONAL][child])) {
@@ -11,14 +11,8 @@ Redistribution and use in source and binary forms, with or without modification,
 */
 package com.ds.avare.adsb;
 
-import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.util.SparseArray;
-
-import com.ds.avare.position.Origin;
 import com.ds.avare.shapes.DrawingContext;
-import com.ds.avare.storage.Preferences;
-import com.ds.avare.utils.BitmapHolder;
+import com.ds.avare.shapes.RadarLoop;
 
 /**
  * 
@@ -26,10 +20,19 @@ import com.ds.avare.utils.BitmapHolder;
  *
  */
 public class NexradBitmap {
+
+    // minutes per pixel
+    public static final double SCALE_X = 1.5;
+    public static final double SCALE_Y = 1;
+    public static final double SCALE_X_CONUS = 7.5;
+    public static final double SCALE_Y_CONUS = 5;
+
     private double mCoords[];
     private double mScaleX;
     private double mScaleY;
-    private BitmapHolder mBitmap;
+    private int mBlock;
+    private int mCols;
+    private int mRows;
     
     public long timestamp;
     /**
@@ -72,55 +75,59 @@ public class NexradBitmap {
     }
 
     /**
-     * 
-     * @param data
+     * A block, its pixels go in a mosaic
+     * @param time
      * @param block
+     * @param conus
+     * @param cols
+     * @param rows
      */
-    public NexradBitmap(long time, int data[], int block, boolean conus, int cols, int rows) {
+    public NexradBitmap(long time, int block, boolean conus, int cols, int rows) {
        
         timestamp = System.currentTimeMillis();
         mCoords = new double[2];
+        mBlock = block;
+        mCols = cols;
+        mRows = rows;
         
         /*
          * Scales are in minutes as well.
          */
         if(conus) {
-            mScaleX = 7.5;
-            mScaleY = 5;
+            mScaleX = SCALE_X_CONUS;
+            mScaleY = SCALE_Y_CONUS;
         }
         else {
-            mScaleX = 1.5;
-            mScaleY = 1;
+            mScaleX = SCALE_X;
+            mScaleY = SCALE_Y;
         }
         convertBlockNumberToLatLon(block, mCoords);
-        
-        /*
-         * If empty block, do not waste bitmap memory
-         */
-        if(null == data) {
-            return;        
-        }
-        else if(data.length < cols * rows) {
-            return;            
-        }
-        mBitmap = new BitmapHolder(cols, rows); // this creates a MUTABLE bitmap
-        for(int row = 0; row < rows; row++) {
-            for(int col = 0; col < cols; col++) {
-                mBitmap.getBitmap().setPixel(col, row, data[col + row * cols]);
-            }
-        }
     }
-    
+
     /**
      * 
+     * @return
      */
-    public void discard() {
-        if(mBitmap != null) {
-            mBitmap.recycle();
-            mBitmap = null;
-        }
+    public int getBlock() {
+        return mBlock;
     }
-    
+
+    /**
+     * 
+     * @return
+     */
+    public int getCols() {
+        return mCols;
+    }
+
+    /**
+     * 
+     * @return
+     */
+    public int getRows() {
+        return mRows;
+    }
+
     /**
      * 
      * @return
@@ -142,7 +149,7 @@ public class NexradBitmap {
      * @return
      */
     public double getLatBottomRight() {
-        return mCoords[1] - mScaleY * mBitmap.getHeight() / 60.0;
+        return mCoords[1] - mScaleY * mRows / 60.0;
     }
 
     /**
@@ -150,48 +157,42 @@ public class NexradBitmap {
      * @return
      */
     public double getLonBottomRight() {
-        return mCoords[0] + mScaleX * mBitmap.getWidth() / 60.0;
+        return mCoords[0] + mScaleX * mCols / 60.0;
     }
 
     /**
-     * 
+     * Column of left pixel of this block, counting pixels east from 0 longitude
      * @return
      */
-    public BitmapHolder getBitmap() {
-        return mBitmap;
+    public int getPixelX() {
+        return (int)Math.round(getLonTopLeft() * 60.0 / mScaleX);
     }
 
-
     /**
-     * Draw on map screen
+     * Row of top pixel of this block, counting pixels south from 0 latitude.
+     * Blocks show a block height south of block latitude.
+     * @return
      */
-    public void drawOne(Canvas canvas, Paint paint, Origin origin, Preferences pref) {
-        if(null == mBitmap) {
-            return;
-        }
+    public int getPixelY() {
+        return (int)Math.round(-getLatBottomRight() * 60.0 / mScaleY);
+    }
 
-        /*
-         * draw them scaled.
-         */
-        float x0 = (float)origin.getOffsetX(getLonTopLeft());
-        float y0 = (float)origin.getOffsetY(getLatTopLeft());
-        float x1 = (float)origin.getOffsetX(getLonBottomRight());
-        float y1 = (float)origin.getOffsetY(getLatBottomRight());
-
-        float scalex = (x1 - x0) / mBitmap.getWidth();
-        float scaley = (y1 - y0) / mBitmap.getHeight();
-
-        mBitmap.getTransform().setScale(scalex, scaley);
-        mBitmap.getTransform().postTranslate(x0, y1);
-        if(mBitmap.getBitmap() != null) {
-            paint.setAlpha(pref.showLayer());
-            canvas.drawBitmap(mBitmap.getBitmap(), mBitmap.getTransform(), paint);
-            paint.setAlpha(255);
+    /**
+     * Draw a past frame when looping
+     * @param ctx
+     * @param loop
+     * @return false if mosaic as it is now should be drawn
+     */
+    private static boolean drawLoop(DrawingContext ctx, RadarLoop loop) {
+        if(!ctx.pref.isRadarLoop()) {
+            return false;
         }
-
+        ctx.paint.setAlpha(ctx.pref.showLayer());
+        long date = loop.draw(ctx.canvas, ctx.paint, ctx.origin, System.currentTimeMillis(), Long.MAX_VALUE);
+        ctx.paint.setAlpha(255);
+        return 0 != date;
     }
 
-
     /**
      *
      * @param ctx
@@ -213,7 +214,9 @@ public class NexradBitmap {
                 /*
                  * CONUS for larger scales.
                  */
-                drawImage(conus.getImages(), ctx);
+                if(!drawLoop(ctx, conus.getLoop())) {
+                    conus.getMosaic().draw(ctx.canvas, ctx.paint, ctx.origin, ctx.pref.showLayer());
+                }
             }
         }
         else {
@@ -221,23 +224,9 @@ public class NexradBitmap {
                 /*
                  * Draw high res over low res
                  */
-                drawImage(nexrad.getImages(), ctx);
-            }
-        }
-    }
-
-    /**
-     * Draw block by block
-     * @param bitmaps
-     * @param ctx
-     */
-    private static void drawImage(SparseArray<NexradBitmap> bitmaps, DrawingContext ctx) {
-        if (null != bitmaps) {
-            // Draw all nexrad blocks
-            for (int i = 0; i < bitmaps.size(); i++) {
-                int key = bitmaps.keyAt(i);
-                NexradBitmap b = bitmaps.get(key);
-                b.drawOne(ctx.canvas, ctx.paint, ctx.origin, ctx.pref);
+                if(!drawLoop(ctx, nexrad.getLoop())) {
+                    nexrad.getMosaic().draw(ctx.canvas, ctx.paint, ctx.origin, ctx.pref.showLayer());
+                }
             }
         }
     }
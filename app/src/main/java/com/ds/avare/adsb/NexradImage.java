@@ -15,10 +15,9 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 
+import com.ds.avare.shapes.RadarLoop;
 import com.ds.avare.utils.Helper;
 
-import android.util.SparseArray;
-
 /**
  * 
  * @author zkhan
@@ -42,53 +41,57 @@ public class NexradImage {
      * 
      * = 12 * 60 / 4 = 180 rows
      * = 7.2 * 60 / 48 = 9 columns
-     * = 1620 entries
+     * = 1620 blocks, written in to a few atlases
      */
-    private static final int MAX_ENTRIES = 1620;
-    private SparseArray<NexradBitmap> mImg;
+    // bytes of mosaic bitmaps, 16 atlases each covering 6.4 degrees by 4.3 degrees
+    private static final int MAX_BYTES = 1024 * 1024 * 4;
+    private static final long FRAME_INTERVAL = 1000 * 150; // 2.5 minutes, regional product update
+    private static final int LOOP_FRAMES = 8;
+    private static final int LOOP_BYTES = 1024 * 1024 * 8;
+    private NexradMosaic mImg;
+    private RadarLoop mLoop;
     private long mUpdated;
+    private long mFrameTime;
     
     public NexradImage() { 
-        mImg = new SparseArray<NexradBitmap>();
+        mImg = new NexradMosaic(MAX_BYTES, false);
+        mLoop = new RadarLoop(LOOP_FRAMES, LOOP_BYTES);
         mUpdated = 0;
+        mFrameTime = 0;
     }
     
     /**
      * 
      * @param product
+     * @param loop keep frames for radar loop
      */
-    public void putImg(long time, int block, int empty[], boolean isConus, int data[], int cols, int rows) {
-        
+    public void putImg(long time, int block, int empty[], boolean isConus, int data[], int cols, int rows, boolean loop) {
+
+        if(!loop) {
+            mLoop.clear();
+        }
+        else if(0 == mFrameTime) {
+            mFrameTime = time;
+        }
+        else if(time - mFrameTime >= FRAME_INTERVAL) {
+            /*
+             * New update cycle, keep mosaic as it was at end of last one as a frame of loop
+             */
+            mImg.snapshot(mLoop, mUpdated);
+            mFrameTime = time;
+        }
+
         if(null != empty) {
             /*
-             * Empty, make dummy bitmaps of all.
+             * Empty, clear blocks since nothing draws there.
              */
             for(int i = 0; i < empty.length; i++) {
-                if(mImg.get(i) != null) {
-                    /*
-                     * Clears the bitmap and discards it, since nothing draws here.
-                     */
-                    mImg.get(i).discard();
-                    mImg.delete(i);
-                }
+                mImg.remove(empty[i]);
             }
             mUpdated = time;
         }
         if(null != data) {
-            if(mImg.get(block) != null) {
-                /*
-                 * Replace same block
-                 */
-                mImg.get(block).discard();
-                mImg.delete(block);
-            }
-            if(mImg.size() > MAX_ENTRIES) {
-                /*
-                 * Sorry no more space.
-                 */
-                return;
-            }
-            mImg.put(block, new NexradBitmap(time, data, block, isConus, cols, rows));
+            mImg.put(time, block, isConus, data, cols, rows);
             mUpdated = time;
         }
     }
@@ -97,9 +100,17 @@ public class NexradImage {
      * 
      * @return
      */
-    public SparseArray<NexradBitmap> getImages() {
+    public NexradMosaic getMosaic() {
         return mImg;
     }
+
+    /**
+     * 
+     * @return
+     */
+    public RadarLoop getLoop() {
+        return mLoop;
+    }
     
     /**
      * 
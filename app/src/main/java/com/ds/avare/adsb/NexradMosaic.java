@@ -0,0 +1,287 @@
+/*
+Copyright (c) 2012, Apps4Av Inc. (apps4av.com) 
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.ds.avare.adsb;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.SparseArray;
+
+import com.ds.avare.position.Origin;
+import com.ds.avare.shapes.RadarLoop;
+import com.ds.avare.utils.BitmapHolder;
+
+import java.util.LinkedList;
+
+/**
+ * NEXRAD blocks written in to a few large bitmaps, so drawing is a few bitmaps however many blocks there are.
+ * Each bitmap (atlas) covers a fixed part of the earth, in pixels of the product.
+ * Written from IO thread, drawn from UI thread.
+ * @author zkhan
+ *
+ */
+public class NexradMosaic {
+
+    private static final int SIZE = 256; // pixels on a side of an atlas
+    private static final int STRIP = 64; // rows drawn at a time, so mercator stretch between corners is less than a pixel
+    private static final int BYTES = SIZE * SIZE * 4;
+
+    /**
+     * One bitmap of mosaic
+     */
+    private static class Atlas {
+        int x; // in SIZE pixels from 0 longitude
+        int y; // in SIZE pixels from 0 latitude, going south
+        BitmapHolder bitmap;
+        int blocks; // blocks in it
+        int strips[]; // blocks in each strip, to skip empty strips
+        long updated;
+    }
+
+    private SparseArray<NexradBitmap> mBlocks;
+    private LinkedList<Atlas> mAtlases;
+    private int mBudget;
+    private double mScaleX;
+    private double mScaleY;
+    private int mClear[];
+    private Rect mSrc;
+    private RectF mDst;
+
+    /**
+     * @param budget bytes of bitmaps at most
+     * @param conus
+     */
+    public NexradMosaic(int budget, boolean conus) {
+        mBlocks = new SparseArray<NexradBitmap>();
+        mAtlases = new LinkedList<Atlas>();
+        mBudget = budget;
+        mScaleX = conus ? NexradBitmap.SCALE_X_CONUS : NexradBitmap.SCALE_X;
+        mScaleY = conus ? NexradBitmap.SCALE_Y_CONUS : NexradBitmap.SCALE_Y;
+        mClear = new int[0];
+        mSrc = new Rect();
+        mDst = new RectF();
+    }
+
+    private static int atlasOf(int pixel) {
+        return (int)Math.floor((double)pixel / SIZE);
+    }
+
+    private Atlas find(int x, int y) {
+        for(Atlas a : mAtlases) {
+            if(a.x == x && a.y == y) {
+                return a;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Make room for another atlas by dropping least recently updated ones
+     */
+    private void makeRoom() {
+        while(!mAtlases.isEmpty() && (mAtlases.size() + 1) * BYTES > mBudget) {
+            Atlas oldest = mAtlases.getFirst();
+            for(Atlas a : mAtlases) {
+                if(a.updated < oldest.updated) {
+                    oldest = a;
+                }
+            }
+            // forget its blocks
+            for(int i = mBlocks.size() - 1; i >= 0; i--) {
+                NexradBitmap b = mBlocks.valueAt(i);
+                if(atlasOf(b.getPixelX()) == oldest.x && atlasOf(b.getPixelY()) == oldest.y) {
+                    mBlocks.removeAt(i);
+                }
+            }
+            oldest.bitmap.recycle();
+            mAtlases.remove(oldest);
+        }
+    }
+
+    /**
+     * Write pixels of a block
+     * @param time
+     * @param block
+     * @param conus
+     * @param data ARGB pixels, cols * rows
+     * @param cols
+     * @param rows
+     */
+    public synchronized void put(long time, int block, boolean conus, int data[], int cols, int rows) {
+        if(null == data || data.length < cols * rows) {
+            return;
+        }
+
+        // replace same block
+        remove(block);
+
+        NexradBitmap b = new NexradBitmap(time, block, conus, cols, rows);
+        int px = b.getPixelX();
+        int py = b.getPixelY();
+        int ax = atlasOf(px);
+        int ay = atlasOf(py);
+        int ox = px - ax * SIZE;
+        int oy = py - ay * SIZE;
+        if(ox + cols > SIZE || oy + rows > SIZE) {
+            // blocks line up with atlas edges, so this is not a known block shape
+            return;
+        }
+
+        Atlas a = find(ax, ay);
+        if(null == a) {
+            makeRoom();
+            if(mAtlases.size() * BYTES + BYTES > mBudget) {
+                return;
+            }
+            a = new Atlas();
+            a.x = ax;
+            a.y = ay;
+            a.bitmap = new BitmapHolder(SIZE, SIZE);
+            if(null == a.bitmap.getBitmap()) {
+                return;
+            }
+            a.strips = new int[SIZE / STRIP];
+            mAtlases.add(a);
+        }
+
+        // all pixels of block in one call
+        a.bitmap.getBitmap().setPixels(data, 0, cols, ox, oy, cols, rows);
+        a.blocks++;
+        a.strips[oy / STRIP]++;
+        a.updated = time;
+        mBlocks.put(block, b);
+    }
+
+    /**
+     * Clear pixels of a block
+     * @param block
+     */
+    public synchronized void remove(int block) {
+        NexradBitmap b = mBlocks.get(block);
+        if(null == b) {
+            return;
+        }
+        mBlocks.remove(block);
+
+        int px = b.getPixelX();
+        int py = b.getPixelY();
+        Atlas a = find(atlasOf(px), atlasOf(py));
+        if(null == a) {
+            return;
+        }
+        a.blocks--;
+        a.strips[(py - a.y * SIZE) / STRIP]--;
+        if(a.blocks <= 0) {
+            // nothing in it, free memory
+            a.bitmap.recycle();
+            mAtlases.remove(a);
+            return;
+        }
+        int cols = b.getCols();
+        int rows = b.getRows();
+        if(mClear.length < cols * rows) {
+            mClear = new int[cols * rows]; // transparent
+        }
+        a.bitmap.getBitmap().setPixels(mClear, 0, cols, px - a.x * SIZE, py - a.y * SIZE, cols, rows);
+    }
+
+    /**
+     * Remove blocks older than expiry
+     * @param now
+     * @param expiry
+     */
+    public synchronized void expire(long now, long expiry) {
+        for(int i = mBlocks.size() - 1; i >= 0; i--) {
+            NexradBitmap b = mBlocks.valueAt(i);
+            if((now - b.timestamp) - expiry > 0) {
+                remove(b.getBlock());
+            }
+        }
+    }
+
+    /**
+     * Add a copy of atlases with something in them to a loop as a frame
+     * @param loop
+     * @param date time of radar data
+     */
+    public synchronized void snapshot(RadarLoop loop, long date) {
+        LinkedList<Bitmap> bitmaps = new LinkedList<Bitmap>();
+        LinkedList<Atlas> atlases = new LinkedList<Atlas>();
+        for(Atlas a : mAtlases) {
+            if(a.blocks <= 0 || null == a.bitmap.getBitmap()) {
+                continue;
+            }
+            Bitmap b;
+            try {
+                b = a.bitmap.getBitmap().copy(Bitmap.Config.ARGB_8888, false);
+            }
+            catch (OutOfMemoryError e) {
+                b = null;
+            }
+            if(null != b) {
+                bitmaps.add(b);
+                atlases.add(a);
+            }
+        }
+        if(bitmaps.isEmpty()) {
+            return;
+        }
+
+        float bounds[] = new float[atlases.size() * 4];
+        int i = 0;
+        for(Atlas a : atlases) {
+            bounds[i++] = (float)(a.x * SIZE * mScaleX / 60.0);
+            bounds[i++] = (float)(-a.y * SIZE * mScaleY / 60.0);
+            bounds[i++] = (float)((a.x + 1) * SIZE * mScaleX / 60.0);
+            bounds[i++] = (float)(-(a.y + 1) * SIZE * mScaleY / 60.0);
+        }
+        loop.add(date, bitmaps.toArray(new Bitmap[bitmaps.size()]), bounds, SIZE / STRIP);
+    }
+
+    /**
+     * Draw on map screen, strip by strip of atlases
+     * @param canvas
+     * @param paint
+     * @param origin
+     * @param alpha
+     */
+    public synchronized void draw(Canvas canvas, Paint paint, Origin origin, int alpha) {
+        paint.setAlpha(alpha);
+        for(Atlas a : mAtlases) {
+            if(null == a.bitmap.getBitmap()) {
+                continue;
+            }
+            double lonLeft = a.x * SIZE * mScaleX / 60.0;
+            double lonRight = (a.x + 1) * SIZE * mScaleX / 60.0;
+            float x0 = (float)origin.getOffsetX(lonLeft);
+            float x1 = (float)origin.getOffsetX(lonRight);
+            for(int s = 0; s < a.strips.length; s++) {
+                if(0 == a.strips[s]) {
+                    continue;
+                }
+                int top = a.y * SIZE + s * STRIP;
+                mDst.set(x0,
+                        (float)origin.getOffsetY(-top * mScaleY / 60.0),
+                        x1,
+                        (float)origin.getOffsetY(-(top + STRIP) * mScaleY / 60.0));
+                if(canvas.quickReject(mDst, Canvas.EdgeType.BW)) {
+                    continue;
+                }
+                mSrc.set(0, s * STRIP, SIZE, (s + 1) * STRIP);
+                canvas.drawBitmap(a.bitmap.getBitmap(), mSrc, mDst, paint);
+            }
+        }
+        paint.setAlpha(255);
+    }
+}
@@ -14,12 +14,13 @@ package com.ds.avare.adsb;
 
 import android.content.Context;
 
+import com.ds.avare.shapes.ShapeIndex;
 import com.ds.avare.shapes.TFRShape;
 import com.ds.avare.storage.Preferences;
 import com.ds.avare.weather.WindsAloft;
 
-import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 
@@ -28,11 +29,17 @@ import java.util.LinkedList;
  */
 public class TfrCache {
 
-    private HashMap<String, AdsbTfr> mTfrs;
+    private ConcurrentHashMap<String, AdsbTfr> mTfrs;
     private Preferences mPref;
 
+    /*
+     * Index of complete TFRs, made again on lookup after TFRs change
+     */
+    private ShapeIndex<TFRShape> mIndex;
+    private volatile boolean mChanged;
+
     public TfrCache(Context ctx) {
-        mTfrs = new HashMap<String, AdsbTfr>();
+        mTfrs = new ConcurrentHashMap<String, AdsbTfr>();
         mPref = new Preferences(ctx);
     }
 
@@ -48,6 +55,19 @@ public class TfrCache {
         return ret;
     }
 
+    /**
+     * Index on complete TFRs for touch lookups
+     * @return
+     */
+    public synchronized ShapeIndex<TFRShape> getIndex() {
+        if(mChanged || null == mIndex) {
+            // changes from now on make it again
+            mChanged = false;
+            mIndex = new ShapeIndex<TFRShape>(getShapes());
+        }
+        return mIndex;
+    }
+
 
     /**
      * 
@@ -109,6 +129,7 @@ public class TfrCache {
         }
 
         mTfrs.put(id, t);
+        mChanged = true;
     }
 
     /*
@@ -133,6 +154,7 @@ public class TfrCache {
         }
         for(String key : keys) {
             mTfrs.remove(key);
+            mChanged = true;
         }
     }
 
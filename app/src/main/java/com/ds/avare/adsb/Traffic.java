@@ -1,7 +1,6 @@
 package com.ds.avare.adsb;
 
 import android.graphics.Color;
-import android.util.SparseArray;
 
 import com.ds.avare.StorageService;
 import com.ds.avare.gps.GpsParams;
@@ -13,16 +12,26 @@ import com.ds.avare.threed.TerrainRenderer;
 import com.ds.avare.threed.data.Vector4d;
 import com.ds.avare.utils.Helper;
 
+import java.util.ArrayList;
+
 public class Traffic {
 
-    public int mIcaoAddress;
-    public float mLat;
-    public float mLon;
-    public int mAltitude;
-    public int mHorizVelocity;
-    public float mHeading;
-    public String mCallSign;
-    private long mLastUpdate;
+    public volatile int mIcaoAddress;
+    public volatile float mLat;
+    public volatile float mLon;
+    public volatile int mAltitude;
+    public volatile int mHorizVelocity;
+    public volatile float mHeading;
+    public volatile String mCallSign;
+    private volatile long mLastUpdate;
+
+    // closest point of approach to us
+    private volatile boolean mConflict;
+    private volatile double mCpaTime;
+    private volatile double mCpaDistance;
+
+    // odd while being updated, so readers can tell a torn copy
+    private volatile int mVersion;
     
 
     public static final double TRAFFIC_ALTITUDE_DIFF_DANGEROUS = 1000; //ft 300m required minimum
@@ -32,6 +41,19 @@ public class Traffic {
     // ms
     private static final long EXPIRES = 1000 * 60 * 1;
 
+    // do not move traffic ahead more than this from its report, ms
+    private static final long EXTRAPOLATE_MAX = 1000 * 30;
+
+    // copy of cache drawn on map, kept between frames, UI thread only
+    private static final ArrayList<Traffic> mDrawn = new ArrayList<Traffic>();
+
+    /**
+     * Empty, to copy in to
+     */
+    public Traffic() {
+        mCallSign = "";
+    }
+
     /**
      * 
      * @param callsign
@@ -60,6 +82,85 @@ public class Traffic {
             mHorizVelocity = 0;
         }
     }
+
+    /**
+     * Update in place with a new report. One writer at a time.
+     */
+    public void update(String callsign, float lat, float lon, int altitude,
+            float heading, int speed, long time) {
+        mVersion++;
+        mCallSign = callsign;
+        mLon = lon;
+        mLat = lat;
+        mAltitude = altitude;
+        mHeading = heading;
+        mHorizVelocity = speed >= 0xFFF ? 0 : speed;
+        mLastUpdate = time;
+        mVersion++;
+    }
+
+    /**
+     * Copy a consistent report, without locks
+     * @param t to copy in to
+     */
+    public void copyTo(Traffic t) {
+        int version;
+        do {
+            version = mVersion;
+            t.mIcaoAddress = mIcaoAddress;
+            t.mCallSign = mCallSign;
+            t.mLon = mLon;
+            t.mLat = mLat;
+            t.mAltitude = mAltitude;
+            t.mHeading = mHeading;
+            t.mHorizVelocity = mHorizVelocity;
+            t.mLastUpdate = mLastUpdate;
+            t.mConflict = mConflict;
+            t.mCpaTime = mCpaTime;
+            t.mCpaDistance = mCpaDistance;
+        } while((version & 1) != 0 || version != mVersion);
+    }
+
+    /**
+     * Move position ahead to now from heading and speed of last report. Call once on a copy.
+     * @param now ms
+     */
+    public void extrapolate(long now) {
+        long diff = Math.min(now - mLastUpdate, EXTRAPOLATE_MAX);
+        if(diff <= 0 || mHorizVelocity <= 0) {
+            return;
+        }
+        double distance = mHorizVelocity * (diff / 3600000.0); // nm
+        double heading = Math.toRadians(mHeading);
+        double lat = mLat + distance * Math.cos(heading) / 60.0;
+        mLon = (float)(mLon + distance * Math.sin(heading) / (60.0 * Math.cos(Math.toRadians(mLat))));
+        mLat = (float)lat;
+    }
+
+    /**
+     * @param conflict
+     * @param time seconds to closest point of approach
+     * @param distance nm at closest point of approach
+     */
+    public void setConflict(boolean conflict, double time, double distance) {
+        mVersion++;
+        mConflict = conflict;
+        mCpaTime = time;
+        mCpaDistance = distance;
+        mVersion++;
+    }
+
+    public boolean isConflict() {
+        return mConflict;
+    }
+
+    public double getCpaTime() {
+        return mCpaTime;
+    }
+
+    public double getCpaDistance() {
+        return mCpaDistance;
+    }
     
     /**
      * 
@@ -110,25 +211,24 @@ public class Traffic {
         return color;
     }
 
-    public static void draw(DrawingContext ctx, SparseArray<Traffic> traffic, double altitude, GpsParams params, int ownIcao, boolean shouldDraw) {
+    public static void draw(DrawingContext ctx, TrafficCache cache, double altitude, GpsParams params, int ownIcao, boolean shouldDraw) {
 
         int filterAltitude = ctx.pref.showAdsbTrafficWithin();
 
         /*
          * Get traffic to draw.
          */
-        if((null == traffic) || (!shouldDraw)) {
+        if((null == cache) || (!shouldDraw)) {
             return;
         }
 
+        int count = cache.getTraffic(mDrawn);
+        long now = Helper.getMillisGMT();
         ctx.paint.setColor(Color.WHITE);
-        for(int i = 0; i < traffic.size(); i++) {
-            int key = traffic.keyAt(i);
-            Traffic t = traffic.get(key);
-            if(t.isOld()) {
-                traffic.delete(key);
-                continue;
-            }
+        for(int i = 0; i < count; i++) {
+            Traffic t = mDrawn.get(i);
+            // where it is now, not where it was at last report
+            t.extrapolate(now);
 
             if(t.mIcaoAddress == ownIcao) {
                 // Do not draw shadow of own
@@ -175,6 +275,13 @@ public class Traffic {
 
 
             float radius = ctx.dip2pix * 8;
+            if(t.isConflict()) {
+                /*
+                 * Will come too close, show a halo
+                 */
+                ctx.paint.setColor(Color.YELLOW);
+                ctx.canvas.drawCircle(x, y, radius * 2, ctx.paint);
+            }
             /*
              * Draw outline to show it clearly
              */
@@ -229,11 +336,14 @@ public class Traffic {
      */
     public static void draw(StorageService service, AreaMapper mapper, TerrainRenderer renderer) {
         if (service != null) {
-            SparseArray<Traffic> t = service.getTrafficCache().getTraffic();
-            Vector4d ships[] = new Vector4d[t.size()];
-            for (int count = 0; count < t.size(); count++) {
-                Traffic tr = t.valueAt(count);
-                ships[count] = mapper.gpsToAxis(tr.mLon, tr.mLat, tr.mAltitude, tr.mHeading);
+            ArrayList<Traffic> t = new ArrayList<Traffic>();
+            int count = service.getTrafficCache().getTraffic(t);
+            long now = Helper.getMillisGMT();
+            Vector4d ships[] = new Vector4d[count];
+            for (int i = 0; i < count; i++) {
+                Traffic tr = t.get(i);
+                tr.extrapolate(now);
+                ships[i] = mapper.gpsToAxis(tr.mLon, tr.mLat, tr.mAltitude, tr.mHeading);
             }
             renderer.setShips(ships);
         }
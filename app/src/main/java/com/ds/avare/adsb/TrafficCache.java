@@ -12,43 +12,183 @@ Redistribution and use in source and binary forms, with or without modification,
 package com.ds.avare.adsb;
 
 
-import android.util.SparseArray;
-
 import com.ds.avare.StorageService;
+import com.ds.avare.gps.GpsParams;
+import com.ds.avare.utils.Helper;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * 
+ * Traffic by ICAO address. Connection threads write, UI and 3D threads read without locks.
+ * Writers update targets in place, and replace (not change) the table when it grows or old targets are purged,
+ * so a reader always goes over a whole table. Readers get copies, so they cannot change the cache.
  * @author zkhan
  *
  */
 public class TrafficCache {
-    private static final int MAX_ENTRIES = 100;
-    private SparseArray<Traffic> mTraffic;
-    private int mOwnAltitude;
-    
+    private static final int CAPACITY = 64; // power of 2
+    private static final long PURGE_INTERVAL = 1000 * 10; // ms
+
+    // conflict when closer than this, within the time ahead, and within dangerous altitude
+    private static final double CONFLICT_DISTANCE = 1.0; // nm
+    private static final double CONFLICT_TIME = 60; // seconds ahead
+
+    /**
+     * Open addressed table of traffic
+     */
+    private static class Table {
+        final int keys[];
+        final AtomicReferenceArray<Traffic> values;
+        int size;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            values = new AtomicReferenceArray<Traffic>(capacity);
+            size = 0;
+        }
+
+        /**
+         * Slot of address, or empty slot where it goes
+         */
+        int find(int address) {
+            int mask = keys.length - 1;
+            int slot = (address * 0x9E3779B1) >>> 16 & mask;
+            while(null != values.get(slot) && keys[slot] != address) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        void add(int address, Traffic t) {
+            int slot = find(address);
+            keys[slot] = address;
+            values.set(slot, t);
+            size++;
+        }
+    }
+
+    private volatile Table mTable;
+    private volatile int mOwnAltitude;
+    private volatile GpsParams mOwn;
+    private volatile long mLastPurge;
+
     public TrafficCache() { 
-        mTraffic = new SparseArray<Traffic>();
+        mTable = new Table(CAPACITY);
         mOwnAltitude = StorageService.MIN_ALTITUDE;
+        mOwn = null;
+        mLastPurge = 0;
     }
     
     /**
      * 
      * @param
      */
-    public void putTraffic(String callsign, int address, float lat, float lon, int altitude, 
+    public synchronized void putTraffic(String callsign, int address, float lat, float lon, int altitude, 
             float heading, int speed, long time) {
 
-        /*
-         * For any new entries, check max traffic objects.
-         */
-        if(mTraffic.get(address) == null) {
-            if(mTraffic.size() >= MAX_ENTRIES) {
-                return;
-            }            
+        Table table = mTable;
+        int slot = table.find(address);
+        Traffic t = table.values.get(slot);
+        if(null != t) {
+            t.update(callsign, lat, lon, altitude, heading, speed, time);
+        }
+        else {
+            t = new Traffic(callsign, address, lat, lon, altitude, heading, speed, time);
+            if((table.size + 1) * 4 > table.keys.length * 3) {
+                // too full, grow
+                table = copy(table, table.keys.length * 2);
+                table.add(address, t);
+                mTable = table;
+            }
+            else {
+                table.add(address, t);
+            }
+        }
+
+        findConflict(t);
+
+        purgeIfDue(Helper.getMillisGMT());
+    }
+
+    /**
+     * Purge now and then, on reports and on reads, so old traffic goes also when no reports come
+     * @param now
+     */
+    private void purgeIfDue(long now) {
+        if(now - mLastPurge <= PURGE_INTERVAL) {
+            return;
+        }
+        synchronized(this) {
+            if(now - mLastPurge > PURGE_INTERVAL) {
+                mLastPurge = now;
+                purge();
+            }
         }
-        
-        mTraffic.put(address, new Traffic(callsign, address, lat, lon, altitude, 
-                heading, speed, time));
+    }
+
+    /**
+     * Copy of table without old traffic
+     */
+    private static Table copy(Table table, int capacity) {
+        Table copy = new Table(capacity);
+        for(int i = 0; i < table.keys.length; i++) {
+            Traffic t = table.values.get(i);
+            if(null != t && !t.isOld()) {
+                copy.add(table.keys[i], t);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Remove old traffic, in a new table so readers are not disturbed
+     */
+    private void purge() {
+        Table table = copy(mTable, mTable.keys.length);
+        int capacity = table.keys.length;
+        // shrink after a busy airport
+        while(capacity > CAPACITY && table.size * 4 < capacity) {
+            capacity /= 2;
+        }
+        if(capacity != table.keys.length) {
+            table = copy(table, capacity);
+        }
+        mTable = table;
+    }
+
+    /**
+     * Find closest point of approach to us assuming both keep going as now, and flag if too close.
+     * Done as reports come so drawing needs only to check a flag.
+     * @param t
+     */
+    private void findConflict(Traffic t) {
+        GpsParams own = mOwn;
+        if(null == own || mOwnAltitude <= StorageService.MIN_ALTITUDE) {
+            t.setConflict(false, 0, 0);
+            return;
+        }
+
+        // flat earth around us, nm and knots
+        double cos = Math.cos(Math.toRadians(own.getLatitude()));
+        double x = (t.mLon - own.getLongitude()) * 60 * cos;
+        double y = (t.mLat - own.getLatitude()) * 60;
+        double ownH = Math.toRadians(own.getBearing());
+        double theirH = Math.toRadians(t.mHeading);
+        double vx = t.mHorizVelocity * Math.sin(theirH) - own.getSpeedInKnots() * Math.sin(ownH);
+        double vy = t.mHorizVelocity * Math.cos(theirH) - own.getSpeedInKnots() * Math.cos(ownH);
+
+        // time of closest approach in hours, not in the past
+        double v2 = vx * vx + vy * vy;
+        double time = v2 > 0 ? -(x * vx + y * vy) / v2 : 0;
+        time = Math.min(Math.max(time, 0), CONFLICT_TIME / 3600);
+        double dx = x + vx * time;
+        double dy = y + vy * time;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+
+        boolean conflict = distance < CONFLICT_DISTANCE &&
+                Math.abs(t.mAltitude - mOwnAltitude) < Traffic.TRAFFIC_ALTITUDE_DIFF_DANGEROUS;
+        t.setConflict(conflict, time * 3600, distance);
     }
 
     public void setOwnAltitude(int altitude) {
@@ -58,12 +198,39 @@ public class TrafficCache {
     public int getOwnAltitude() {
         return mOwnAltitude;
     }
-    
+
     /**
-     * 
-     * @return
+     * Where we are, for finding conflicts
+     * @param params
      */
-    public SparseArray<Traffic> getTraffic() {
-        return mTraffic;
-    }    
+    public void setOwnship(GpsParams params) {
+        mOwn = params;
+    }
+
+    /**
+     * Copy traffic that is not old in to list. Traffic already in list is reused, and added when list is short,
+     * so a reader that keeps its list does not allocate.
+     * @param list
+     * @return count of traffic copied, at start of list
+     */
+    public int getTraffic(ArrayList<Traffic> list) {
+        purgeIfDue(Helper.getMillisGMT());
+        AtomicReferenceArray<Traffic> values = mTable.values;
+        int count = 0;
+        for(int i = 0; i < values.length(); i++) {
+            Traffic live = values.get(i);
+            if(null == live) {
+                continue;
+            }
+            if(count == list.size()) {
+                list.add(new Traffic());
+            }
+            Traffic t = list.get(count);
+            live.copyTo(t);
+            if(!t.isOld()) {
+                count++;
+            }
+        }
+        return count;
+    }
 }
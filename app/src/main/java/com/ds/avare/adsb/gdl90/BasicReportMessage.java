@@ -306,9 +306,11 @@ public class BasicReportMessage extends Message {
         } else if ((payloadTypeCode == 1) || (payloadTypeCode == 2) || (payloadTypeCode == 3)) {
         }
 
-        Logger.Logit("Basic traffic report " + " icao addr " + mIcaoAddress +
-                " lat/lon " + mLat + "/" + mLon + " mAltitude " + mAltitude +
-                " heading " + mHeading);
+        if (Logger.isLogging()) {
+            Logger.Logit("Basic traffic report " + " icao addr " + mIcaoAddress +
+                    " lat/lon " + mLat + "/" + mLon + " mAltitude " + mAltitude +
+                    " heading " + mHeading);
+        }
 
     }
 
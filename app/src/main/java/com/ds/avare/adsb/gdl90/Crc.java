@@ -58,24 +58,38 @@ public class Crc {
      * @return
      */
     public static boolean checkCrc(byte[] bytes, int length, int msgCrc) {
-        int crc = 0;
-        int crc16 = 0;
+        return compute(0, bytes, 0, length) == msgCrc;
+    }
 
+    /**
+     * Continue a CRC computation over part of a buffer so a message can be checked in place.
+     *
+     * @param crc    CRC so far, 0 to start
+     * @param bytes
+     * @param offset
+     * @param length
+     * @return
+     */
+    public static int compute(int crc, byte[] bytes, int offset, int length) {
         /*
          * From GDL90 spec
          */
-        for (int i = 0; i < length; i++) {
-            crc16 = crc & 0xFFFF;
-            int entry2 = bytes[i] & 0xFF;
-            int entry = CRC_TABLE[crc16 >> 8] ^ entry2;
-            int entry3 = (crc16 << 8) & 0xFFFF;
-            crc = entry ^ entry3;
+        for (int i = offset; i < offset + length; i++) {
+            crc = update(crc, bytes[i]);
         }
+        return crc;
+    }
 
-        if (crc != msgCrc) {
-            return false;
-        }
-        return true;
+    /**
+     * @param crc
+     * @param b
+     * @return
+     */
+    public static int update(int crc, byte b) {
+        int crc16 = crc & 0xFFFF;
+        int entry = CRC_TABLE[crc16 >> 8] ^ (b & 0xFF);
+        int entry3 = (crc16 << 8) & 0xFFFF;
+        return entry ^ entry3;
     }
 
 
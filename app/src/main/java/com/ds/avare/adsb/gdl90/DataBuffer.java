@@ -11,30 +11,30 @@ Redistribution and use in source and binary forms, with or without modification,
 */
 package com.ds.avare.adsb.gdl90;
 
-import java.util.LinkedList;
-
 /**
  * @author zkhan
  * <p>
  * Accumulates GDL90 messages, joins fragments.
+ * Data is kept in a ring so that framing never shifts or copies the backlog, and frames are
+ * handed out in a caller supplied buffer so nothing is allocated per frame.
  */
 public class DataBuffer {
 
+    private static final byte FLAG = (byte) 0x7E;
+
     int mSize;
     int mElem;
+    int mHead;
+    int mScanned;
     byte mBuffer[];
-    byte mBuffer2[];
-    LinkedList<Integer> mIndexes;
 
     /**
      * @param size
      */
     public DataBuffer(int size) {
         mSize = size;
-        mIndexes = new LinkedList<Integer>();
-        mElem = 0;
         mBuffer = new byte[size];
-        mBuffer2 = new byte[size];
+        flush();
     }
 
     /**
@@ -42,95 +42,102 @@ public class DataBuffer {
      */
     private void flush() {
         mElem = 0;
-        mIndexes.clear();
+        mHead = 0;
+        mScanned = 0;
     }
 
     /**
-     *
+     * @param offset from head
+     * @return
      */
-    private void compute() {
-        int i = 0;
-        mIndexes.clear();
-        if (mElem <= 0) {
-            return;
-        }
-        if (mBuffer[0] != (byte) 0x7E) {
-            /*
-             * Partial packet
-             */
-            for (i = 0; i < mElem; i++) {
-                if (mBuffer[i] == (byte) 0x7E) {
-                    i++;
-                    break;
-                }
-            }
-        }
-        for (int j = i; j < mElem; j++) {
-            if (mBuffer[j] == (byte) 0x7E) {
-                mIndexes.add(j);
-            }
+    private byte at(int offset) {
+        int index = mHead + offset;
+        if (index >= mSize) {
+            index -= mSize;
         }
+        return mBuffer[index];
     }
 
     /**
      * @param len
-     * @return
-     */
-    private byte[] getAtBegin(int len) {
-        byte buffer[] = new byte[len];
-        System.arraycopy(mBuffer, 0, buffer, 0, len);
-        mElem -= len;
-        System.arraycopy(mBuffer, len, mBuffer2, 0, mElem);
-
-        byte tmp[] = mBuffer;
-        mBuffer = mBuffer2;
-        mBuffer2 = tmp;
-
-        compute();
-        return buffer;
-    }
-
-    /**
-     * @return
      */
-    private int getNext() {
-        if (mIndexes.isEmpty()) {
-            return -1;
+    private void skip(int len) {
+        mHead += len;
+        if (mHead >= mSize) {
+            mHead -= mSize;
         }
-        return mIndexes.remove();
+        mElem -= len;
+        mScanned = 0;
     }
 
     /**
-     * @return
+     * Get next complete frame, including both 0x7E flags
+     *
+     * @param out buffer to copy frame in
+     * @return length of frame copied in out, 0 if no complete frame is available
      */
-    public byte[] get() {
-        int beg = getNext();
+    public int get(byte out[]) {
+
+        while (mElem > 0) {
+
+            if (at(0) != FLAG) {
+                /*
+                 * Bad data. Mid stream. Move to first 0x7E
+                 */
+                int i;
+                for (i = 1; i < mElem; i++) {
+                    if (at(i) == FLAG) {
+                        break;
+                    }
+                }
+                skip(i);
+                continue;
+            }
 
-        if (beg < 0) {
             /*
-             * Empty, or bad data. No 0x7E in it.
+             * Find end flag, do not rescan what was looked at before
              */
-            flush();
-            return null;
-        } else if (beg > 0) {
-            /*
-             * Bad data. Mid stream. Move to first 0x7E
-             */
-            getAtBegin(beg);
-            beg = getNext();
-        }
+            int end = -1;
+            for (int i = Math.max(1, mScanned); i < mElem; i++) {
+                if (at(i) == FLAG) {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                /*
+                 * Not complete yet. Wait for complete packet
+                 */
+                mScanned = mElem;
+                return 0;
+            }
 
-        int end = getNext();
-        if (end < 0) {
-            /*
-             * Not complete yet. Wait for complete packet
-             */
-            return null;
-        }
+            if (end == 1) {
+                /*
+                 * Two flags back to back, first one was the end of a lost frame
+                 */
+                skip(1);
+                continue;
+            }
 
-        byte buf[] = getAtBegin(end - beg + 1);
-        return buf;
+            int len = end + 1;
+            if (len > out.length) {
+                /*
+                 * Too big to be a valid message.
+                 */
+                skip(len);
+                continue;
+            }
 
+            int first = Math.min(len, mSize - mHead);
+            System.arraycopy(mBuffer, mHead, out, 0, first);
+            System.arraycopy(mBuffer, 0, out, first, len - first);
+            skip(len);
+            return len;
+        }
+
+        flush();
+        return 0;
     }
 
     /**
@@ -138,16 +145,21 @@ public class DataBuffer {
      * @param len
      */
     public void put(byte data[], int len) {
-        if ((mElem + len) >= mBuffer.length) {
+        if ((mElem + len) >= mSize) {
             /*
              * Something wrong.
              */
             flush();
             return;
         }
-        System.arraycopy(data, 0, mBuffer, mElem, len);
+        int tail = mHead + mElem;
+        if (tail >= mSize) {
+            tail -= mSize;
+        }
+        int first = Math.min(len, mSize - tail);
+        System.arraycopy(data, 0, mBuffer, tail, first);
+        System.arraycopy(data, first, mBuffer, 0, len - first);
         mElem += len;
-        compute();
     }
 
 }
@@ -16,14 +16,17 @@ package com.ds.avare.adsb.gdl90;
  */
 public class Decode {
 
+    private MessageFactory mFactory = new MessageFactory();
+
     /**
      * The main decode function.
+     * Returned message is reused, so it is only valid till the next call.
      *
-     * @param bufin Input from receiver
+     * @param bufin Input from receiver, decoded in place
      * @param lens  length of data
      */
-    public Message decode(byte[] bufin) {
+    public Message decode(byte[] bufin, int lens) {
 
-        return MessageFactory.buildMessage(bufin);
+        return mFactory.buildMessage(bufin, lens);
     }
 }
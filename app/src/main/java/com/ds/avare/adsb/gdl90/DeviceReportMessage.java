@@ -53,7 +53,9 @@ public class DeviceReportMessage extends Message {
         } else {
             mIsCharging = false;
         }
-        Logger.Logit("charging " + mIsCharging + " voltage " + mBatteryVoltage);
+        if (Logger.isLogging()) {
+            Logger.Logit("charging " + mIsCharging + " voltage " + mBatteryVoltage);
+        }
     }
 
 }
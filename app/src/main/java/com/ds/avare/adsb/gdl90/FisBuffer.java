@@ -24,23 +24,46 @@ public class FisBuffer {
     private byte mBuffer[];
     private LinkedList<Product> mProducts;
 
+    /**
+     * Empty, to be filled with set() for every uplink frame
+     */
+    public FisBuffer() {
+        mSize = 0;
+        mBuffer = new byte[0];
+        mProducts = new LinkedList<Product>();
+    }
+
     /**
      * @param buffer
      * @param offset
+     * @param length valid bytes in buffer
      * @param slotId
      * @param fisbId
      * @param pvalid
      * @param lat
      * @param lon
      */
-    public FisBuffer(byte buffer[], int offset, int slotId, int fisbId, boolean pvalid, float lat, float lon) {
-        mSize = buffer.length - offset;
+    public FisBuffer(byte buffer[], int offset, int length, int slotId, int fisbId, boolean pvalid, float lat, float lon) {
+        this();
+        set(buffer, offset, length);
+    }
+
+    /**
+     * Copy payload of a frame, in memory of the last one when it fits. Products of last one are dropped.
+     * @param buffer
+     * @param offset
+     * @param length valid bytes in buffer
+     */
+    public void set(byte buffer[], int offset, int length) {
+        mProducts.clear();
+        mSize = length - offset;
         if (mSize <= 0) {
+            mSize = 0;
             return;
         }
-        mBuffer = buffer;
-        mProducts = new LinkedList<Product>();
-        mBuffer = new byte[mSize];
+        if (mBuffer.length < mSize) {
+            mBuffer = new byte[mSize];
+        }
         System.arraycopy(buffer, offset, mBuffer, 0, mSize);
     }
 
@@ -64,7 +64,9 @@ public class HeartbeatMessage extends Message {
             mMinute = 0;
             mHour++;
         }
-        Logger.Logit(" mHour " + mHour + " mMinute " + mMinute + " mSecond " + mSecond + " isBatteryLow " + mBatteryLow);
+        if (Logger.isLogging()) {
+            Logger.Logit(" mHour " + mHour + " mMinute " + mMinute + " mSecond " + mSecond + " isBatteryLow " + mBatteryLow);
+        }
     }
 
 }
@@ -306,9 +306,11 @@ public class LongReportMessage extends Message {
         } else if ((payloadTypeCode == 1) || (payloadTypeCode == 2) || (payloadTypeCode == 3)) {
         }
 
-        Logger.Logit("Long traffic report " + " icao addr " + mIcaoAddress +
-                " lat/lon " + mLat + "/" + mLon + " mAltitude " + mAltitude +
-                " heading " + mHeading);
+        if (Logger.isLogging()) {
+            Logger.Logit("Long traffic report " + " icao addr " + mIcaoAddress +
+                    " lat/lon " + mLat + "/" + mLon + " mAltitude " + mAltitude +
+                    " heading " + mHeading);
+        }
 
     }
 
@@ -11,8 +11,6 @@ Redistribution and use in source and binary forms, with or without modification,
 */
 package com.ds.avare.adsb.gdl90;
 
-import java.util.Calendar;
-import java.util.GregorianCalendar;
 import java.util.TimeZone;
 
 /**
@@ -20,15 +18,36 @@ import java.util.TimeZone;
  */
 public abstract class Message {
 
+    /*
+     * Looked up once per batch of frames with refreshTimeZone(), not for every message
+     */
+    private static volatile int mOffset = TimeZone.getDefault().getRawOffset();
+
     private int mType;
     private long mTime;
 
+    /*
+     * Number of valid bytes in the buffer given to parse()
+     */
+    protected int mLength;
+
     public Message(int type) {
         mType = type;
-        Calendar calendar = new GregorianCalendar();
-        TimeZone mTimeZone = calendar.getTimeZone();
-        int offset = mTimeZone.getRawOffset();
-        mTime = System.currentTimeMillis() - offset;
+        stamp();
+    }
+
+    /**
+     * Time zone may change while running, call before decoding a batch of frames
+     */
+    public static void refreshTimeZone() {
+        mOffset = TimeZone.getDefault().getRawOffset();
+    }
+
+    /**
+     * Mark this message as received now. Called when a pooled message is reused.
+     */
+    void stamp() {
+        mTime = System.currentTimeMillis() - mOffset;
     }
 
     public long getTime() {
@@ -15,39 +15,65 @@ import com.ds.avare.utils.Logger;
 
 /**
  * @author zkhan
+ * <p>
+ * Builds messages from frames. Messages are pooled, one per type, and are only valid till the
+ * next frame is built.
  */
 public class MessageFactory {
 
+    private HeartbeatMessage mHeartbeat = new HeartbeatMessage();
+    private UplinkMessage mUplink = new UplinkMessage();
+    private OwnshipMessage mOwnship = new OwnshipMessage();
+    private OwnshipGeometricAltitudeMessage mOwnshipGeometricAltitude = new OwnshipGeometricAltitudeMessage();
+    private TrafficReportMessage mTrafficReport = new TrafficReportMessage();
+    private BasicReportMessage mBasicReport = new BasicReportMessage();
+    private LongReportMessage mLongReport = new LongReportMessage();
+    private AhrsReportMessage mAhrsReport = new AhrsReportMessage();
+    private DeviceReportMessage mDeviceReport = new DeviceReportMessage();
 
-    public static Message buildMessage(byte bufin[]) {
+    private int mType;
 
-        int len = bufin.length;
+    /*
+     * Data of the last frame ends here, buffer is zero past it
+     */
+    private int mHigh;
+
+    /**
+     * Frame is unstuffed and checked in place. On return, bufin holds message data from index 0,
+     * and everything past the data is zero, also where longer frames were before when the same
+     * buffer is used for every frame.
+     *
+     * @param bufin frame with 0x7E flags at both ends
+     * @param len   length of frame
+     * @return
+     */
+    public Message buildMessage(byte bufin[], int len) {
 
         /*
          * Strip flag bytes 0x7E
          */
         if (len < 5) {
+            clear(bufin, 0, len);
             return null;
         }
-        byte strp[] = new byte[len - 2];
-        System.arraycopy(bufin, 1, strp, 0, len - 2);
 
         /* Check CRC */
-        byte[] inbuf = process(strp);
+        int length = process(bufin, len);
 
-        if (null == inbuf) {
+        if (length < 0) {
             /*
              * CRC fail
              */
+            clear(bufin, 0, len);
             return null;
         }
 
         /*
-         * Strip type and CRC to get actual data
+         * Type was taken out in process(), strip CRC to get actual data.
+         * Parsers expect a fresh array, so zero what is left of the frame.
          */
-        int type = inbuf[0] & 0xFF;
-        byte data[] = new byte[inbuf.length - 3];
-        System.arraycopy(inbuf, 1, data, 0, inbuf.length - 3);
+        int type = mType;
+        clear(bufin, length, len);
 
         /*
          * data has actual data and type is its type
@@ -57,39 +83,39 @@ public class MessageFactory {
         switch (type) {
 
             case MessageType.HEARTBEAT:
-                m = new HeartbeatMessage();
+                m = mHeartbeat;
                 break;
 
             case MessageType.UPLINK:
-                m = new UplinkMessage();
+                m = mUplink;
                 break;
 
             case MessageType.OWNSHIP:
-                m = new OwnshipMessage();
+                m = mOwnship;
                 break;
 
             case MessageType.OWNSHIP_GEOMETRIC_ALTITUDE:
-                m = new OwnshipGeometricAltitudeMessage();
+                m = mOwnshipGeometricAltitude;
                 break;
 
             case MessageType.TRAFFIC_REPORT:
-                m = new TrafficReportMessage();
+                m = mTrafficReport;
                 break;
 
             case MessageType.BASIC_REPORT:
-                m = new BasicReportMessage();
+                m = mBasicReport;
                 break;
 
             case MessageType.LONG_REPORT:
-                m = new LongReportMessage();
+                m = mLongReport;
                 break;
 
             case MessageType.AHRS_REPORT:
-                m = new AhrsReportMessage();
+                m = mAhrsReport;
                 break;
 
             case MessageType.DEVICE_REPORT:
-                m = new DeviceReportMessage();
+                m = mDeviceReport;
                 break;
 
             default:
@@ -101,63 +127,86 @@ public class MessageFactory {
          * Parse it.
          */
         if (null != m) {
-            m.parse(data);
+            m.stamp();
+            m.mLength = length;
+            m.parse(bufin);
         }
         return (m);
 
     }
 
     /**
-     * CRC16 process with 0x7D escape remove
+     * @param buf
+     * @param from
+     * @param to
+     */
+    private void clear(byte buf[], int from, int to) {
+        int end = Math.min(Math.max(to, mHigh), buf.length);
+        for (int i = from; i < end; i++) {
+            buf[i] = 0;
+        }
+        mHigh = from;
+    }
+
+    /**
+     * CRC16 process with 0x7D escape remove, in place.
+     * Type byte is saved in mType, and data is moved to start of msg.
      *
      * @param msg
-     * @return
+     * @param len
+     * @return length of data without type and CRC, -1 on failure
      */
-    private static byte[] process(byte msg[]) {
-        int i = 0;
+    private int process(byte msg[], int len) {
+        /*
+         * Skip flag at start, and at end
+         */
+        int i = 1;
         int length = 0;
-        int len = msg.length;
+        int end = len - 1;
+        boolean first = true;
 
-        byte msgCrc[] = new byte[len];
         byte msgChar;
-        while (i < len) {
+        while (i < end) {
             /*
              * 0x7D skip, and ^ with 0x20 to correct.
              */
             if (msg[i] == 0x7D) {
                 i++;
-                if (i >= len) {
+                if (i >= end) {
                     break;
                 }
                 msgChar = (byte) (msg[i] ^ 0x20);
-                msgCrc[length] = msgChar;
             } else {
-                msgCrc[length] = msg[i];
+                msgChar = msg[i];
             }
-            length++;
             i++;
+            if (first) {
+                /*
+                 * Type is never written back, so the write index always trails the read index
+                 */
+                mType = msgChar & 0xFF;
+                first = false;
+                continue;
+            }
+            msg[length++] = msgChar;
         }
 
-        if (length < 2) {
-            return null;
+        if (first || length < 2) {
+            return -1;
         }
         /*
          *  exclude CRC in CRC compute
          */
-        int msb = ((int) msgCrc[length - 1]) & 0xFF;
-        int lsb = ((int) msgCrc[length - 2]) & 0xFF;
+        int msb = ((int) msg[length - 1]) & 0xFF;
+        int lsb = ((int) msg[length - 2]) & 0xFF;
         int inCrc = (msb << 8) + lsb;
-        if (!Crc.checkCrc(msgCrc, length - 2, inCrc)) {
+        int crc = Crc.update(0, (byte) mType);
+        if (Crc.compute(crc, msg, 0, length - 2) != inCrc) {
             Logger.Logit("CRC failed");
-            return null;
+            return -1;
         }
 
-        /*
-         * Return corrected message.
-         */
-        byte ret[] = new byte[length];
-        System.arraycopy(msgCrc, 0, ret, 0, length);
-        return ret;
+        return length - 2;
     }
 
 
@@ -46,7 +46,9 @@ public class OwnshipGeometricAltitudeMessage extends Message {
             mAltitudeWGS84 = (int) alt;
         }
 
-        Logger.Logit("mAltitude Geometric " + mAltitudeWGS84);
+        if (Logger.isLogging()) {
+            Logger.Logit("mAltitude Geometric " + mAltitudeWGS84);
+        }
     }
 
 
@@ -124,8 +124,10 @@ public class OwnshipMessage extends Message {
         mIsTrackHeadingTrueHeading = (mTrackType & 0x3) != 0;
         mDirection = ((int) msg[16] & 0xFF) * (float) Constants.HEADING_RESOLUTION;
 
-        Logger.Logit("lat " + mLat + " lon " + mLon + " horzVel " + mHorizontalVelocity + " mVerticalVelocity" + mVerticalVelocity
-                + " mAltitude " + mAltitude + " direction " + mDirection + " trueheading " + mIsTrackHeadingTrueHeading);
+        if (Logger.isLogging()) {
+            Logger.Logit("lat " + mLat + " lon " + mLon + " horzVel " + mHorizontalVelocity + " mVerticalVelocity" + mVerticalVelocity
+                    + " mAltitude " + mAltitude + " direction " + mDirection + " trueheading " + mIsTrackHeadingTrueHeading);
+        }
     }
 
     /**
@@ -35,6 +35,8 @@ public class TrafficReportMessage extends Message {
     public int emergencyPriorityCode;
     public String mCallSign;
 
+    private byte mCallSignBytes[] = new byte[8];
+
     public TrafficReportMessage() {
         super(MessageType.TRAFFIC_REPORT);
     }
@@ -170,25 +172,28 @@ public class TrafficReportMessage extends Message {
         /*
          * next 8 bytes are callsign
          */
-        byte callsign[] = new byte[8];
-        callsign[0] = msg[18];
-        callsign[1] = msg[19];
-        callsign[2] = msg[20];
-        callsign[3] = msg[21];
-        callsign[4] = msg[22];
-        callsign[5] = msg[23];
-        callsign[6] = msg[24];
-        callsign[7] = msg[25];
-        mCallSign = new String(callsign);
+        boolean same = null != mCallSign;
+        for (int i = 0; i < mCallSignBytes.length; i++) {
+            same &= mCallSignBytes[i] == msg[18 + i];
+            mCallSignBytes[i] = msg[18 + i];
+        }
+        if (!same) {
+            /*
+             * Reports come in bursts from the same target, reuse the string
+             */
+            mCallSign = new String(mCallSignBytes);
+        }
 
         /*
          * next 4 bits are emergency/priority code
          */
         emergencyPriorityCode = ((int) msg[26] & 0xF0) >> 4;
 
-        Logger.Logit("Traffic report callsign " + mCallSign + " icao addr " + mIcaoAddress +
-                " lat/lon " + mLat + "/" + mLon + " mAltitude " + mAltitude +
-                " heading " + mHeading);
+        if (Logger.isLogging()) {
+            Logger.Logit("Traffic report callsign " + mCallSign + " icao addr " + mIcaoAddress +
+                    " lat/lon " + mLat + "/" + mLon + " mAltitude " + mAltitude +
+                    " heading " + mHeading);
+        }
     }
 
 }
@@ -20,6 +20,11 @@ public class UplinkMessage extends Message {
 
     private FisBuffer mFis;
 
+    /*
+     * Message is reused for every uplink frame of a decoder, and so is its buffer
+     */
+    private FisBuffer mFisBuffer = new FisBuffer();
+
     public UplinkMessage() {
         super(MessageType.UPLINK);
     }
@@ -29,6 +34,8 @@ public class UplinkMessage extends Message {
      */
     public void parse(byte msg[]) {
 
+        mFis = null;
+
         /*
          * First 3 bytes are Zulu time,
          * Next 8 is UAT header
@@ -82,14 +89,17 @@ public class UplinkMessage extends Message {
 
         // byte 9-432: application data (multiple iFrames).
         skip = 3 + 8;
-        mFis = new FisBuffer(msg, skip, slotID, tisbSiteID, positionValid, degLat, degLon);
+        mFisBuffer.set(msg, skip, mLength);
+        mFis = mFisBuffer;
 
         /*
          * Now decode all.
          */
         mFis.makeProducts();
 
-        Logger.Logit("Uplink message");
+        if (Logger.isLogging()) {
+            Logger.Logit("Uplink message");
+        }
     }
 
     /**
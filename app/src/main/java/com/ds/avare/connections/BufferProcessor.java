@@ -36,11 +36,9 @@ import com.ds.avare.nmea.RTMMessage;
 import com.ds.avare.storage.Preferences;
 import com.ds.avare.weather.MetarFlightCategory;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * 
@@ -60,6 +58,21 @@ public class BufferProcessor {
     com.ds.avare.nmea.Ownship nmeaOwnship =
             new com.ds.avare.nmea.Ownship();
 
+    /*
+     * GDL90 frames are decoded in place in this buffer
+     */
+    byte dframe[] = new byte[2048];
+
+    /*
+     * NMEA sentences and GDL90 frames decoded so far
+     */
+    long frames = 0;
+
+    /*
+     * Events of last decode, reused
+     */
+    ArrayList<IOEvent> objs = new ArrayList<IOEvent>();
+
     /**
      * 
      * @param buffer
@@ -70,197 +83,103 @@ public class BufferProcessor {
         dbuffer.put(buffer, red);
     }
 
+    /**
+     *
+     * @return frames decoded so far
+     */
+    public long getFrames() {
+        return frames;
+    }
+
     /**
      * 
-     * @return
+     * @return events, valid till the next decode. Traffic and ownship events are pooled,
+     * receiver recycles them.
      */
-    public LinkedList<String> decode(Preferences pref) {
+    public List<IOEvent> decode(Preferences pref) {
 
-        LinkedList<String> objs = new LinkedList<String>();
+        objs.clear();
+        com.ds.avare.adsb.gdl90.Message.refreshTimeZone();
         
         byte[] buf;
         
         while(null != (buf = nbuffer.get())) {
             com.ds.avare.nmea.Message m = ndecode.decode(buf);
+            frames++;
             
             if(m instanceof RTMMessage) {
                 
-                /*
-                 * Make a GPS locaiton message from ADSB ownship message.
-                 */
-                JSONObject object = new JSONObject();
                 RTMMessage tm = (RTMMessage)m;
-                try {
-                    object.put("type", "traffic");
-                    object.put("longitude", (double)tm.mLon);
-                    object.put("latitude", (double)tm.mLat);
-                    object.put("speed", (double)(tm.mSpeed));
-                    object.put("bearing", (double)tm.mDirection);
-                    object.put("altitude", (double)((double)tm.mAltitude));
-                    object.put("callsign", (String)"");
-                    object.put("address", (int)tm.mIcaoAddress);
-                    object.put("time", (long)tm.getTime());
-                } catch (JSONException e1) {
-                    continue;
-                }                
-                
-                objs.add(object.toString());
+                objs.add(IOEvent.Traffic.obtain("", tm.mIcaoAddress, (float)tm.mLat, (float)tm.mLon,
+                        (int)tm.mAltitude, (float)tm.mDirection, (int)tm.mSpeed, tm.getTime()));
 
             }
 
             else if(nmeaOwnship.addMessage(m)) {
                     
                 /*
-                 * Make a GPS locaiton message from ADSB ownship message.
+                 * Make a GPS locaiton message from NMEA ownship message.
                  */
-                JSONObject object = new JSONObject();
                 Ownship om = nmeaOwnship;
-                try {
-                    object.put("type", "ownship");
-                    object.put("longitude", (double)om.mLon);
-                    object.put("latitude", (double)om.mLat);
-                    object.put("speed", (double)(om.mHorizontalVelocity));
-                    object.put("bearing", (double)om.mDirection);
-                    object.put("altitude", (double)((double)om.mAltitude));
-                    object.put("time", (long)om.getTime());
-                } catch (JSONException e1) {
-                    continue;
-                }
-
-                objs.add(object.toString());
+                objs.add(IOEvent.Ownship.obtain(om.mLon, om.mLat, om.mHorizontalVelocity,
+                        om.mDirection, om.mAltitude, om.getTime()));
             }
         }
 
-        while(null != (buf = dbuffer.get())) {
+        int len;
+        while(0 != (len = dbuffer.get(dframe))) {
 
             /*
              * Get packets, decode
              */
-            com.ds.avare.adsb.gdl90.Message m = decode.decode(buf);
+            com.ds.avare.adsb.gdl90.Message m = decode.decode(dframe, len);
+            frames++;
             /*
              * Post on UI thread.
              */
             
             if(m instanceof TrafficReportMessage) {
                 
-                /*
-                 * Make a GPS locaiton message from ADSB ownship message.
-                 */
-                JSONObject object = new JSONObject();
                 TrafficReportMessage tm = (TrafficReportMessage)m;
-                try {
-                    object.put("type", "traffic");
-                    object.put("longitude", (double)tm.mLon);
-                    object.put("latitude", (double)tm.mLat);
-                    object.put("speed", (double)(tm.mHorizVelocity));
-                    object.put("bearing", (double)tm.mHeading);
-                    object.put("altitude", (double)((double)tm.mAltitude));
-                    object.put("callsign", (String)tm.mCallSign);
-                    object.put("address", (int)tm.mIcaoAddress);
-                    object.put("time", (long)tm.getTime());
-                } catch (JSONException e1) {
-                    continue;
-                }                
-                
-                objs.add(object.toString());
+                objs.add(IOEvent.Traffic.obtain(tm.mCallSign, tm.mIcaoAddress, tm.mLat, tm.mLon,
+                        tm.mAltitude, tm.mHeading, tm.mHorizVelocity, tm.getTime()));
 
             }
 
             else if(m instanceof BasicReportMessage) {
                 
-                /*
-                 * Make a GPS locaiton message from ADSB ownship message.
-                 */
-                JSONObject object = new JSONObject();
                 BasicReportMessage tm = (BasicReportMessage)m;
-                try {
-                    object.put("type", "traffic");
-                    object.put("longitude", (double)tm.mLon);
-                    object.put("latitude", (double)tm.mLat);
-                    object.put("speed", (double)(tm.mSpeed));
-                    object.put("bearing", (double)tm.mHeading);
-                    object.put("altitude", (double)((double)tm.mAltitude));
-                    object.put("callsign", (String)tm.mCallSign);
-                    object.put("address", (int)tm.mIcaoAddress);
-                    object.put("time", (long)tm.getTime());
-                } catch (JSONException e1) {
-                    continue;
-                }
-                
-                objs.add(object.toString());
+                objs.add(IOEvent.Traffic.obtain(tm.mCallSign, tm.mIcaoAddress, (float)tm.mLat, (float)tm.mLon,
+                        (int)tm.mAltitude, (float)tm.mHeading, (int)tm.mSpeed, tm.getTime()));
             }
 
             else if(m instanceof AhrsReportMessage) {
                 /*
                  * Make a AHRS message
                  */
-                JSONObject object = new JSONObject();
                 AhrsReportMessage tm = (AhrsReportMessage)m;
-                try {
-                    if(!tm.mValid) {
-                        continue;
-                    }
-                    object.put("type", "ahrs");
-                    object.put("pitch", tm.mPitch);
-                    object.put("yaw", tm.mYaw);
-                    object.put("roll", tm.mRoll);
-                    object.put("slip", tm.mSlip);
-                    object.put("yawrate", tm.mYawRate);
-                    object.put("acceleration", tm.mAccl);
-                    object.put("aoa", tm.mAoa);
-                    object.put("acceleration", tm.mAccl);
-                    object.put("airspeed", tm.mAirspeed);
-                    object.put("altitude", tm.mAltitude);
-                    object.put("vsi", tm.mVsi);
-                    object.put("time", (long)tm.getTime());
-                } catch (JSONException e1) {
+                if(!tm.mValid) {
                     continue;
                 }
-
-                objs.add(object.toString());
+                objs.add(new IOEvent.Ahrs(tm.mYaw, tm.mPitch, tm.mRoll, tm.mSlip, tm.mYawRate, tm.mAccl,
+                        tm.mAoa, tm.mAirspeed, tm.mAltitude, tm.mVsi, tm.getTime()));
 
             }
 
             else if(m instanceof LongReportMessage) {
                 
-                /*
-                 * Make a GPS locaiton message from ADSB ownship message.
-                 */
-                JSONObject object = new JSONObject();
                 LongReportMessage tm = (LongReportMessage)m;
-                try {
-                    object.put("type", "traffic");
-                    object.put("longitude", (double)tm.mLon);
-                    object.put("latitude", (double)tm.mLat);
-                    object.put("speed", (double)(tm.mSpeed));
-                    object.put("bearing", (double)tm.mHeading);
-                    object.put("altitude", (double)((double)tm.mAltitude));
-                    object.put("callsign", (String)tm.mCallSign);
-                    object.put("address", (int)tm.mIcaoAddress);
-                    object.put("time", (long)tm.getTime());
-                } catch (JSONException e1) {
-                    continue;
-                }
-                
-                objs.add(object.toString());
+                objs.add(IOEvent.Traffic.obtain(tm.mCallSign, tm.mIcaoAddress, (float)tm.mLat, (float)tm.mLon,
+                        (int)tm.mAltitude, (float)tm.mHeading, (int)tm.mSpeed, tm.getTime()));
             }
 
             else if(m instanceof OwnshipGeometricAltitudeMessage) {
-                JSONObject object = new JSONObject();
-                try {
-                    object.put("type", "geoaltitude");
-
-                    int altitude = (int)((OwnshipGeometricAltitudeMessage)m).mAltitudeWGS84;
-                    if(altitude == Integer.MIN_VALUE) {
-                        // invalid
-                        continue;
-                    }
-                    object.put("altitude", (double) altitude);
-                    object.put("time", (long) m.getTime());
-                } catch (JSONException e1) {
+                int altitude = ((OwnshipGeometricAltitudeMessage)m).mAltitudeWGS84;
+                if(altitude == Integer.MIN_VALUE) {
+                    // invalid
                     continue;
                 }
-                objs.add(object.toString());
+                objs.add(new IOEvent.GeoAltitude((double)altitude, m.getTime()));
             }
 
             else if(m instanceof UplinkMessage) {
@@ -275,66 +194,55 @@ public class BufferProcessor {
                 for(Product p : pds) {
                     if(p instanceof Id8Product) {
                         Id8Product pn = (Id8Product)p;
-                        JSONObject object = addFisGraphics("notam", pn.getFis());
+                        IOEvent object = addFisGraphics("notam", pn.getFis());
                         if(null != object) {
-                            objs.add(object.toString());
+                            objs.add(object);
                         }
                     }
                     if(p instanceof Id11Product) {
                         Id11Product pn = (Id11Product)p;
-                        JSONObject object = addFisGraphics("airmet", pn.getFis());
+                        IOEvent object = addFisGraphics("airmet", pn.getFis());
                         if(null != object) {
-                            objs.add(object.toString());
+                            objs.add(object);
                         }
                     }
                     if(p instanceof Id12Product) {
                         Id12Product pn = (Id12Product)p;
-                        JSONObject object = addFisGraphics("sigmet", pn.getFis());
+                        IOEvent object = addFisGraphics("sigmet", pn.getFis());
                         if(null != object) {
-                            objs.add(object.toString());
+                            objs.add(object);
                         }
                     }
                     if(p instanceof Id13Product) {
                         Id13Product pn = (Id13Product)p;
-                        JSONObject object = addFisGraphics("sua", pn.getFis());
+                        IOEvent object = addFisGraphics("sua", pn.getFis());
                         if(null != object) {
-                            objs.add(object.toString());
+                            objs.add(object);
                         }
                     }
                     else if(p instanceof Id6364Product) {
                         Id6364Product pn = (Id6364Product)p;
-                        JSONObject object = new JSONObject();
-                        
-                        JSONArray arrayEmpty = new JSONArray();
-                        JSONArray arrayData = new JSONArray();
-                        
+
                         int[] data = pn.getData();
-                        if(null != data) {
-                            for(int i = 0; i < data.length; i++) {
-                                arrayData.put(data[i]);
-                            }
+                        if(null == data) {
+                            data = new int[0];
                         }
+                        int[] arrayEmpty;
                         LinkedList<Integer> empty = pn.getEmpty();
                         if(null != empty) {
+                            arrayEmpty = new int[empty.size()];
+                            int i = 0;
                             for(int e : empty) {
-                                arrayEmpty.put(e);
+                                arrayEmpty[i++] = e;
                             }
                         }
-                    
-                        try {
-                            object.put("type", "nexrad");
-                            object.put("time", (long)pn.getTime().getTimeInMillis());
-                            object.put("conus", pn.isConus());
-                            object.put("blocknumber", (long)pn.getBlockNumber());
-                            object.put("x", Constants.COLS_PER_BIN);
-                            object.put("y", Constants.ROWS_PER_BIN);
-                            object.put("empty", arrayEmpty);
-                            object.put("data", arrayData);
-                        } catch (JSONException e1) {
-                            continue;
+                        else {
+                            arrayEmpty = new int[0];
                         }
-                        
-                        objs.add(object.toString());
+
+                        objs.add(new IOEvent.Nexrad(pn.isConus(), pn.getBlockNumber(),
+                                Constants.COLS_PER_BIN, Constants.ROWS_PER_BIN, arrayEmpty, data,
+                                pn.getTime().getTimeInMillis()));
                     }
                     /*
                      * Text product
@@ -342,11 +250,11 @@ public class BufferProcessor {
 
                     else if(p instanceof Id413Product) {
                         Id413Product pn = (Id413Product)p;
-                        JSONObject object = new JSONObject();
                         
                         String data = pn.getData();
                         String type = pn.getHeader();
                         long time = (long)pn.getTime().getTimeInMillis();
+                        String category = null;
                         
                         /*
                          * Clear garbage spaces etc. Convert to Avare format
@@ -354,7 +262,7 @@ public class BufferProcessor {
 
                         try {
                             if(type.equals("METAR") || type.equals("SPECI")) {
-                                object.put("flight_category", MetarFlightCategory.getFlightCategory(pn.getLocation(), pn.getData()));
+                                category = MetarFlightCategory.getFlightCategory(pn.getLocation(), pn.getData());
                             }
                             if(type.equals("WINDS")) {
                                 
@@ -474,16 +382,7 @@ public class BufferProcessor {
                             continue;
                         }
                         
-                        try {
-                            object.put("type", pn.getHeader());
-                            object.put("time", time);
-                            object.put("location", pn.getLocation());
-                            object.put("data", data);
-                        } catch (JSONException e1) {
-                            continue;
-                        }
-                        
-                        objs.add(object.toString());
+                        objs.add(new IOEvent.Text(type, pn.getLocation(), data, category, time));
                     }
                 }
             }
@@ -492,21 +391,9 @@ public class BufferProcessor {
                 /*
                  * Make a GPS locaiton message from ADSB ownship message.
                  */
-                JSONObject object = new JSONObject();
                 OwnshipMessage om = (OwnshipMessage)m;
-                try {
-                    object.put("type", "ownship");
-                    object.put("longitude", (double)om.mLon);
-                    object.put("latitude", (double)om.mLat);
-                    object.put("speed", (double)(om.mHorizontalVelocity));
-                    object.put("bearing", (double)om.mDirection);
-                    object.put("time", (long)om.getTime());
-                    object.put("altitude", (double) om.mAltitude);
-                } catch (JSONException e1) {
-                    continue;
-                }
-                
-                objs.add(object.toString());
+                objs.add(IOEvent.Ownship.obtain(om.mLon, om.mLat, om.mHorizontalVelocity,
+                        om.mDirection, om.mAltitude, om.getTime()));
             }
         }
 
@@ -519,45 +406,31 @@ public class BufferProcessor {
      * @param fisg
      * @return
      */
-    private JSONObject addFisGraphics(String type, FisGraphics fisg) {
+    private IOEvent addFisGraphics(String type, FisGraphics fisg) {
         if(null == fisg) {
             return null;
         }
-        JSONObject object = new JSONObject();
-        try {
-            object.put("type", type);
-            object.put("text", null == fisg.getText() ? "" : fisg.getText());
-            object.put("location", fisg.getLocation());
-            object.put("label", fisg.getLabel());
-            object.put("startTime", fisg.getStartTime());
-            object.put("endTime", fisg.getEndTime());
-            object.put("shape", fisg.getShapeString());
-            object.put("number", fisg.getReportNumber());
-
-            if(null != fisg.getShapeString()) {
-                LinkedList<FisGraphics.Coordinate> coords = fisg.getCoordinates();
-                String data = "";
-                for (FisGraphics.Coordinate c : coords) {
-                    String lon = Double.toString(c.lon);
-                    String lat = Double.toString(c.lat);
-                    data += lon + ":" + lat + ";";
-                }
-                if(data.length() > 1) {
-                    // remove last ;
-                    object.put("data", data.substring(0, data.length() - 1));
-                }
-                else {
-                    object.put("data", "");
-                }
+        String data = "";
+        if(null != fisg.getShapeString()) {
+            LinkedList<FisGraphics.Coordinate> coords = fisg.getCoordinates();
+            StringBuilder sb = new StringBuilder();
+            for (FisGraphics.Coordinate c : coords) {
+                sb.append(c.lon).append(':').append(c.lat).append(';');
             }
-            else {
-                object.put("data", "");
+            if(sb.length() > 1) {
+                // remove last ;
+                data = sb.substring(0, sb.length() - 1);
             }
-
-        }
-        catch (JSONException el) {
-            return null;
         }
-        return object;
+        return new IOEvent.Graphics(type,
+                null == fisg.getText() ? "" : fisg.getText(),
+                fisg.getLocation(),
+                fisg.getLabel(),
+                fisg.getStartTime(),
+                fisg.getEndTime(),
+                fisg.getShapeString(),
+                String.valueOf(fisg.getReportNumber()),
+                data,
+                System.currentTimeMillis());
     }
 }
@@ -0,0 +1,249 @@
+/*
+Copyright (c) 2012, Apps4Av Inc. (apps4av.com)
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.ds.avare.connections;
+
+import com.ds.avare.utils.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes raw data read from a connection to a capture file so it can be replayed later.
+ * Connection thread only copies to a buffer, a flush thread writes it to a channel.
+ * Files are rotated on size and age, like file, file.1, file.2 ... (oldest).
+ *
+ * File is MAGIC, VERSION, then records of time (ms), length, data.
+ */
+public class CaptureWriter {
+
+    public static final int MAGIC = 0x41564350; // AVCP
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 8;
+    public static final int RECORD_SIZE = 12;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final long FLUSH_INTERVAL = 1000;
+
+    private final File mFile;
+    private final long mMaxSize;
+    private final long mMaxAge;
+    private final int mMaxFiles;
+
+    /*
+     * Connection fills one, flush thread drains the other
+     */
+    private ByteBuffer mFill;
+    private ByteBuffer mDrain;
+
+    private FileChannel mChannel;
+    private long mSize;
+    private long mOpened;
+
+    private Thread mThread;
+    private boolean mRunning;
+    private long mDropped;
+
+    /*
+     * Buffers swapped and written by flush thread, for flush()
+     */
+    private long mSwapped;
+    private long mWritten;
+    private boolean mFlushNow;
+
+    /**
+     *
+     * @param file current capture file
+     * @param maxSize rotate when file would get bigger than this in bytes
+     * @param maxAge rotate when file is older than this in ms
+     * @param maxFiles rotated files to keep
+     */
+    public CaptureWriter(String file, long maxSize, long maxAge, int maxFiles) {
+        mFile = new File(file);
+        mMaxSize = maxSize;
+        mMaxAge = maxAge;
+        mMaxFiles = maxFiles;
+        mFill = ByteBuffer.allocate(BUFFER_SIZE);
+        mDrain = ByteBuffer.allocate(BUFFER_SIZE);
+        mRunning = true;
+
+        mThread = new Thread("Capture") {
+            @Override
+            public void run() {
+                while(drain()) {
+                }
+                closeChannel();
+                synchronized(CaptureWriter.this) {
+                    CaptureWriter.this.notifyAll();
+                }
+            }
+        };
+        mThread.start();
+    }
+
+    /**
+     * Copy a record. Never blocks on storage, drops the record when buffer is full.
+     * @param time
+     * @param data
+     * @param len
+     * @return false if dropped
+     */
+    public synchronized boolean write(long time, byte[] data, int len) {
+        if(!mRunning || len <= 0) {
+            return false;
+        }
+        if(mFill.remaining() < RECORD_SIZE + len) {
+            mDropped++;
+            notifyAll();
+            return false;
+        }
+        mFill.putLong(time);
+        mFill.putInt(len);
+        mFill.put(data, 0, len);
+        if(mFill.position() > BUFFER_SIZE / 2) {
+            notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Write what is left, and stop
+     */
+    public void close() {
+        synchronized(this) {
+            mRunning = false;
+            notifyAll();
+        }
+        try {
+            mThread.join();
+        }
+        catch (InterruptedException e) {
+        }
+    }
+
+    /**
+     * Write all records copied so far, without waiting for the flush interval.
+     * Blocks till they are on storage.
+     */
+    public synchronized void flush() {
+        long want = mSwapped + 1;
+        mFlushNow = true;
+        notifyAll();
+        while(mWritten < want && mThread.isAlive()) {
+            try {
+                wait();
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records dropped because storage could not keep up
+     * @return
+     */
+    public synchronized long getDropped() {
+        return mDropped;
+    }
+
+    /**
+     * On flush thread, wait for data then write it
+     * @return false when closed and nothing is left
+     */
+    private boolean drain() {
+        boolean running;
+        long swapped;
+        synchronized(this) {
+            if(mRunning && !mFlushNow && mFill.position() <= BUFFER_SIZE / 2) {
+                try {
+                    wait(FLUSH_INTERVAL);
+                }
+                catch (InterruptedException e) {
+                }
+            }
+            ByteBuffer b = mFill;
+            mFill = mDrain;
+            mDrain = b;
+            mFlushNow = false;
+            swapped = ++mSwapped;
+            running = mRunning;
+        }
+
+        mDrain.flip();
+        if(mDrain.hasRemaining()) {
+            try {
+                if(null == mChannel ||
+                        (mSize + mDrain.remaining() > mMaxSize && mSize > HEADER_SIZE) ||
+                        (System.currentTimeMillis() - mOpened > mMaxAge)) {
+                    rotate();
+                }
+                while(mDrain.hasRemaining()) {
+                    mSize += mChannel.write(mDrain);
+                }
+            }
+            catch (Exception e) {
+                Logger.Logit("Capture write failed " + e.getMessage());
+                closeChannel();
+            }
+        }
+        mDrain.clear();
+        synchronized(this) {
+            mWritten = swapped;
+            notifyAll();
+        }
+        return running;
+    }
+
+    /**
+     * Close current, shift file.n to file.n+1, then start a new file
+     * @throws Exception
+     */
+    private void rotate() throws Exception {
+        closeChannel();
+
+        if(mFile.length() > 0) {
+            String name = mFile.getPath();
+            new File(name + "." + mMaxFiles).delete();
+            for(int i = mMaxFiles - 1; i >= 1; i--) {
+                new File(name + "." + i).renameTo(new File(name + "." + (i + 1)));
+            }
+            mFile.renameTo(new File(name + ".1"));
+        }
+
+        mChannel = new FileOutputStream(mFile).getChannel();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.flip();
+        while(header.hasRemaining()) {
+            mChannel.write(header);
+        }
+        mSize = HEADER_SIZE;
+        mOpened = System.currentTimeMillis();
+    }
+
+    /**
+     *
+     */
+    private void closeChannel() {
+        if(null != mChannel) {
+            try {
+                mChannel.close();
+            }
+            catch (Exception e) {
+            }
+            mChannel = null;
+        }
+    }
+}
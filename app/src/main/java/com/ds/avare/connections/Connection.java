@@ -12,7 +12,6 @@ Redistribution and use in source and binary forms, with or without modification,
 package com.ds.avare.connections;
 
 import android.os.Handler;
-import android.os.Looper;
 import android.os.Message;
 
 import com.ds.avare.StorageService;
@@ -20,8 +19,8 @@ import com.ds.avare.storage.Preferences;
 import com.ds.avare.utils.GenericCallback;
 import com.ds.avare.utils.Logger;
 
-import java.io.FileOutputStream;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * 
@@ -45,7 +44,14 @@ public abstract class Connection {
 
     private Thread mThread;
 
-    private String mFileSave = null;
+    private CaptureWriter mCapture = null;
+
+    /*
+     * Rotate captures at 16 MB or an hour, keep 4 old ones
+     */
+    private static final long CAPTURE_MAX_SIZE = 16 * 1024 * 1024;
+    private static final long CAPTURE_MAX_AGE = 60 * 60 * 1000;
+    private static final int CAPTURE_MAX_FILES = 4;
 
     private GenericCallback mCb;
 
@@ -63,33 +69,40 @@ public abstract class Connection {
     }
 
     /**
-     * @param file
+     * @param file capture file, null to stop capture
      */
     public void setFileSave(String file) {
+        CaptureWriter old;
         synchronized (this) {
-            mFileSave = file;
+            old = mCapture;
+            mCapture = null;
+        }
+        // old one may be writing the same file
+        if (old != null) {
+            old.close();
+        }
+        if (file != null) {
+            CaptureWriter capture = new CaptureWriter(file, CAPTURE_MAX_SIZE, CAPTURE_MAX_AGE, CAPTURE_MAX_FILES);
+            synchronized (this) {
+                mCapture = capture;
+            }
         }
     }
 
     /**
-     * Save data from connection to file
+     * Save data from connection to file, with the time it was read for replay
      *
      * @param red
      * @param buffer
      */
     protected void saveToFile(int red, byte[] buffer) {
         if (red > 0) {
-            String file = null;
+            CaptureWriter capture;
             synchronized (this) {
-                file = mFileSave;
+                capture = mCapture;
             }
-            if (file != null) {
-                try {
-                    FileOutputStream output = new FileOutputStream(file, true);
-                    output.write(buffer, 0, red);
-                    output.close();
-                } catch (Exception e) {
-                }
+            if (capture != null) {
+                capture.write(System.currentTimeMillis(), buffer, red);
             }
         }
     }
@@ -182,17 +195,50 @@ public abstract class Connection {
     }
 
     /**
-     * @param s
+     * Hand to the service on its IO thread
+     *
+     * @param e
      */
-    protected void sendDataToHelper(String s) {
+    protected void sendDataToHelper(IOEvent e) {
         if (mService != null) {
             Message m = mHandler.obtainMessage();
-            m.obj = s;
+            m.obj = e;
             mHandler.sendMessage(m);
         }
+        else {
+            e.recycle();
+        }
 
     }
 
+    /**
+     * Block till the service has taken all events sent so far, so a fast sender does not
+     * queue without bound
+     *
+     * @return false if interrupted or there is no service
+     */
+    protected boolean waitForHelper() {
+        if (mService == null) {
+            return false;
+        }
+        final CountDownLatch done = new CountDownLatch(1);
+        if (!mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        })) {
+            return false;
+        }
+        try {
+            done.await();
+        }
+        catch (InterruptedException e) {
+            return false;
+        }
+        return true;
+    }
+
     /**
      *
      */
@@ -237,24 +283,29 @@ public abstract class Connection {
     public abstract void write(byte[] aData);
 
     /**
-     * Posting a location hence do from UI thread
+     * Decode and put in caches on IO thread, service posts what UI needs
      */
-    private Handler mHandler = new Handler(Looper.getMainLooper()) {
+    private Handler mHandler = new Handler(StorageService.getIOLooper()) {
         @Override
         public void handleMessage(Message msg) {
 
-            String text = (String) msg.obj;
+            IOEvent event = (IOEvent) msg.obj;
 
-            if (text == null || mService == null) {
+            if (event == null) {
+                return;
+            }
+            if (mService == null) {
+                event.recycle();
                 return;
             }
 
             try {
-                mService.getDataFromIO(text);
+                mService.getDataFromIO(event);
             }
             catch (Exception e) {
 
             }
+            event.recycle();
         }
     };
 }
@@ -38,8 +38,10 @@ public class ConnectionFactory {
             case CF_WifiConnection:
                 return WifiConnection.getInstance(ctx);
 
-            case CF_BlueToothConnectionIn:
             case CF_FileConnectionIn:
+                return FileConnectionIn.getInstance(ctx);
+
+            case CF_BlueToothConnectionIn:
             case CF_GPSSimulatorConnection:
             case CF_MsfsConnection:
             case CF_USBConnectionIn:
@@ -57,6 +59,7 @@ public class ConnectionFactory {
         String s = "";
         s += getConnection(CF_WifiConnection, ctx).isConnected() ?  "," + ctx.getString(R.string.WIFI) : "";
         s += getConnection(CF_BlueToothConnectionOut, ctx).isConnected() ?  "," + ctx.getString(R.string.BTOut) : "";
+        s += getConnection(CF_FileConnectionIn, ctx).isConnected() ?  "," + ctx.getString(R.string.FileIn) : "";
         if(s.startsWith(",")) {
             s = s.substring(1);
         }
@@ -0,0 +1,280 @@
+/*
+Copyright (c) 2012, Apps4Av Inc. (apps4av.com)
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.ds.avare.connections;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Debug;
+
+import com.ds.avare.storage.Preferences;
+import com.ds.avare.utils.GenericCallback;
+import com.ds.avare.utils.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a capture through the same decode path as a live connection, to measure decoder
+ * changes against recorded flight data.
+ * Captures from CaptureWriter replay with their timing at any speed, raw GDL90 / NMEA
+ * dumps have no timing and replay as fast as possible.
+ * Stats are logged while running and saved next to the capture when done.
+ */
+public class FileConnectionIn extends Connection {
+
+    private static FileConnectionIn mConnection;
+
+    private static final int CHUNK_SIZE = 4096;
+    private static final long REPORT_INTERVAL = 10000;
+
+    private String mFileName;
+
+    /*
+     * 1 for real time, 0 for as fast as possible
+     */
+    private float mSpeed;
+
+    private ReplayStats mStats;
+
+    /**
+     *
+     */
+    private FileConnectionIn() {
+        super("File Input");
+        mSpeed = 1;
+        mStats = new ReplayStats();
+        setCallback(new GenericCallback() {
+            @Override
+            public Object callback(Object o, Object o1) {
+                replay((Preferences)o);
+                return null;
+            }
+        });
+    }
+
+    /**
+     *
+     * @return
+     * @param ctx
+     */
+    public static FileConnectionIn getInstance(Context ctx) {
+
+        if(null == mConnection) {
+            mConnection = new FileConnectionIn();
+        }
+        return mConnection;
+    }
+
+    /**
+     * @param speed 1 for real time, N for N times, 0 for as fast as possible
+     */
+    public void setSpeed(float speed) {
+        mSpeed = speed < 0 ? 0 : speed;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public ReplayStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * Read records from file, pace them, decode and send
+     * @param pref
+     */
+    private void replay(Preferences pref) {
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFileName), 65536));
+        }
+        catch (Exception e) {
+            Logger.Logit("Replay failed " + e.getMessage());
+            return;
+        }
+
+        BufferProcessor bp = new BufferProcessor();
+        byte buffer[] = new byte[8192];
+        boolean timed = false;
+        try {
+            in.mark(CaptureWriter.HEADER_SIZE);
+            timed = in.readInt() == CaptureWriter.MAGIC && in.readInt() == CaptureWriter.VERSION;
+        }
+        catch (Exception e) {
+        }
+        if(!timed) {
+            try {
+                in.reset();
+            }
+            catch (Exception e) {
+            }
+        }
+
+        Logger.Logit("Replaying " + mFileName + " at " + (mSpeed > 0 && timed ? mSpeed + "x" : "full speed"));
+        mStats.start();
+        long begin = System.nanoTime();
+        long report = System.currentTimeMillis();
+        long first = -1;
+
+        while(isRunning()) {
+            int red;
+            try {
+                if(timed) {
+                    long time = in.readLong();
+                    red = in.readInt();
+                    if(red > buffer.length) {
+                        buffer = new byte[red];
+                    }
+                    in.readFully(buffer, 0, red);
+
+                    /*
+                     * Wait till this record is due
+                     */
+                    if(mSpeed > 0) {
+                        if(first < 0) {
+                            first = time;
+                        }
+                        long due = begin + (long)((time - first) * 1000000.0 / mSpeed);
+                        long wait = (due - System.nanoTime()) / 1000000;
+                        if(wait > 0) {
+                            Thread.sleep(wait);
+                        }
+                    }
+                }
+                else {
+                    red = in.read(buffer, 0, CHUNK_SIZE);
+                    if(red < 0) {
+                        break;
+                    }
+                }
+            }
+            catch (EOFException e) {
+                break;
+            }
+            catch (InterruptedException e) {
+                break;
+            }
+            catch (Exception e) {
+                Logger.Logit("Replay read failed " + e.getMessage());
+                break;
+            }
+
+            /*
+             * Same as a live connection, time only the decode
+             */
+            long frames = bp.getFrames();
+            long size = getAllocated();
+            long t = System.nanoTime();
+            bp.put(buffer, red);
+            List<IOEvent> objs = bp.decode(pref);
+            t = System.nanoTime() - t;
+            long after = getAllocated();
+            mStats.add(red, bp.getFrames() - frames, objs.size(), t,
+                    -1, size < 0 || after < 0 ? -1 : after - size);
+
+            for(int i = 0; i < objs.size(); i++) {
+                sendDataToHelper(objs.get(i));
+            }
+
+            /*
+             * Next record only when the service has taken these, else a full speed replay
+             * floods the IO looper. Events without a service are lost, so stop then.
+             */
+            if(!objs.isEmpty() && !waitForHelper()) {
+                Logger.Logit("Replay stopped, no service");
+                break;
+            }
+
+            long now = System.currentTimeMillis();
+            if(now - report > REPORT_INTERVAL) {
+                report = now;
+                Logger.Logit(mStats.getReport());
+            }
+        }
+
+        mStats.end();
+        try {
+            in.close();
+        }
+        catch (Exception e) {
+        }
+
+        String stats = mStats.getReport();
+        Logger.Logit(stats);
+        try {
+            FileOutputStream out = new FileOutputStream(mFileName + ".txt");
+            out.write(stats.getBytes());
+            out.close();
+        }
+        catch (Exception e) {
+        }
+    }
+
+    /**
+     * Bytes allocated by the process so far. Counts other threads too, so only a rough
+     * figure for decode. Object counts are not available.
+     * @return -1 if not known
+     */
+    private static long getAllocated() {
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            try {
+                return Long.parseLong(Debug.getRuntimeStat("art.gc.bytes-allocated"));
+            }
+            catch (Exception e) {
+            }
+        }
+        return -1;
+    }
+
+    /**
+     *
+     * @param to capture file
+     * @return
+     */
+    @Override
+    public boolean connect(String to, boolean secure) {
+        if(null == to || !new File(to).isFile()) {
+            Logger.Logit("No capture file " + to);
+            return false;
+        }
+        mFileName = to;
+        return connectConnection();
+    }
+
+    /**
+     *
+     */
+    @Override
+    public void disconnect() {
+        disconnectConnection();
+    }
+
+    @Override
+    public List<String> getDevices() {
+        return new ArrayList<String>();
+    }
+
+    @Override
+    public String getConnDevice() {
+        return null == mFileName ? "" : mFileName;
+    }
+
+    @Override
+    public void write(byte[] aData) { return; };
+}
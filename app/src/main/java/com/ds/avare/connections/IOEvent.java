@@ -0,0 +1,391 @@
+/*
+Copyright (c) 2012, Apps4Av Inc. (apps4av.com) 
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.ds.avare.connections;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * 
+ * @author zkhan
+ * Typed data decoded from an IO connection. Types are the same as the JSON messages
+ * exchanged with the external helper, which are converted with fromJSON().
+ *
+ */
+public abstract class IOEvent {
+
+    /*
+     * Events of a type kept for reuse, more than this in flight are made new
+     */
+    private static final int POOL_SIZE = 64;
+
+    private String mType;
+    private long mTime;
+
+    /**
+     * 
+     * @param type
+     * @param time
+     */
+    protected IOEvent(String type, long time) {
+        mType = type;
+        mTime = time;
+    }
+
+    /**
+     * 
+     * @return JSON type of this event
+     */
+    public String getType() {
+        return mType;
+    }
+
+    /**
+     * 
+     * @return
+     */
+    public long getTime() {
+        return mTime;
+    }
+
+    /**
+     * 
+     * @param time
+     */
+    protected void setTime(long time) {
+        mTime = time;
+    }
+
+    /**
+     * Receiver is done with this event. Events sent many times a second are pooled, and must not
+     * be used after this.
+     */
+    public void recycle() {
+    }
+
+    /**
+     * Traffic from ADSB or NMEA, pooled
+     */
+    public static class Traffic extends IOEvent {
+        private static final Traffic mPool[] = new Traffic[POOL_SIZE];
+        private static int mPooled;
+
+        public String mCallSign;
+        public int mAddress;
+        public float mLat;
+        public float mLon;
+        public int mAltitude;
+        public float mBearing;
+        public int mSpeed;
+
+        public Traffic(String callsign, int address, float lat, float lon, int altitude, float bearing, int speed, long time) {
+            super("traffic", time);
+            set(callsign, address, lat, lon, altitude, bearing, speed);
+        }
+
+        private void set(String callsign, int address, float lat, float lon, int altitude, float bearing, int speed) {
+            mCallSign = callsign;
+            mAddress = address;
+            mLat = lat;
+            mLon = lon;
+            mAltitude = altitude;
+            mBearing = bearing;
+            mSpeed = speed;
+        }
+
+        /**
+         * From pool if one is there, give back with recycle()
+         */
+        public static Traffic obtain(String callsign, int address, float lat, float lon, int altitude, float bearing, int speed, long time) {
+            Traffic t = null;
+            synchronized (mPool) {
+                if(mPooled > 0) {
+                    t = mPool[--mPooled];
+                    mPool[mPooled] = null;
+                }
+            }
+            if(null == t) {
+                return new Traffic(callsign, address, lat, lon, altitude, bearing, speed, time);
+            }
+            t.set(callsign, address, lat, lon, altitude, bearing, speed);
+            t.setTime(time);
+            return t;
+        }
+
+        @Override
+        public void recycle() {
+            synchronized (mPool) {
+                if(mPooled < POOL_SIZE) {
+                    mPool[mPooled++] = this;
+                }
+            }
+        }
+    }
+
+    /**
+     * Own position from ADSB or NMEA, pooled
+     */
+    public static class Ownship extends IOEvent {
+        private static final Ownship mPool[] = new Ownship[POOL_SIZE];
+        private static int mPooled;
+
+        public double mLon;
+        public double mLat;
+        public double mSpeed;
+        public double mBearing;
+        public double mAltitude;
+
+        public Ownship(double lon, double lat, double speed, double bearing, double altitude, long time) {
+            super("ownship", time);
+            set(lon, lat, speed, bearing, altitude);
+        }
+
+        private void set(double lon, double lat, double speed, double bearing, double altitude) {
+            mLon = lon;
+            mLat = lat;
+            mSpeed = speed;
+            mBearing = bearing;
+            mAltitude = altitude;
+        }
+
+        /**
+         * From pool if one is there, give back with recycle()
+         */
+        public static Ownship obtain(double lon, double lat, double speed, double bearing, double altitude, long time) {
+            Ownship o = null;
+            synchronized (mPool) {
+                if(mPooled > 0) {
+                    o = mPool[--mPooled];
+                    mPool[mPooled] = null;
+                }
+            }
+            if(null == o) {
+                return new Ownship(lon, lat, speed, bearing, altitude, time);
+            }
+            o.set(lon, lat, speed, bearing, altitude);
+            o.setTime(time);
+            return o;
+        }
+
+        @Override
+        public void recycle() {
+            synchronized (mPool) {
+                if(mPooled < POOL_SIZE) {
+                    mPool[mPooled++] = this;
+                }
+            }
+        }
+    }
+
+    /**
+     * Ownship geometric altitude
+     */
+    public static class GeoAltitude extends IOEvent {
+        public final double mAltitude;
+
+        public GeoAltitude(double altitude, long time) {
+            super("geoaltitude", time);
+            mAltitude = altitude;
+        }
+    }
+
+    /**
+     * Attitude and air data
+     */
+    public static class Ahrs extends IOEvent {
+        public final double mYaw;
+        public final double mPitch;
+        public final double mRoll;
+        public final double mSlip;
+        public final double mYawRate;
+        public final double mAcceleration;
+        public final double mAoa;
+        public final double mAirspeed;
+        public final double mAltitude;
+        public final double mVsi;
+
+        public Ahrs(double yaw, double pitch, double roll, double slip, double yawrate, double acceleration,
+                    double aoa, double airspeed, double altitude, double vsi, long time) {
+            super("ahrs", time);
+            mYaw = yaw;
+            mPitch = pitch;
+            mRoll = roll;
+            mSlip = slip;
+            mYawRate = yawrate;
+            mAcceleration = acceleration;
+            mAoa = aoa;
+            mAirspeed = airspeed;
+            mAltitude = altitude;
+            mVsi = vsi;
+        }
+    }
+
+    /**
+     * A block of FIS-B NEXRAD
+     */
+    public static class Nexrad extends IOEvent {
+        public final boolean mConus;
+        public final int mBlock;
+        public final int mCols;
+        public final int mRows;
+        public final int mEmpty[];
+        public final int mData[];
+
+        public Nexrad(boolean conus, int block, int cols, int rows, int empty[], int data[], long time) {
+            super("nexrad", time);
+            mConus = conus;
+            mBlock = block;
+            mCols = cols;
+            mRows = rows;
+            mEmpty = empty;
+            mData = data;
+        }
+    }
+
+    /**
+     * FIS-B graphics, types notam, airmet, sigmet, sua
+     */
+    public static class Graphics extends IOEvent {
+        public final String mText;
+        public final String mLocation;
+        public final String mLabel;
+        public final String mStartTime;
+        public final String mEndTime;
+        public final String mShape;
+        public final String mNumber;
+        public final String mData;
+
+        public Graphics(String type, String text, String location, String label, String startTime, String endTime,
+                        String shape, String number, String data, long time) {
+            super(type, time);
+            mText = text;
+            mLocation = location;
+            mLabel = label;
+            mStartTime = startTime;
+            mEndTime = endTime;
+            mShape = shape;
+            mNumber = number;
+            mData = data;
+        }
+    }
+
+    /**
+     * FIS-B text products, types METAR, SPECI, TAF, TAF.AMD, WINDS, PIREP
+     */
+    public static class Text extends IOEvent {
+        public final String mLocation;
+        public final String mData;
+        public final String mFlightCategory;
+
+        public Text(String type, String location, String data, String flightCategory, long time) {
+            super(type, time);
+            mLocation = location;
+            mData = data;
+            mFlightCategory = flightCategory;
+        }
+    }
+
+    /**
+     * Make an event from JSON sent by the external helper
+     * @param text
+     * @return null if type not known
+     * @throws JSONException
+     */
+    public static IOEvent fromJSON(String text) throws JSONException {
+        JSONObject object = new JSONObject(text);
+
+        String type = object.getString("type");
+        if(type.equals("traffic")) {
+            return new Traffic(
+                    object.getString("callsign"),
+                    object.getInt("address"),
+                    (float)object.getDouble("latitude"),
+                    (float)object.getDouble("longitude"),
+                    object.getInt("altitude"),
+                    (float)object.getDouble("bearing"),
+                    object.getInt("speed"),
+                    object.optLong("time"));
+        }
+        else if(type.equals("geoaltitude")) {
+            return new GeoAltitude(object.getDouble("altitude"), object.getLong("time"));
+        }
+        else if(type.equals("ahrs")) {
+            return new Ahrs(
+                    object.getDouble("yaw"),
+                    object.getDouble("pitch"),
+                    object.getDouble("roll"),
+                    object.getDouble("slip"),
+                    object.getDouble("yawrate"),
+                    object.getDouble("acceleration"),
+                    object.getDouble("aoa"),
+                    object.getDouble("airspeed"),
+                    object.getDouble("altitude"),
+                    object.getDouble("vsi"),
+                    object.optLong("time"));
+        }
+        else if(type.equals("ownship")) {
+            return new Ownship(
+                    object.getDouble("longitude"),
+                    object.getDouble("latitude"),
+                    object.getDouble("speed"),
+                    object.getDouble("bearing"),
+                    object.getDouble("altitude"),
+                    object.getLong("time"));
+        }
+        else if(type.equals("nexrad")) {
+            JSONArray emptyArray = object.getJSONArray("empty");
+            JSONArray dataArray = object.getJSONArray("data");
+            int empty[] = new int[emptyArray.length()];
+            for(int i = 0; i < empty.length; i++) {
+                empty[i] = emptyArray.getInt(i);
+            }
+            int data[] = new int[dataArray.length()];
+            for(int i = 0; i < data.length; i++) {
+                data[i] = dataArray.getInt(i);
+            }
+            return new Nexrad(
+                    object.getBoolean("conus"),
+                    object.getInt("blocknumber"),
+                    object.getInt("x"),
+                    object.getInt("y"),
+                    empty,
+                    data,
+                    object.optLong("time"));
+        }
+        else if(type.equals("sua")) {
+            return new Graphics(type, object.getString("text"), null, null, null, null,
+                    null, null, null, object.optLong("time"));
+        }
+        else if(type.equals("airmet") || type.equals("sigmet") || type.equals("notam")) {
+            return new Graphics(type,
+                    object.getString("text"),
+                    object.optString("location"),
+                    object.optString("label"),
+                    object.getString("startTime"),
+                    object.getString("endTime"),
+                    object.getString("shape"),
+                    object.getString("number"),
+                    object.getString("data"),
+                    object.optLong("time"));
+        }
+        else if(type.equals("METAR") || type.equals("SPECI")) {
+            return new Text(type, object.getString("location"), object.getString("data"),
+                    object.getString("flight_category"), object.getLong("time"));
+        }
+        else if(type.equals("TAF") || type.equals("TAF.AMD") || type.equals("WINDS") || type.equals("PIREP")) {
+            return new Text(type, object.getString("location"), object.getString("data"),
+                    null, object.getLong("time"));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+Copyright (c) 2012, Apps4Av Inc. (apps4av.com)
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.ds.avare.connections;
+
+import java.util.Locale;
+
+/**
+ * Throughput, decode latency and allocations of a replayed capture.
+ * Latency is kept in log2 bins so percentiles cost nothing per record.
+ */
+public class ReplayStats {
+
+    private static final int BINS = 24;
+    private static final long BIN_START = 1000; // ns, bins are 1us, 2us, 4us ...
+
+    private final long mBins[] = new long[BINS];
+
+    private long mRecords;
+    private long mBytes;
+    private long mFrames;
+    private long mEvents;
+    private long mDecodeTime;
+    private long mMaxDecode;
+    private long mAllocCount;
+    private long mAllocSize;
+    private boolean mAllocCounted;
+    private boolean mAllocSized;
+    private long mStart;
+    private long mEnd;
+
+    /**
+     * Start timing, clear all
+     */
+    public synchronized void start() {
+        for(int i = 0; i < BINS; i++) {
+            mBins[i] = 0;
+        }
+        mRecords = mBytes = mFrames = mEvents = 0;
+        mDecodeTime = mMaxDecode = mAllocCount = mAllocSize = 0;
+        mAllocCounted = mAllocSized = false;
+        mStart = System.nanoTime();
+        mEnd = 0;
+    }
+
+    /**
+     * Stop timing
+     */
+    public synchronized void end() {
+        mEnd = System.nanoTime();
+    }
+
+    /**
+     * One record put through decode
+     * @param bytes bytes in record
+     * @param frames frames decoded from it
+     * @param events events made from it
+     * @param decode time to decode in ns
+     * @param allocCount objects allocated in decode, -1 if not known
+     * @param allocSize bytes allocated in decode, -1 if not known
+     */
+    public synchronized void add(int bytes, long frames, int events, long decode, long allocCount, long allocSize) {
+        mRecords++;
+        mBytes += bytes;
+        mFrames += frames;
+        mEvents += events;
+        mDecodeTime += decode;
+        if(decode > mMaxDecode) {
+            mMaxDecode = decode;
+        }
+        int bin = 0;
+        for(long limit = BIN_START; decode > limit && bin < BINS - 1; limit <<= 1) {
+            bin++;
+        }
+        mBins[bin]++;
+        if(allocCount >= 0) {
+            mAllocCount += allocCount;
+            mAllocCounted = true;
+        }
+        if(allocSize >= 0) {
+            mAllocSize += allocSize;
+            mAllocSized = true;
+        }
+    }
+
+    /**
+     * Decode latency of a record below which percent of records are
+     * @param percent
+     * @return upper bound of bin in ns
+     */
+    public synchronized long getPercentile(int percent) {
+        long want = (mRecords * percent + 99) / 100;
+        long sum = 0;
+        long limit = BIN_START;
+        for(int bin = 0; bin < BINS; bin++) {
+            sum += mBins[bin];
+            if(sum >= want) {
+                return Math.min(limit, mMaxDecode);
+            }
+            limit <<= 1;
+        }
+        return mMaxDecode;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public synchronized long getFrames() {
+        return mFrames;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public synchronized long getRecords() {
+        return mRecords;
+    }
+
+    /**
+     * Decoded frames per second of wall time
+     * @return
+     */
+    public synchronized double getFramesPerSecond() {
+        long elapsed = (0 == mEnd ? System.nanoTime() : mEnd) - mStart;
+        if(elapsed <= 0) {
+            return 0;
+        }
+        return mFrames * 1e9 / elapsed;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public synchronized String getReport() {
+        long elapsed = (0 == mEnd ? System.nanoTime() : mEnd) - mStart;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "records %d bytes %d frames %d events %d in %.1f s\n",
+                mRecords, mBytes, mFrames, mEvents, elapsed / 1e9));
+        sb.append(String.format(Locale.US, "frames/s %.0f decode %.1f%% of time\n",
+                getFramesPerSecond(), elapsed > 0 ? mDecodeTime * 100.0 / elapsed : 0));
+        sb.append(String.format(Locale.US, "decode us p50 %d p90 %d p99 %d max %d\n",
+                getPercentile(50) / 1000, getPercentile(90) / 1000, getPercentile(99) / 1000, mMaxDecode / 1000));
+        if(mFrames > 0) {
+            sb.append("alloc per frame");
+            if(mAllocCounted) {
+                sb.append(String.format(Locale.US, " %.1f objects", (double)mAllocCount / mFrames));
+            }
+            if(mAllocSized) {
+                sb.append(String.format(Locale.US, " %.0f bytes", (double)mAllocSize / mFrames));
+            }
+            if(!mAllocCounted && !mAllocSized) {
+                sb.append(" not known");
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -24,7 +24,6 @@ import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -90,9 +89,9 @@ public class WifiConnection extends Connection {
                      * Put both in Decode and ADBS buffers
                      */
                     bp.put(buffer, red);
-                    LinkedList<String> objs = bp.decode((Preferences)o);
-                    for(String s : objs) {
-                        sendDataToHelper(s);
+                    List<IOEvent> objs = bp.decode((Preferences)o);
+                    for(int i = 0; i < objs.size(); i++) {
+                        sendDataToHelper(objs.get(i));
                     }
                 }
                 return null;
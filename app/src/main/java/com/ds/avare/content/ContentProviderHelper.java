@@ -30,35 +30,38 @@ import java.util.TreeMap;
 public class ContentProviderHelper {
 
 
-    public static LinkedList<Obstacle> getObstacles(final Context ctx, double longitude, double latitude, double height) {
+    /**
+     * All obstacles in an area, of any height
+     * @param ctx
+     * @param lonLeft
+     * @param latBottom
+     * @param lonRight
+     * @param latTop
+     * @return
+     */
+    public static LinkedList<Obstacle> getObstacles(final Context ctx, double lonLeft, double latBottom, double lonRight, double latTop) {
 
         Cursor c = null;
         LinkedList<Obstacle> ret = new LinkedList<Obstacle>();
 
+        // half open so an obstacle on an edge is in one area only
         String qry =
-                "(" + ObstaclesContract.HEIGHT + " > ?)" + " and " +
-                        "(" + ObstaclesContract.LATITUDE + " > ?)" + " and " +
+                "(" + ObstaclesContract.LATITUDE + " >= ?)" + " and " +
                         "(" + ObstaclesContract.LATITUDE + " < ?)" + " and " +
-                        "(" + ObstaclesContract.LONGITUDE + " > ?)" + " and " +
+                        "(" + ObstaclesContract.LONGITUDE + " >= ?)" + " and " +
                         "(" + ObstaclesContract.LONGITUDE + " < ?)";
 
-
-        String v0 = String.valueOf(height - (int) Obstacle.HEIGHT_BELOW);
-        String v1 = String.valueOf(latitude - Obstacle.RADIUS);
-        String v2 = String.valueOf(latitude + Obstacle.RADIUS);
-        String v3 = String.valueOf(longitude - Obstacle.RADIUS);
-        String v4 = String.valueOf(longitude + Obstacle.RADIUS);
-
-        String arguments[] = new String[] {v0, v1, v2, v3, v4};
+        String arguments[] = new String[] {
+                String.valueOf(latBottom), String.valueOf(latTop), String.valueOf(lonLeft), String.valueOf(lonRight)};
 
         try {
             c = ctx.getContentResolver().query(ObstaclesContract.CONTENT_URI, null, qry, arguments, null);
             if (c != null) {
+                int lon = c.getColumnIndex(ObstaclesContract.LONGITUDE);
+                int lat = c.getColumnIndex(ObstaclesContract.LATITUDE);
+                int height = c.getColumnIndex(ObstaclesContract.HEIGHT);
                 while (c.moveToNext()) {
-                    ret.add(new Obstacle(
-                            c.getFloat(c.getColumnIndex(ObstaclesContract.LONGITUDE)),
-                            c.getFloat(c.getColumnIndex(ObstaclesContract.LATITUDE)),
-                            (int) c.getFloat(c.getColumnIndex(ObstaclesContract.HEIGHT))));
+                    ret.add(new Obstacle(c.getFloat(lon), c.getFloat(lat), (int) c.getFloat(height)));
                 }
             }
 
@@ -70,7 +73,6 @@ public class ContentProviderHelper {
         return ret;
     }
 
-
     /**
      *
      * @return
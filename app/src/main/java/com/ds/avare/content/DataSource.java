@@ -174,8 +174,8 @@ public class DataSource {
 
     // other helper
 
-    public LinkedList<Obstacle> getObstacles(double lon, double lat, double height) {
-        return ContentProviderHelper.getObstacles(mContext, lon, lat, height);
+    public LinkedList<Obstacle> getObstacles(double lonLeft, double latBottom, double lonRight, double latTop) {
+        return ContentProviderHelper.getObstacles(mContext, lonLeft, latBottom, lonRight, latTop);
     }
 
     public LinkedList<LabelCoordinate> findGameTFRs() {
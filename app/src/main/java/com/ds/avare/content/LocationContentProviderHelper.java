@@ -3,6 +3,7 @@ package com.ds.avare.content;
 import android.content.Context;
 import android.database.Cursor;
 import android.hardware.GeomagneticField;
+import android.net.Uri;
 
 import com.ds.avare.R;
 import com.ds.avare.place.Airport;
@@ -54,6 +55,90 @@ public class LocationContentProviderHelper {
     public static final String UNICOM = "UNICOM";
     public static final String TPA = "Pattern Altitude";
 
+    /*
+     * Spatial indexes on airports and navaids, made on first use, dropped when database changes
+     */
+    private static final int FLAG_AIRPORT = 1;
+    private static final int MAX_INDEX_ARGUMENTS = 512;
+    private static PointIndex mAirportIndex;
+    private static PointIndex mNavaidIndex;
+
+    /**
+     * Drop spatial indexes, call when database is reloaded
+     */
+    public static synchronized void resetIndex() {
+        mAirportIndex = null;
+        mNavaidIndex = null;
+    }
+
+    /**
+     * Load lon/lat of all points of a table in an index
+     * @param qry selection, null for all
+     * @param arguments
+     */
+    private static PointIndex makeIndex(Context ctx, Uri uri, String idColumn, String lonColumn, String latColumn,
+                                        String typeColumn, String qry, String arguments[]) {
+        Cursor c = null;
+        PointIndex index = null;
+        String projection[] = new String[] {idColumn, lonColumn, latColumn, typeColumn};
+        try {
+            c = ctx.getContentResolver().query(uri, projection, qry, arguments, null);
+            if(c != null) {
+                int count = c.getCount();
+                String ids[] = new String[count];
+                float lon[] = new float[count];
+                float lat[] = new float[count];
+                int flags[] = new int[count];
+                int size = 0;
+                while(c.moveToNext() && size < count) {
+                    ids[size] = c.getString(0);
+                    lon[size] = c.getFloat(1);
+                    lat[size] = c.getFloat(2);
+                    flags[size] = "AIRPORT".equals(c.getString(3)) ? FLAG_AIRPORT : 0;
+                    size++;
+                }
+                index = new PointIndex(ids, lon, lat, flags, size);
+            }
+        }
+        catch (Exception e) {
+        }
+        CursorManager.close(c);
+        return index;
+    }
+
+    private static synchronized PointIndex getAirportIndex(Context ctx) {
+        if(null == mAirportIndex) {
+            mAirportIndex = makeIndex(ctx, LocationContract.CONTENT_URI_AIRPORTS, LocationContract.AIRPORTS_LOCATION_ID,
+                    LocationContract.AIRPORTS_LONGITUDE, LocationContract.AIRPORTS_LATITUDE, LocationContract.AIRPORTS_TYPE,
+                    null, null);
+        }
+        return mAirportIndex;
+    }
+
+    private static synchronized PointIndex getNavaidIndex(Context ctx) {
+        if(null == mNavaidIndex) {
+            // only navaids that give radials
+            mNavaidIndex = makeIndex(ctx, LocationContract.CONTENT_URI_NAV, LocationContract.NAV_LOCATION_ID,
+                    LocationContract.NAV_LONGITUDE, LocationContract.NAV_LATITUDE, LocationContract.NAV_TYPE,
+                    LocationContract.NAV_TYPE + " = ? or " + LocationContract.NAV_TYPE + " = ? or " + LocationContract.NAV_TYPE + " = ?",
+                    new String[] {"VOR", "VOR/DME", "VORTAC"});
+        }
+        return mNavaidIndex;
+    }
+
+    /**
+     * Make "column in (?,?..)" for ids found in index
+     */
+    private static String inClause(String column, int count) {
+        StringBuilder sb = new StringBuilder(column.length() + 8 + count * 2);
+        sb.append(column).append(" in (");
+        for(int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        sb.append(")");
+        return sb.toString();
+    }
+
     /**
      * Search something in database
      * @param name
@@ -210,7 +295,6 @@ public class LocationContentProviderHelper {
      */
     public static HashMap<String, Airport> findClosestAirports(Context ctx, double lon, double lat, HashMap<String, Airport> airports, String minRunwayLength, boolean showAll) {
 
-        Cursor c = null;
         // Make a new hashmap and reuse values out of it that are still in the area
         HashMap<String, Airport> airportsnew = new LinkedHashMap<String, Airport>();
 
@@ -241,8 +325,46 @@ public class LocationContentProviderHelper {
                 asdistance + " as distance"};
         String order = "distance ASC";
 
+        /*
+         * Only look at airports nearest in the index instead of sorting the whole table by distance.
+         * Runway length and type are filtered in the query so ask for more candidates till enough pass.
+         */
+        PointIndex index = getAirportIndex(ctx);
+        int candidates = Preferences.MAX_AREA_AIRPORTS * 2;
+
+        while(true) {
+            String where = qry;
+            String arguments[] = null;
+            boolean all = true;
+            if(null != index && candidates <= MAX_INDEX_ARGUMENTS) {
+                int found[] = index.nearest(lon, lat, candidates, Double.MAX_VALUE, showAll ? 0 : FLAG_AIRPORT);
+                arguments = new String[found.length];
+                for(int i = 0; i < found.length; i++) {
+                    arguments[i] = index.getId(found[i]);
+                }
+                where = qry + " and " + inClause(LocationContract.TABLE_AIRPORTS + "." + LocationContract.AIRPORTS_LOCATION_ID, found.length);
+                all = found.length < candidates;
+            }
+
+            airportsnew.clear();
+            queryClosestAirports(ctx, lon, lat, airports, airportsnew, projection, where, arguments, order);
+            if(all || airportsnew.size() >= Preferences.MAX_AREA_AIRPORTS) {
+                break;
+            }
+            candidates *= 2;
+        }
+
+        return airportsnew;
+    }
+
+    /**
+     * Fill new airports from a distance ordered query
+     */
+    private static void queryClosestAirports(Context ctx, double lon, double lat, HashMap<String, Airport> airports, HashMap<String, Airport> airportsnew,
+                                             String projection[], String qry, String arguments[], String order) {
+        Cursor c = null;
         try {
-            c = ctx.getContentResolver().query(LocationContract.CONTENT_URI_NEAR, projection, qry, null, order);
+            c = ctx.getContentResolver().query(LocationContract.CONTENT_URI_NEAR, projection, qry, arguments, order);
             if(c != null) {
                 while(c.moveToNext()) {
                     String id = c.getString(0); // LocationContract.AIRPORT_RUNWAYS_LOCATION_ID
@@ -280,8 +402,6 @@ public class LocationContentProviderHelper {
         catch (Exception e) {
         }
         CursorManager.close(c);
-
-        return airportsnew;
     }
 
 
@@ -677,39 +797,65 @@ public class LocationContentProviderHelper {
      * Find the lat/lon of an airport/navaid/fix
      */
     public static String findLonLat(Context ctx, String name, String type) {
+        Object cached = LocationQueryCache.get("lonlat" + type, name);
+        if(LocationQueryCache.MISSING == cached) {
+            return null;
+        }
+        if(null != cached) {
+            return (String)cached;
+        }
+        int generation = LocationQueryCache.getGeneration();
+        String ret = queryLonLat(ctx, name, type);
+        LocationQueryCache.put("lonlat" + type, name, null == ret ? LocationQueryCache.MISSING : ret, generation);
+        return ret;
+    }
+
+    private static String queryLonLat(Context ctx, String name, String type) {
         Cursor c = null;
 
         String arguments[] = new String[] {name};
 
+        String table;
+        String id;
+        String lonlat;
+        Uri uri;
+        if(type.equals(Destination.BASE)) {
+            table = LocationContract.TABLE_AIRPORTS;
+            id = LocationContract.AIRPORTS_LOCATION_ID;
+            lonlat = LocationContract.AIRPORTS_LONGITUDE + " || ',' || " + LocationContract.AIRPORTS_LATITUDE;
+            uri = LocationContract.CONTENT_URI_AIRPORTS;
+        }
+        else if(type.equals(Destination.NAVAID)) {
+            table = LocationContract.TABLE_NAV;
+            id = LocationContract.NAV_LOCATION_ID;
+            lonlat = LocationContract.NAV_LONGITUDE + " || ',' || " + LocationContract.NAV_LATITUDE;
+            uri = LocationContract.CONTENT_URI_NAV;
+        }
+        else if(type.equals(Destination.FIX)) {
+            table = LocationContract.TABLE_FIX;
+            id = LocationContract.FIX_LOCATION_ID;
+            lonlat = LocationContract.FIX_LONGITUDE + " || ',' || " + LocationContract.FIX_LATITUDE;
+            uri = LocationContract.CONTENT_URI_FIX;
+        }
+        else {
+            return null;
+        }
+
+        /*
+         * Try compiled statement on database first. Both ways the database makes the string
+         * from the same query, so they return the same row in the same format.
+         */
+        String qry = id + " = ?";
+        String ret = LocationQueryCache.simpleQuery("select " + lonlat + " from " + table + " where " + qry, arguments);
+        if(null != ret) {
+            return ret;
+        }
+
         try {
-            if(type.equals(Destination.BASE)) {
-                String qry = LocationContract.AIRPORTS_LOCATION_ID + " = ?";
-                c = ctx.getContentResolver().query(LocationContract.CONTENT_URI_AIRPORTS, null, qry, arguments, null);
-                if(c != null) {
-                    if(c.moveToFirst()) {
-                        return new String(c.getString(c.getColumnIndex(LocationContract.AIRPORTS_LONGITUDE)) + "," +
-                                c.getString(c.getColumnIndex(LocationContract.AIRPORTS_LATITUDE)));
-                    }
-                }
-            }
-            else if(type.equals(Destination.NAVAID)) {
-                String qry = LocationContract.NAV_LOCATION_ID + " = ?";
-                c = ctx.getContentResolver().query(LocationContract.CONTENT_URI_NAV, null, qry, arguments, null);
-                if(c != null) {
-                    if(c.moveToFirst()) {
-                        return new String(c.getString(c.getColumnIndex(LocationContract.NAV_LONGITUDE)) + "," +
-                                c.getString(c.getColumnIndex(LocationContract.NAV_LATITUDE)));
-                    }
-                }
-            }
-            else if(type.equals(Destination.FIX)) {
-                String qry = LocationContract.FIX_LOCATION_ID + " = ?";
-                c = ctx.getContentResolver().query(LocationContract.CONTENT_URI_FIX, null, qry, arguments, null);
-                if(c != null) {
-                    if(c.moveToFirst()) {
-                        return new String(c.getString(c.getColumnIndex(LocationContract.FIX_LONGITUDE)) + "," +
-                                c.getString(c.getColumnIndex(LocationContract.FIX_LATITUDE)));
-                    }
+            c = ctx.getContentResolver().query(uri, new String[] {lonlat}, qry, arguments, null);
+            if(c != null) {
+                if(c.moveToFirst()) {
+                    ret = c.getString(0);
                 }
             }
         }
@@ -717,7 +863,7 @@ public class LocationContentProviderHelper {
         }
         CursorManager.close(c);
 
-        return null;
+        return ret;
     }
 
     public static Coordinate findNavaid(Context ctx, String name) {
@@ -867,6 +1013,17 @@ public class LocationContentProviderHelper {
 
 
     public static LinkedList<String> findRunways(Context ctx, String name) {
+        LinkedList<String> run = (LinkedList<String>)LocationQueryCache.get(LocationContract.TABLE_AIRPORT_RUNWAYS, name);
+        if(null == run) {
+            int generation = LocationQueryCache.getGeneration();
+            run = queryRunways(ctx, name);
+            LocationQueryCache.put(LocationContract.TABLE_AIRPORT_RUNWAYS, name, run, generation);
+        }
+        // callers own what they get
+        return new LinkedList<String>(run);
+    }
+
+    private static LinkedList<String> queryRunways(Context ctx, String name) {
 
         Cursor c = null;
         LinkedList<String> run = new LinkedList<String>();
@@ -940,19 +1097,40 @@ public class LocationContentProviderHelper {
 
 
     public static String findElev(Context ctx, String airport) {
+        String elev = (String)LocationQueryCache.get(LocationContract.AIRPORTS_ELEVATION, airport);
+        if(null == elev) {
+            int generation = LocationQueryCache.getGeneration();
+            elev = queryElev(ctx, airport);
+            LocationQueryCache.put(LocationContract.AIRPORTS_ELEVATION, airport, elev, generation);
+        }
+        return elev;
+    }
+
+    private static String queryElev(Context ctx, String airport) {
 
         Cursor c = null;
         String elev = "";
 
         String arguments[] = new String[] {airport, "K" + airport};
 
+        /*
+         * Exact identifier before K prefixed one, text made by the database, same on both paths
+         */
         String qry = LocationContract.AIRPORTS_LOCATION_ID + " = ? or " + LocationContract.AIRPORTS_LOCATION_ID + " = ? ";
+        String column = LocationContract.AIRPORTS_ELEVATION + " || ''";
+        String order = "length(" + LocationContract.AIRPORTS_LOCATION_ID + ") limit 1";
+
+        String direct = LocationQueryCache.simpleQuery("select " + column + " from " +
+                LocationContract.TABLE_AIRPORTS + " where " + qry + " order by " + order, arguments);
+        if(null != direct) {
+            return direct;
+        }
 
         try {
-            c = ctx.getContentResolver().query(LocationContract.CONTENT_URI_AIRPORTS, null, qry, arguments, null);
+            c = ctx.getContentResolver().query(LocationContract.CONTENT_URI_AIRPORTS, new String[] {column}, qry, arguments, order);
             if(c != null) {
-                while(c.moveToNext()) {
-                    elev = c.getString(c.getColumnIndex(LocationContract.AIRPORTS_ELEVATION));
+                if(c.moveToFirst() && null != c.getString(0)) {
+                    elev = c.getString(0);
                 }
             }
         }
@@ -967,6 +1145,18 @@ public class LocationContentProviderHelper {
     public static String findClosestAirportID(Context ctx, double lon, double lat, boolean showAll) {
         String ret = null;
 
+        /*
+         * Nearest within touch distance straight from the index, no table scan
+         */
+        PointIndex index = getAirportIndex(ctx);
+        if(null != index) {
+            int found[] = index.nearest(lon, lat, 1, Preferences.MIN_TOUCH_MOVEMENT_SQ_DISTANCE, showAll ? 0 : FLAG_AIRPORT);
+            if(found.length > 0) {
+                ret = index.getId(found[0]);
+            }
+            return ret;
+        }
+
         Cursor c = null;
         double corrFactor = Math.pow(Math.cos(Math.toRadians(lat)), 2);
 
@@ -1029,14 +1219,33 @@ public class LocationContentProviderHelper {
                 LocationContract.NAV_LATITUDE  + " - " + lat + ")) limit 4";
 
         String qry =
+                "(" + LocationContract.NAV_TYPE + " = ? or " +
                 LocationContract.NAV_TYPE + " = ? or " +
-                LocationContract.NAV_TYPE + " = ? or " +
-                LocationContract.NAV_TYPE + " = ? and " +
+                LocationContract.NAV_TYPE + " = ?) and " +
                 LocationContract.NAV_LATITUDE + " < ? and " +
                 LocationContract.NAV_LATITUDE + " > ? and " +
                 LocationContract.NAV_LONGITUDE + " < ? and " +
                 LocationContract.NAV_LONGITUDE + " > ?";
 
+        /*
+         * Narrow to the few nearest in the index so the query does not sort the whole table
+         */
+        PointIndex index = getNavaidIndex(ctx);
+        if(null != index) {
+            double radius = top.getLatitude() - lat;
+            int found[] = index.nearest(lon, lat, 4, radius * radius, 0);
+            if(found.length == 0) {
+                return new Vector<>();
+            }
+            String narrowed[] = new String[arguments.length + found.length];
+            System.arraycopy(arguments, 0, narrowed, 0, arguments.length);
+            for(int i = 0; i < found.length; i++) {
+                narrowed[arguments.length + i] = index.getId(found[i]);
+            }
+            arguments = narrowed;
+            qry += " and " + inClause(LocationContract.NAV_LOCATION_ID, found.length);
+        }
+
         try {
             c = ctx.getContentResolver().query(LocationContract.CONTENT_URI_NAV, null, qry, arguments, order);
             if (c != null) {
@@ -1188,6 +1397,39 @@ public class LocationContentProviderHelper {
      * Find all information about a facility / destination based on its name
      */
     public static void findDestination(Context ctx, String name, String type, String dbType, LinkedHashMap<String, String> params, LinkedList<Runway> runways, LinkedHashMap<String, String> freq, LinkedList<Awos> awos) {
+
+        /*
+         * Runways and AWOS are not changed once made so can be shared, containers are copied
+         */
+        boolean all = null != runways && null != awos && null != freq;
+        String key = type + "|" + dbType + "|" + all + "|" + name;
+        DestinationResult result = (DestinationResult)LocationQueryCache.get("destination", key);
+        if(null == result) {
+            int generation = LocationQueryCache.getGeneration();
+            result = new DestinationResult();
+            queryDestination(ctx, name, type, dbType, result.params,
+                    all ? result.runways : null, all ? result.freq : null, all ? result.awos : null);
+            LocationQueryCache.put("destination", key, result, generation);
+        }
+        params.putAll(result.params);
+        if(all) {
+            runways.addAll(result.runways);
+            freq.putAll(result.freq);
+            awos.addAll(result.awos);
+        }
+    }
+
+    /**
+     * What findDestination() found for a name
+     */
+    private static class DestinationResult {
+        LinkedHashMap<String, String> params = new LinkedHashMap<String, String>();
+        LinkedList<Runway> runways = new LinkedList<Runway>();
+        LinkedHashMap<String, String> freq = new LinkedHashMap<String, String>();
+        LinkedList<Awos> awos = new LinkedList<Awos>();
+    }
+
+    private static void queryDestination(Context ctx, String name, String type, String dbType, LinkedHashMap<String, String> params, LinkedList<Runway> runways, LinkedHashMap<String, String> freq, LinkedList<Awos> awos) {
         Cursor c = null;
 
         try {
@@ -170,6 +170,7 @@ public class LocationProvider extends MainProvider {
     public boolean onCreate() {
         super.onCreate();
         mDatabaseHelper = new LocationDatabaseHelper(getContext(), mPref.mapsFolder());
+        LocationQueryCache.setDatabase(mDatabaseHelper);
         return true;
     }
 
@@ -180,6 +181,7 @@ public class LocationProvider extends MainProvider {
         if(mDatabaseHelper != null) {
             mDatabaseHelper.close();
         }
+        LocationContentProviderHelper.resetIndex();
         onCreate();
     }
 }
@@ -0,0 +1,110 @@
+package com.ds.avare.content;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.collection.LruCache;
+
+import java.util.HashMap;
+
+/**
+ * Results of lookups on the location database by (table, id) so screens asking about the same few
+ * airports do not query again, and compiled single value statements on the provider's own database
+ * that skip the resolver and cursor windows. All cleared when a new database is installed.
+ */
+
+public class LocationQueryCache {
+
+    private static final int CACHE_SIZE = 256;
+
+    /**
+     * Cached for a lookup that found nothing, so it is not looked for again
+     */
+    public static final String MISSING = new String();
+
+    private static final LruCache<String, Object> mCache = new LruCache<String, Object>(CACHE_SIZE);
+    private static final HashMap<String, SQLiteStatement> mStatements = new HashMap<String, SQLiteStatement>();
+    private static MainDatabaseHelper mHelper;
+    private static int mGeneration;
+
+    /**
+     * Called by provider when its database is (re)opened. Drops everything from the old one.
+     * @param helper
+     */
+    public static synchronized void setDatabase(MainDatabaseHelper helper) {
+        for(SQLiteStatement s : mStatements.values()) {
+            try {
+                s.close();
+            }
+            catch (Exception e) {
+            }
+        }
+        mStatements.clear();
+        mCache.evictAll();
+        mHelper = helper;
+        mGeneration++;
+    }
+
+    /**
+     * Take before querying, give to put() so a result from a database that was replaced meanwhile is not cached
+     * @return
+     */
+    public static synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * @param table
+     * @param id
+     * @return cached result or null
+     */
+    public static Object get(String table, String id) {
+        return mCache.get(table + "|" + id);
+    }
+
+    /**
+     * @param table
+     * @param id
+     * @param value must not be changed after this
+     * @param generation from getGeneration() before the query
+     */
+    public static synchronized void put(String table, String id, Object value, int generation) {
+        if(null == value || generation != mGeneration) {
+            return;
+        }
+        mCache.put(table + "|" + id, value);
+    }
+
+    /**
+     * Run a query that returns one string, first column of first row, on the database directly
+     * @param sql
+     * @param arguments
+     * @return null if not found or database not open in this process
+     */
+    public static synchronized String simpleQuery(String sql, String arguments[]) {
+        if(null == mHelper) {
+            return null;
+        }
+        try {
+            SQLiteStatement s = mStatements.get(sql);
+            if(null == s) {
+                SQLiteDatabase db = mHelper.getReadableDatabase();
+                s = db.compileStatement(sql);
+                mStatements.put(sql, s);
+            }
+            s.clearBindings();
+            for(int i = 0; i < arguments.length; i++) {
+                s.bindString(i + 1, arguments[i]);
+            }
+            return s.simpleQueryForString();
+        }
+        catch (SQLiteDoneException e) {
+            // no rows
+        }
+        catch (Exception e) {
+            // missing or bad database, resolver path will reset it
+        }
+        return null;
+    }
+}
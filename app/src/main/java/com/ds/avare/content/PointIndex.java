@@ -0,0 +1,283 @@
+/*
+Copyright (c) 2012, Apps4Av Inc. (apps4av.com) 
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package com.ds.avare.content;
+
+/**
+ * @author zkhan
+ * Static packed kd-tree over lon/lat points, built once from a table when a database is loaded.
+ * Distance is the same squared degree measure the queries used with longitude corrected by cos(lat)^2,
+ * so nearest searches give the same order as the SQL did, but touch only a few nodes.
+ */
+public class PointIndex {
+
+    private String mIds[];
+    private float mLon[];
+    private float mLat[];
+    private int mFlags[];
+    private int mSize;
+
+    /*
+     * Per query state
+     */
+    private double mQLon;
+    private double mQLat;
+    private double mCorr;
+    private int mMask;
+    private int mFound;
+    private int mHeapIndex[];
+    private double mHeapDist[];
+
+    /**
+     * Points are reordered in place into the tree.
+     * @param ids
+     * @param lon
+     * @param lat
+     * @param flags user bits per point, can be matched in queries
+     * @param size
+     */
+    public PointIndex(String ids[], float lon[], float lat[], int flags[], int size) {
+        mIds = ids;
+        mLon = lon;
+        mLat = lat;
+        mFlags = flags;
+        mSize = size;
+        build(0, mSize, 0);
+    }
+
+    /**
+     * @return
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @param index from nearest()
+     * @return
+     */
+    public String getId(int index) {
+        return mIds[index];
+    }
+
+    /**
+     * Find k nearest points within a distance
+     * @param lon
+     * @param lat
+     * @param k
+     * @param maxDistSq squared distance in degrees, longitude corrected
+     * @param mask only points with all these flag bits set, 0 for all
+     * @return indexes of points, nearest first
+     */
+    public synchronized int[] nearest(double lon, double lat, int k, double maxDistSq, int mask) {
+        mQLon = lon;
+        mQLat = lat;
+        double c = Math.cos(Math.toRadians(lat));
+        mCorr = c * c;
+        mMask = mask;
+        mFound = 0;
+        mHeapIndex = new int[Math.max(k, 1)];
+        mHeapDist = new double[Math.max(k, 1)];
+        if(k > 0) {
+            search(0, mSize, 0, maxDistSq);
+        }
+
+        /*
+         * Heap to sorted, nearest first
+         */
+        int ret[] = new int[mFound];
+        for(int i = mFound - 1; i >= 0; i--) {
+            ret[i] = mHeapIndex[0];
+            pop();
+        }
+        mHeapIndex = null;
+        mHeapDist = null;
+        return ret;
+    }
+
+    /**
+     * Squared distance same as used in SQL queries
+     */
+    public static double distance(double lon0, double lat0, double lon1, double lat1, double corr) {
+        double dlon = lon1 - lon0;
+        double dlat = lat1 - lat0;
+        return dlon * dlon * corr + dlat * dlat;
+    }
+
+    private void search(int lo, int hi, int depth, double maxDistSq) {
+        if(lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+
+        if((mFlags[mid] & mMask) == mMask) {
+            double d = distance(mQLon, mQLat, mLon[mid], mLat[mid], mCorr);
+            if(d <= maxDistSq) {
+                offer(mid, d);
+            }
+        }
+
+        double diff;
+        double plane;
+        if((depth & 1) == 0) {
+            diff = mQLon - mLon[mid];
+            plane = diff * diff * mCorr;
+        }
+        else {
+            diff = mQLat - mLat[mid];
+            plane = diff * diff;
+        }
+
+        /*
+         * Near side first, then far side only if it can have something closer
+         */
+        if(diff < 0) {
+            search(lo, mid, depth + 1, maxDistSq);
+            if(plane <= limit(maxDistSq)) {
+                search(mid + 1, hi, depth + 1, maxDistSq);
+            }
+        }
+        else {
+            search(mid + 1, hi, depth + 1, maxDistSq);
+            if(plane <= limit(maxDistSq)) {
+                search(lo, mid, depth + 1, maxDistSq);
+            }
+        }
+    }
+
+    private double limit(double maxDistSq) {
+        if(mFound < mHeapIndex.length) {
+            return maxDistSq;
+        }
+        return Math.min(maxDistSq, mHeapDist[0]);
+    }
+
+    /*
+     * Max heap of best k so far, farthest at top
+     */
+    private void offer(int index, double d) {
+        if(mFound < mHeapIndex.length) {
+            int i = mFound++;
+            mHeapIndex[i] = index;
+            mHeapDist[i] = d;
+            while(i > 0) {
+                int p = (i - 1) >> 1;
+                if(mHeapDist[p] >= mHeapDist[i]) {
+                    break;
+                }
+                swapHeap(i, p);
+                i = p;
+            }
+        }
+        else if(d < mHeapDist[0]) {
+            mHeapIndex[0] = index;
+            mHeapDist[0] = d;
+            sift(0);
+        }
+    }
+
+    private void pop() {
+        mFound--;
+        mHeapIndex[0] = mHeapIndex[mFound];
+        mHeapDist[0] = mHeapDist[mFound];
+        sift(0);
+    }
+
+    private void sift(int i) {
+        while(true) {
+            int l = 2 * i + 1;
+            int r = l + 1;
+            int largest = i;
+            if(l < mFound && mHeapDist[l] > mHeapDist[largest]) {
+                largest = l;
+            }
+            if(r < mFound && mHeapDist[r] > mHeapDist[largest]) {
+                largest = r;
+            }
+            if(largest == i) {
+                return;
+            }
+            swapHeap(i, largest);
+            i = largest;
+        }
+    }
+
+    private void swapHeap(int a, int b) {
+        int ti = mHeapIndex[a];
+        mHeapIndex[a] = mHeapIndex[b];
+        mHeapIndex[b] = ti;
+        double td = mHeapDist[a];
+        mHeapDist[a] = mHeapDist[b];
+        mHeapDist[b] = td;
+    }
+
+    /**
+     * Put median of range at middle, smaller on left, larger on right, alternating lon and lat
+     */
+    private void build(int lo, int hi, int depth) {
+        if(hi - lo < 2) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, (depth & 1) == 0 ? mLon : mLat);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Quickselect so that k is in sorted position
+     */
+    private void select(int lo, int hi, int k, float key[]) {
+        while(hi > lo) {
+            float pivot = key[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while(i <= j) {
+                while(key[i] < pivot) {
+                    i++;
+                }
+                while(key[j] > pivot) {
+                    j--;
+                }
+                if(i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if(k <= j) {
+                hi = j;
+            }
+            else if(k >= i) {
+                lo = i;
+            }
+            else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        String id = mIds[a];
+        mIds[a] = mIds[b];
+        mIds[b] = id;
+        float t = mLon[a];
+        mLon[a] = mLon[b];
+        mLon[b] = t;
+        t = mLat[a];
+        mLat[a] = mLat[b];
+        mLat[b] = t;
+        int f = mFlags[a];
+        mFlags[a] = mFlags[b];
+        mFlags[b] = f;
+    }
+}
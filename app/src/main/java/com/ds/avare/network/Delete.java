@@ -19,7 +19,9 @@ import java.io.IOException;
 import java.util.LinkedList;
 import java.util.Observable;
 
+import com.ds.avare.utils.BitmapHolder;
 import com.ds.avare.utils.Helper;
+import com.ds.avare.utils.TileArchive;
 
 import android.os.Handler;
 import android.os.Message;
@@ -125,6 +127,9 @@ public class Delete extends Observable {
                 }
             }
 
+            // images found before may be gone
+            BitmapHolder.clearNames();
+            TileArchive.reset();
             Message m = mHandler.obtainMessage(Download.SUCCESS, Delete.this);
             mHandler.sendMessage(m);
         }      
@@ -16,8 +16,10 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
 
+import com.ds.avare.utils.BitmapHolder;
 import com.ds.avare.utils.Helper;
 import com.ds.avare.utils.NetworkHelper;
+import com.ds.avare.utils.TileArchive;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -405,7 +407,19 @@ public class Download {
                     mCode = "code unable to delete downloaded zip file";
                     new File(zipfile).delete();
 
+                    /*
+                     * One archive for tiles of a chart, loose tiles are still read if it fails
+                     */
+                    try {
+                        TileArchive.pack(path, mName);
+                    }
+                    catch (IOException e) {
+                    }
+
                     mCode = "";
+                    // images not there before may be now
+                    BitmapHolder.clearNames();
+                    TileArchive.reset();
                     Message m = mHandler.obtainMessage(Download.SUCCESS, Download.this);
                     mHandler.sendMessage(m);
                     return;
@@ -14,6 +14,7 @@ package com.ds.avare.network;
 
 import java.util.LinkedList;
 
+import com.ds.avare.shapes.ShapeIndex;
 import com.ds.avare.shapes.TFRShape;
 import com.ds.avare.utils.Helper;
 
@@ -30,14 +31,30 @@ public class TFRFetcher {
 
     
     private TFRTask mTask;
-    private LinkedList<TFRShape> mShapes;
+    /*
+     * Replaced on the fetch thread, read on the UI thread, shapes and index always of one fetch
+     */
+    private volatile TFRs mTfrs;
     private Context mContext;
+
+    /**
+     * Shapes of a fetch with their index
+     */
+    private static class TFRs {
+        final LinkedList<TFRShape> mShapes;
+        final ShapeIndex<TFRShape> mIndex;
+
+        TFRs(LinkedList<TFRShape> shapes) {
+            mShapes = shapes;
+            mIndex = new ShapeIndex<TFRShape>(shapes);
+        }
+    }
     
     /**
      * 
      */
     public TFRFetcher(Context ctx) {
-        mShapes = null;
+        mTfrs = null;
         mContext = ctx;
     }
 
@@ -66,7 +83,17 @@ public class TFRFetcher {
      * @return
      */
     public LinkedList<TFRShape> getShapes() {
-        return mShapes;
+        TFRs tfrs = mTfrs;
+        return null == tfrs ? null : tfrs.mShapes;
+    }
+
+    /**
+     * Index on shapes for touch lookups, null till shapes are received
+     * @return
+     */
+    public ShapeIndex<TFRShape> getIndex() {
+        TFRs tfrs = mTfrs;
+        return null == tfrs ? null : tfrs.mIndex;
     }
 
     /**
@@ -83,7 +110,8 @@ public class TFRFetcher {
         protected Boolean doInBackground(Object... vals) {
             Thread.currentThread().setName("TFR");
 
-            mShapes = Helper.getShapesInTFR(mContext);
+            LinkedList<TFRShape> shapes = Helper.getShapesInTFR(mContext);
+            mTfrs = null == shapes ? null : new TFRs(shapes);
             return true;
         }
     } 
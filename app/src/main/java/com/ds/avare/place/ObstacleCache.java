@@ -0,0 +1,174 @@
+/*
+Copyright (c) 2015, Apps4Av Inc. (apps4av.com)
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package com.ds.avare.place;
+
+import androidx.collection.LruCache;
+
+import com.ds.avare.content.DataSource;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+
+/**
+ * Obstacles in a grid of cells loaded from database once, ahead of where we are going.
+ * Obstacles near us, tall enough to matter, are then found in memory.
+ */
+public class ObstacleCache {
+
+    private static final double CELL = 0.25; // degrees on a side
+    private static final int MAX_OBSTACLES = 50000; // in all cells
+    private static final double AHEAD_TIME = 10.0 / 60.0; // hours of flight to load ahead of
+    private static final double AHEAD_MAX = 60; // nm ahead at most
+    private static final int LOADS_AHEAD = 2; // cells ahead loaded in one update
+
+    /**
+     * Obstacles in a cell, tallest first so height filter stops early
+     */
+    private static class Cell {
+        float lon[];
+        float lat[];
+        int height[];
+        Obstacle obstacles[];
+    }
+
+    private DataSource mDataSource;
+    private LruCache<Integer, Cell> mCells;
+
+    /**
+     * @param dataSource
+     */
+    public ObstacleCache(DataSource dataSource) {
+        mDataSource = dataSource;
+        mCells = new LruCache<Integer, Cell>(MAX_OBSTACLES) {
+            @Override
+            protected int sizeOf(Integer key, Cell value) {
+                return Math.max(1, value.obstacles.length);
+            }
+        };
+    }
+
+    private static int key(int x, int y) {
+        return (y + 512) * 2048 + (x + 1024);
+    }
+
+    private static int cellOf(double degrees) {
+        return (int)Math.floor(degrees / CELL);
+    }
+
+    /**
+     * Read obstacles of a cell from database
+     */
+    private Cell load(int x, int y) {
+        LinkedList<Obstacle> list = mDataSource.getObstacles(x * CELL, y * CELL, (x + 1) * CELL, (y + 1) * CELL);
+        Obstacle obstacles[] = list.toArray(new Obstacle[list.size()]);
+        Arrays.sort(obstacles, new Comparator<Obstacle>() {
+            @Override
+            public int compare(Obstacle o1, Obstacle o2) {
+                return o2.getHeight() - o1.getHeight();
+            }
+        });
+        Cell c = new Cell();
+        c.obstacles = obstacles;
+        c.lon = new float[obstacles.length];
+        c.lat = new float[obstacles.length];
+        c.height = new int[obstacles.length];
+        for(int i = 0; i < obstacles.length; i++) {
+            c.lon[i] = (float)obstacles[i].getLongitude();
+            c.lat[i] = (float)obstacles[i].getLatitude();
+            c.height[i] = obstacles[i].getHeight();
+        }
+        return c;
+    }
+
+    private Cell getCell(int x, int y) {
+        Cell c = mCells.get(key(x, y));
+        if(null == c) {
+            c = load(x, y);
+            mCells.put(key(x, y), c);
+        }
+        return c;
+    }
+
+    /**
+     * Load a few cells around a place ahead of us, so they are ready when we get there
+     * @return cells still to load
+     */
+    private int prefetch(double lon, double lat, int loads) {
+        for(int y = cellOf(lat - Obstacle.RADIUS); y <= cellOf(lat + Obstacle.RADIUS) && loads > 0; y++) {
+            for(int x = cellOf(lon - Obstacle.RADIUS); x <= cellOf(lon + Obstacle.RADIUS) && loads > 0; x++) {
+                if(null == mCells.get(key(x, y))) {
+                    mCells.put(key(x, y), load(x, y));
+                    loads--;
+                }
+            }
+        }
+        return loads;
+    }
+
+    /**
+     * Obstacles near a place that are dangerous at a height, same as database query
+     * of Obstacle.RADIUS and Obstacle.HEIGHT_BELOW, then cells ahead are loaded.
+     * @param lon
+     * @param lat
+     * @param height feet
+     * @param bearing degrees true, of motion
+     * @param speed knots
+     * @return
+     */
+    public synchronized LinkedList<Obstacle> getObstacles(double lon, double lat, double height, double bearing, double speed) {
+        LinkedList<Obstacle> ret = new LinkedList<Obstacle>();
+        double lonL = lon - Obstacle.RADIUS;
+        double lonR = lon + Obstacle.RADIUS;
+        double latD = lat - Obstacle.RADIUS;
+        double latU = lat + Obstacle.RADIUS;
+        int min = (int)height - (int)Obstacle.HEIGHT_BELOW;
+
+        for(int y = cellOf(latD); y <= cellOf(latU); y++) {
+            for(int x = cellOf(lonL); x <= cellOf(lonR); x++) {
+                Cell c = getCell(x, y);
+                for(int i = 0; i < c.height.length; i++) {
+                    if(c.height[i] <= min) {
+                        break;
+                    }
+                    if(c.lat[i] > latD && c.lat[i] < latU && c.lon[i] > lonL && c.lon[i] < lonR) {
+                        ret.add(c.obstacles[i]);
+                    }
+                }
+            }
+        }
+
+        /*
+         * Along path to a place ahead, a cell at a time
+         */
+        double distance = Math.min(speed * AHEAD_TIME, AHEAD_MAX);
+        int loads = LOADS_AHEAD;
+        double cos = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+        int steps = (int)Math.ceil(distance / 60 / CELL);
+        for(int step = 1; step <= steps && loads > 0; step++) {
+            double d = distance * step / steps / 60;
+            loads = prefetch(
+                    lon + d * Math.sin(Math.toRadians(bearing)) / cos,
+                    lat + d * Math.cos(Math.toRadians(bearing)),
+                    loads);
+        }
+        return ret;
+    }
+
+    /**
+     * Forget loaded cells, as when new database is downloaded
+     */
+    public synchronized void clear() {
+        mCells.evictAll();
+    }
+}
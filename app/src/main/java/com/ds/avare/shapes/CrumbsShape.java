@@ -46,7 +46,7 @@ public class CrumbsShape extends Shape {
      * Clear 
      */
     public void clearShape() {
-        super.mCoords.clear();
+        clear();
     }
     
 }
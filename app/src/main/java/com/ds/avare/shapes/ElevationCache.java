@@ -0,0 +1,203 @@
+/*
+Copyright (c) 2012, Apps4Av Inc. (apps4av.com) 
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.ds.avare.shapes;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+
+import androidx.collection.LruCache;
+
+import com.ds.avare.StorageService;
+import com.ds.avare.position.Epsg900913;
+import com.ds.avare.storage.Preferences;
+import com.ds.avare.utils.BitmapHolder;
+import com.ds.avare.utils.Helper;
+
+/**
+ * Elevation at any place from elevation chart tiles, without bitmaps at lookup.
+ * Tiles are decoded once in to heights in feet, and a few most recent are kept.
+ * For AGL on the map, and for 3D till its terrain is loaded.
+ */
+public class ElevationCache {
+
+    /**
+     * Returned where there is no elevation tile, same as below lowest elevation
+     */
+    public static final double INVALID = Helper.ALTITUDE_FT_ELEVATION_PER_PIXEL_INTERCEPT - 1;
+
+    private static final String INDEX = "6"; // elevation chart
+    private static final int SIZE = BitmapHolder.WIDTH;
+    private static final int TILES = 8; // 512 KB each
+    private static final short MISSING[] = new short[0]; // so a missing tile is not looked for again
+
+    private Context mContext;
+    private Preferences mPref;
+    private int mZoom;
+    private LruCache<String, short[]> mCache;
+
+    // lookups are mostly near each other, so keep last tile out of cache
+    private int mLastX;
+    private int mLastY;
+    private short mLast[];
+
+    // tiles for UI are decoded in background, one at a time
+    private Handler mHandler;
+    private String mPending;
+    private int mGeneration; // tiles loaded before clear() are not kept
+
+    /**
+     * @param ctx
+     */
+    public ElevationCache(Context ctx) {
+        mContext = ctx;
+        mPref = new Preferences(ctx);
+        mZoom = Tile.getMaxZoom(ctx, INDEX);
+        mCache = new LruCache<String, short[]>(TILES);
+        mLast = null;
+    }
+
+    /**
+     * Decode elevation tile in to heights
+     * @param tx
+     * @param ty
+     * @return MISSING if not found
+     */
+    private short[] load(int tx, int ty) {
+        // same as Tile.getTileNeighbor()
+        String name = "tiles/" + "/" + INDEX + "/" + mZoom + "/" + tx + "/" + ty;
+        BitmapHolder b = new BitmapHolder(mContext, mPref, name, 1, Bitmap.Config.ARGB_8888);
+        Bitmap bitmap = b.getBitmap();
+        if(null == bitmap || bitmap.getWidth() != SIZE || bitmap.getHeight() != SIZE) {
+            b.recycle();
+            return MISSING;
+        }
+        int pixels[] = new int[SIZE * SIZE];
+        bitmap.getPixels(pixels, 0, SIZE, 0, 0, SIZE, SIZE);
+        b.recycle();
+
+        short heights[] = new short[SIZE * SIZE];
+        for(int i = 0; i < pixels.length; i++) {
+            heights[i] = (short)Math.round(Helper.findElevationFromPixel(pixels[i]));
+        }
+        return heights;
+    }
+
+    /**
+     * @param tx
+     * @param ty
+     * @param load decode tile if not in memory
+     * @return heights of tile, null if not in memory and not loaded
+     */
+    private short[] getTile(int tx, int ty, boolean load) {
+        if(null != mLast && tx == mLastX && ty == mLastY) {
+            return mLast;
+        }
+        String key = tx + "/" + ty;
+        short heights[] = mCache.get(key);
+        if(null == heights) {
+            if(!load) {
+                return null;
+            }
+            heights = load(tx, ty);
+            mCache.put(key, heights);
+        }
+        mLast = heights;
+        mLastX = tx;
+        mLastY = ty;
+        return heights;
+    }
+
+    /**
+     * Elevation in a tile
+     */
+    private static double height(short heights[], int tx, int ty, double px, double py) {
+        if(heights.length == 0) {
+            return INVALID;
+        }
+
+        // tile row 0 is at top, where pixels y is the largest
+        int x = Math.min(Math.max((int)(px - (double)tx * SIZE), 0), SIZE - 1);
+        int y = Math.min(Math.max((int)((double)(ty + 1) * SIZE - py), 0), SIZE - 1);
+        return heights[y * SIZE + x];
+    }
+
+    /**
+     * Elevation in feet at a place
+     * @param lon
+     * @param lat
+     * @return INVALID if not known
+     */
+    public synchronized double elevation(double lon, double lat) {
+        double px = Epsg900913.xMetersToPixels(mZoom, Epsg900913.lonToMeters(lon));
+        double py = Epsg900913.yMetersToPixels(mZoom, Epsg900913.latToMeters(lat));
+        int tx = Epsg900913.xPixelsToTile(px);
+        int ty = Epsg900913.yPixelsToTile(py);
+
+        return height(getTile(tx, ty, true), tx, ty, px, py);
+    }
+
+    /**
+     * Elevation in feet at a place, for UI thread. Never decodes on the calling thread,
+     * a tile not in memory is decoded on IO thread and INVALID is returned till then.
+     * @param lon
+     * @param lat
+     * @return INVALID if not known yet
+     */
+    public synchronized double elevationIfLoaded(double lon, double lat) {
+        double px = Epsg900913.xMetersToPixels(mZoom, Epsg900913.lonToMeters(lon));
+        double py = Epsg900913.yMetersToPixels(mZoom, Epsg900913.latToMeters(lat));
+        final int tx = Epsg900913.xPixelsToTile(px);
+        final int ty = Epsg900913.yPixelsToTile(py);
+
+        short heights[] = getTile(tx, ty, false);
+        if(null != heights) {
+            return height(heights, tx, ty, px, py);
+        }
+
+        final String key = tx + "/" + ty;
+        if(key.equals(mPending)) {
+            return INVALID;
+        }
+        mPending = key;
+        final int generation = mGeneration;
+        if(null == mHandler) {
+            mHandler = new Handler(StorageService.getIOLooper());
+        }
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                // decode without lock so lookups are not held up
+                short heights[] = load(tx, ty);
+                synchronized(ElevationCache.this) {
+                    if(generation == mGeneration) {
+                        mCache.put(key, heights);
+                    }
+                    if(key.equals(mPending)) {
+                        mPending = null;
+                    }
+                }
+            }
+        });
+        return INVALID;
+    }
+
+    /**
+     * Forget decoded tiles, as when new charts are downloaded
+     */
+    public synchronized void clear() {
+        mCache.evictAll();
+        mLast = null;
+        mPending = null;
+        mGeneration++;
+    }
+}
@@ -12,8 +12,15 @@ Redistribution and use in source and binary forms, with or without modification,
 
 package com.ds.avare.shapes;
 
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import androidx.collection.LruCache;
 
 import com.ds.avare.position.Coordinate;
 import com.ds.avare.position.Origin;
@@ -26,14 +33,35 @@ import java.io.FileReader;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Created by zkhan on 8/26/15.
  */
 public class Layer {
 
+    private static final int TILE = 256; // pixels of a decoded tile
+    private static final int TILE_CACHE = 1024 * 1024 * 8; // bytes of decoded tiles
+
     // Layers can hog memory, show only one hence static bitmap
     private static BitmapHolder mBitmap;
+
+    /*
+     * Decoded tiles of all layers by image, sample size, col, row.
+     * Evicted tiles are not recycled as a frame being drawn may still use them.
+     */
+    private static LruCache<String, Bitmap> mTiles = new LruCache<String, Bitmap>(TILE_CACHE) {
+        @Override
+        protected int sizeOf(String key, Bitmap value) {
+            return value.getRowBytes() * value.getHeight();
+        }
+    };
+
+    // Only what is on screen is decoded from image, at resolution of screen
+    private BitmapRegionDecoder mDecoder;
+    private int mWidth;
+    private int mHeight;
+    private RectF mDst;
     private float mLonL;
     private float mLatU;
     private float mLonR;
@@ -45,6 +73,7 @@ public class Layer {
 
 
     protected Layer() {
+        mDst = new RectF();
         flush();
     }
 
@@ -102,6 +131,13 @@ public class Layer {
         return formatter.format(new Date(mDate)) + "Z";
     }
 
+    /**
+     * @return ms of image, 0 if none
+     */
+    public long getTime() {
+        return mDate;
+    }
+
     /**
      *
      */
@@ -110,27 +146,139 @@ public class Layer {
             mBitmap.recycle();
             mBitmap = null;
         }
+        if(mDecoder != null) {
+            mDecoder.recycle();
+            mDecoder = null;
+        }
+        // tiles of old image
+        if(null != mImage) {
+            for(Map.Entry<String, Bitmap> e : mTiles.snapshot().entrySet()) {
+                if(e.getKey().startsWith(mImage + "/")) {
+                    mTiles.remove(e.getKey());
+                }
+            }
+        }
         mLonR = mLatU = mLonL = mLatD = 0;
         mDate = 0;
     }
 
     /**
-     * Draw on map screen
+     * Image file with extension, preferring webp, then png, then jpg as BitmapHolder does
+     * @param name
+     * @return null if none
      */
-    public void draw(Canvas canvas, Paint paint, Origin origin) {
+    private static String findImage(String name) {
+        String names[] = {name + ".webp", name + ".png", name + ".jpg"};
+        for(String n : names) {
+            if(new File(n).exists()) {
+                return n;
+            }
+        }
+        return null;
+    }
 
-        if(null == mBitmap) {
+    /**
+     * Get a decoded tile
+     * @param sample
+     * @param col
+     * @param row
+     * @param region part of image in tile
+     * @return null if cannot decode
+     */
+    private Bitmap getTile(int sample, int col, int row, Rect region) {
+        String key = mImage + "/" + sample + "/" + col + "/" + row;
+        Bitmap b = mTiles.get(key);
+        if(null != b) {
+            return b;
+        }
+        BitmapFactory.Options opt = new BitmapFactory.Options();
+        opt.inSampleSize = sample;
+        opt.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        try {
+            b = mDecoder.decodeRegion(region, opt);
+        }
+        catch (Exception e) {
+            return null;
+        }
+        catch (OutOfMemoryError e) {
+            return null;
+        }
+        if(null != b) {
+            mTiles.put(key, b);
+        }
+        return b;
+    }
+
+    /**
+     * Draw only tiles on screen, decoded at about screen resolution
+     */
+    private void drawTiles(Canvas canvas, Paint paint, float x0, float y0, float x1, float y1) {
+        if(x1 <= x0 || y1 <= y0) {
             return;
         }
-        if(null == mBitmap.getBitmap()) {
+
+        // image pixels per screen pixel, rounded down to a power of 2
+        float ratio = Math.min(mWidth / (x1 - x0), mHeight / (y1 - y0));
+        int sample = 1;
+        while(sample * 2 <= ratio) {
+            sample *= 2;
+        }
+        int size = TILE * sample; // image pixels in a tile
+
+        // part of image on screen, canvas may be translated when drawn offscreen
+        Rect clip = canvas.getClipBounds();
+        float ix0 = Math.max(0, (clip.left - x0) / (x1 - x0) * mWidth);
+        float ix1 = Math.min(mWidth, (clip.right - x0) / (x1 - x0) * mWidth);
+        float iy0 = Math.max(0, (clip.top - y0) / (y1 - y0) * mHeight);
+        float iy1 = Math.min(mHeight, (clip.bottom - y0) / (y1 - y0) * mHeight);
+        if(ix1 <= ix0 || iy1 <= iy0) {
             return;
         }
 
+        Rect region = new Rect();
+        for(int row = (int)iy0 / size; row <= ((int)iy1 - 1) / size; row++) {
+            for(int col = (int)ix0 / size; col <= ((int)ix1 - 1) / size; col++) {
+                region.set(col * size, row * size,
+                        Math.min(mWidth, (col + 1) * size), Math.min(mHeight, (row + 1) * size));
+                Bitmap b = getTile(sample, col, row, region);
+                if(null == b) {
+                    continue;
+                }
+                /*
+                 * Stretch out the tile to fit the projection, same as whole image
+                 */
+                mDst.set(
+                        x0 + (x1 - x0) * region.left / mWidth,
+                        y0 + (y1 - y0) * region.top / mHeight,
+                        x0 + (x1 - x0) * region.right / mWidth,
+                        y0 + (y1 - y0) * region.bottom / mHeight);
+                canvas.drawBitmap(b, null, mDst, paint);
+            }
+        }
+    }
+
+    /**
+     * Draw on map screen
+     */
+    public void draw(Canvas canvas, Paint paint, Origin origin) {
+
         float x0 = (float)origin.getOffsetX(mLonL);
         float y0 = (float)origin.getOffsetY(mLatU);
         float x1 = (float)origin.getOffsetX(mLonR);
         float y1 = (float)origin.getOffsetY(mLatD);
 
+        if(null != mDecoder) {
+            drawTiles(canvas, paint, x0, y0, x1, y1);
+            return;
+        }
+
+        if(null == mBitmap) {
+            return;
+        }
+        if(null == mBitmap.getBitmap()) {
+            return;
+        }
+
         /*
          * Stretch out the image to fit the projection
          */
@@ -142,6 +290,50 @@ public class Layer {
         canvas.drawBitmap(mBitmap.getBitmap(), mBitmap.getTransform(), paint);
     }
 
+    /**
+     * Add this image to a loop as a frame, decoded whole at no more than a size
+     * @param loop
+     * @param maxSize pixels on longer side at most
+     */
+    protected void addFrame(RadarLoop loop, int maxSize) {
+        if(0 == mDate || loop.getLatest() >= mDate) {
+            return;
+        }
+        Bitmap b = null;
+        try {
+            if(null != mDecoder) {
+                int sample = 1;
+                while(Math.max(mWidth, mHeight) / (sample * 2) >= maxSize) {
+                    sample *= 2;
+                }
+                BitmapFactory.Options opt = new BitmapFactory.Options();
+                opt.inSampleSize = sample;
+                opt.inPreferredConfig = Bitmap.Config.ARGB_8888;
+                b = mDecoder.decodeRegion(new Rect(0, 0, mWidth, mHeight), opt);
+            }
+            else if(null != mBitmap && null != mBitmap.getBitmap()) {
+                float scale = Math.min(1f, (float)maxSize / Math.max(mBitmap.getWidth(), mBitmap.getHeight()));
+                b = Bitmap.createScaledBitmap(mBitmap.getBitmap(),
+                        Math.max(1, (int)(mBitmap.getWidth() * scale)),
+                        Math.max(1, (int)(mBitmap.getHeight() * scale)), true);
+                if(b == mBitmap.getBitmap()) {
+                    // same size returns same bitmap, loop owns its own
+                    b = b.copy(Bitmap.Config.ARGB_8888, false);
+                }
+            }
+        }
+        catch (Exception e) {
+            b = null;
+        }
+        catch (OutOfMemoryError e) {
+            b = null;
+        }
+        if(null == b) {
+            return;
+        }
+        loop.add(mDate, new Bitmap[] {b}, new float[] {mLonL, mLatU, mLonR, mLatD}, 1);
+    }
+
     /**
      *
      */
@@ -179,7 +371,23 @@ public class Layer {
                 String dateText = br.readLine();
                 br.close();
 
-                mBitmap = new BitmapHolder(mImage);
+                /*
+                 * Decode parts on screen as needed, whole image if that cannot be done
+                 */
+                String file = findImage(mImage);
+                if(null != file) {
+                    try {
+                        mDecoder = BitmapRegionDecoder.newInstance(file, false);
+                        mWidth = mDecoder.getWidth();
+                        mHeight = mDecoder.getHeight();
+                    }
+                    catch (Exception e) {
+                        mDecoder = null;
+                    }
+                }
+                if(null == mDecoder) {
+                    mBitmap = new BitmapHolder(mImage);
+                }
 
                 /*
                  * Date format YYYYMMDD_HHmm
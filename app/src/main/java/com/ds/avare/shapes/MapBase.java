@@ -13,16 +13,34 @@ Redistribution and use in source and binary forms, with or without modification,
 package com.ds.avare.shapes;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.view.Display;
 import android.view.WindowManager;
 import androidx.collection.LruCache;
 
 import com.ds.avare.storage.Preferences;
 import com.ds.avare.utils.BitmapHolder;
-import com.ds.avare.utils.GenericCallback;
+import com.ds.avare.utils.BitmapPool;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Created by zkhan on 9/1/15.
@@ -33,6 +51,11 @@ public class MapBase {
     protected BitmapHolder[] mapA;
     protected BitmapHolder[] mapB;
 
+    /*
+     * Held to put tiles in mapA / mapB, and to check them before an evicted tile is recycled
+     */
+    private final Object mMapLock = new Object();
+
     protected Context mContext;
 
     protected Preferences mPref;
@@ -47,6 +70,26 @@ public class MapBase {
 
     protected LruCache<String, BitmapHolder> mBitmapCache;
 
+    /*
+     * Tiles decode in parallel. Decodes in progress are shared between batches so a pan
+     * does not throw away work, and finished tiles always make it to the cache.
+     */
+    private static final int DECODE_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private ExecutorService mDecoder;
+
+    private ConcurrentHashMap<String, Future<BitmapHolder>> mPending;
+
+    // tiles last asked ahead of time, kept when a reload drops unwanted decodes
+    private HashSet<String> mPrefetch;
+
+    private Handler mHandler;
+
+    /*
+     * Evicted tiles give their bitmaps here for new tiles to decode in
+     */
+    private BitmapPool mPool;
+
 
     protected MapBase(Context context, int size, int tilesdim[]) {
 
@@ -73,9 +116,52 @@ public class MapBase {
 
             @Override
             protected void entryRemoved(boolean evicted, String key, BitmapHolder oldValue, BitmapHolder newValue) {
-                oldValue.recycle();
+                Bitmap b;
+                synchronized (mMapLock) {
+                    if(isInUse(oldValue)) {
+                        // being drawn, or about to be, leave it to GC
+                        return;
+                    }
+                    b = oldValue.detach();
+                }
+                if(!mPool.put(b) && null != b) {
+                    b.recycle();
+                }
             }
         };
+
+        mPool = new BitmapPool(DECODE_THREADS * 2);
+
+        mPending = new ConcurrentHashMap<String, Future<BitmapHolder>>();
+        mPrefetch = new HashSet<String>();
+        mHandler = new Handler(Looper.getMainLooper());
+        mDecoder = Executors.newFixedThreadPool(DECODE_THREADS, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread t = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, "Tile");
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Tiles in the shown or next set must not be recycled on eviction. Call with mMapLock held.
+     * @param h
+     * @return
+     */
+    private boolean isInUse(BitmapHolder h) {
+        for (int tilen = 0; tilen < mNumTiles; tilen++) {
+            if (mapA[tilen] == h || mapB[tilen] == h) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -154,44 +240,192 @@ public class MapBase {
         return result;
     }
 
+    /**
+     * Decode a tile on the worker pool, or join a decode of it already in progress.
+     * Decoded tiles are added in cache from UI thread.
+     *
+     * @param name
+     * @return
+     */
+    protected Future<BitmapHolder> decode(String name) {
+        Future<BitmapHolder> f = mPending.get(name);
+        if (null != f) {
+            return f;
+        }
+        TileDecode d = new TileDecode(name);
+        FutureTask<BitmapHolder> task = new FutureTask<BitmapHolder>(d);
+        d.mTask = task;
+        f = mPending.putIfAbsent(name, task);
+        if (null != f) {
+            return f;
+        }
+        try {
+            mDecoder.execute(task);
+        }
+        catch (RejectedExecutionException e) {
+            // shut down in recycleBitmaps()
+            mPending.remove(name, task);
+            task.cancel(false);
+        }
+        return task;
+    }
+
+    /**
+     * Decodes one tile
+     */
+    private class TileDecode implements Callable<BitmapHolder> {
+        private String mName;
+        private Future<BitmapHolder> mTask;
+
+        private TileDecode(String name) {
+            mName = name;
+        }
+
+        @Override
+        public BitmapHolder call() {
+            Bitmap reuse = mPool.get();
+            final BitmapHolder h = new BitmapHolder(mContext, mPref, mName, 1, reuse);
+            if (null != reuse && h.getBitmap() != reuse) {
+                // not used, may be tile not found
+                if (!mPool.put(reuse)) {
+                    reuse.recycle();
+                }
+            }
+            if (null == h.getBitmap()) {
+                mPending.remove(mName, mTask);
+                return h;
+            }
+            mPool.count(null != reuse && h.getBitmap() == reuse);
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    addInCache(mName, h);
+                    mPending.remove(mName, mTask);
+                }
+            });
+            return h;
+        }
+    }
+
+    /**
+     * Drop queued decodes of tiles not wanted anymore. Decodes already running are kept.
+     *
+     * @param wanted
+     */
+    protected void cancelDecodes(Collection<String> wanted) {
+        Iterator<Map.Entry<String, Future<BitmapHolder>>> it = mPending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Future<BitmapHolder>> e = it.next();
+            if (!wanted.contains(e.getKey())) {
+                if (e.getValue().cancel(false)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
     /**
      * When a new string of names are available for a new region, reload
-     * will load and reuse older tiles.
+     * will load and reuse older tiles. Tiles are decoded in parallel starting from center.
      *
      * @param tileNames
      * @return
      */
-    protected int reloadMap(String[] tileNames, GenericCallback c) {
+    protected int reloadMap(String[] tileNames) {
 
         // how many tiles missing?
         int showing = 0;
 
+        HashSet<String> wanted = new HashSet<String>();
+        Collections.addAll(wanted, tileNames);
+        wanted.addAll(mPrefetch);
+        cancelDecodes(wanted);
+
+        ArrayList<Integer> order = ccwSpiral(mYtiles, mXtiles);
+        ArrayList<Future<BitmapHolder>> decodes = new ArrayList<Future<BitmapHolder>>(mNumTiles);
+        for (int tilen = 0; tilen < mNumTiles; tilen++) {
+            decodes.add(null);
+        }
+
         /*
          * For all tiles that will be loaded.
          */
-        for (int tilen = 0; tilen < mNumTiles; tilen++) {
-
-            mapB[tilen] = mBitmapCache.get(tileNames[tilen]);
+        for (int tilen : order) {
+            if (!place(tilen, mBitmapCache.get(tileNames[tilen]))) {
+                decodes.set(tilen, decode(tileNames[tilen]));
+            }
+        }
 
-            if (mapB[tilen] == null) {
-                mapB[tilen] = new BitmapHolder(mContext, mPref, tileNames[tilen], 1);
-                if (mapB[tilen].getBitmap() != null) {
-                    c.callback(this, mapB[tilen]);
-                    showing++;
+        for (int tilen : order) {
+            Future<BitmapHolder> f = decodes.get(tilen);
+            if (null == f) {
+                showing++;
+                continue;
+            }
+            try {
+                BitmapHolder h = f.get();
+                if (!place(tilen, h) && null != h && h.isDetached()) {
+                    // evicted from cache and its bitmap reused before it got here, decode again
+                    mPending.remove(tileNames[tilen], f);
+                    h = decode(tileNames[tilen]).get();
+                    place(tilen, h);
                 }
-            } else {
+            }
+            catch (InterruptedException e) {
+                // new batch, what was decoded stays in cache
+                Thread.currentThread().interrupt();
+                return showing;
+            }
+            catch (ExecutionException e) {
+                place(tilen, null);
+            }
+            catch (CancellationException e) {
+                place(tilen, null);
+            }
+            if (null != mapB[tilen] && null != mapB[tilen].getBitmap()) {
                 showing++;
             }
         }
         return showing;
     }
 
+    /**
+     * Put a tile in the next set, so eviction does not take its bitmap from now on
+     *
+     * @param tilen
+     * @param h
+     * @return false if tile has no bitmap to show, as when it was recycled before
+     */
+    private boolean place(int tilen, BitmapHolder h) {
+        synchronized (mMapLock) {
+            mapB[tilen] = h;
+            return null != h && null != h.getBitmap();
+        }
+    }
+
+    /**
+     * Decode tiles that are likely to be needed next, without waiting for them
+     *
+     * @param tileNames
+     */
+    protected void prefetch(String[] tileNames) {
+        mPrefetch.clear();
+        Collections.addAll(mPrefetch, tileNames);
+        for (String name : tileNames) {
+            if (null == mBitmapCache.get(name)) {
+                decode(name);
+            }
+        }
+    }
+
     /**
      * Call this from UI thread so that tiles can be flipped without tear
      */
     public void flip() {
-        for (int tilen = 0; tilen < mNumTiles; tilen++) {
-            mapA[tilen] = mapB[tilen];
+        synchronized (mMapLock) {
+            for (int tilen = 0; tilen < mNumTiles; tilen++) {
+                mapA[tilen] = mapB[tilen];
+            }
         }
     }
 
@@ -199,7 +433,27 @@ public class MapBase {
      *
      */
     public void recycleBitmaps() {
+        // queued decodes never run, cancel them so nobody waits on them
+        for (Runnable r : mDecoder.shutdownNow()) {
+            ((Future<?>)r).cancel(false);
+        }
+        mPending.clear();
         clear();
+        mPool.clear();
+    }
+
+    /**
+     * @return number of tiles decoded in reused memory
+     */
+    public long getPoolHits() {
+        return mPool.getHits();
+    }
+
+    /**
+     * @return number of tiles that needed new memory
+     */
+    public long getPoolMisses() {
+        return mPool.getMisses();
     }
 
     /**
@@ -264,9 +518,9 @@ public class MapBase {
     // deal with LRU cache in UI thread, this class will call into UI thread through generic callback when a tile is loaded,
     // then the addInCache will be called by UI thread to add tile in cache, and invalidate view
     // deal with LRU cache in UI thread
-    public void addInCache(BitmapHolder h) {
-        if (mBitmapCache.get(h.getName()) == null) {
-            mBitmapCache.put(h.getName(), h);
+    public void addInCache(String name, BitmapHolder h) {
+        if (mBitmapCache.get(name) == null) {
+            mBitmapCache.put(name, h);
         }
     }
 
@@ -94,8 +94,7 @@ public class MetShape extends Shape {
         int colorArray[] = ctx.context.getResources().getIntArray(R.array.AirSigColor);
         String storeType = ctx.pref.getAirSigMetType();
 
-        for(int i = 0; i < mets.size(); i++) {
-            AirSigMet met = mets.get(i);
+        for(AirSigMet met : mets) {
             int color = 0;
 
             String type = met.hazard + " " + met.reportType;
@@ -126,9 +125,8 @@ public class MetShape extends Shape {
                 if (met.shape.isOld(expiry)) {
                     continue;
                 }
-                if( met.shape.isOnScreen(ctx.origin) ) {
-                    met.shape.drawShape(ctx.canvas, ctx.origin, ctx.scale, ctx.movement, ctx.paint, ctx.pref.isNightMode(), true);
-                }
+                // shapes off screen are skipped in drawShape
+                met.shape.drawShape(ctx.canvas, ctx.origin, ctx.scale, ctx.movement, ctx.paint, ctx.pref.isNightMode(), true);
             }
         }
     }
@@ -12,8 +12,10 @@ Redistribution and use in source and binary forms, with or without modification,
 package com.ds.avare.shapes;
 
 import android.content.Context;
+import android.util.DisplayMetrics;
 
 import com.ds.avare.storage.Preferences;
+import com.ds.avare.utils.Helper;
 
 /**
  * 
@@ -24,13 +26,29 @@ import com.ds.avare.storage.Preferences;
  */
 public class RadarLayer extends Layer {
 
+    private static final int LOOP_FRAMES = 8;
+    private static final int LOOP_BYTES = 1024 * 1024 * 16;
+
     private Preferences mPref;
+    private RadarLoop mLoop;
+    private int mScreenSize;
 
     /**
      * @param ctx
      */
     public RadarLayer(Context ctx) {
         mPref = new Preferences(ctx);
+        mLoop = new RadarLoop(LOOP_FRAMES, LOOP_BYTES);
+        DisplayMetrics dm = ctx.getResources().getDisplayMetrics();
+        mScreenSize = Math.max(dm.widthPixels, dm.heightPixels);
+    }
+
+    /**
+     * Frames of past downloads, when looping radar
+     * @return
+     */
+    public RadarLoop getLoop() {
+        return mLoop;
     }
 
     /**
@@ -40,5 +58,16 @@ public class RadarLayer extends Layer {
         super.parse(
                 mPref.mapsFolder() + "/" + "latest_radaronly",
                 mPref.mapsFolder() + "/" + "latest.txt");
+
+        /*
+         * Keep a frame of each new download for the loop, decoded once here
+         */
+        if(mPref.isRadarLoop()) {
+            addFrame(mLoop, mScreenSize);
+            mLoop.expire(Helper.getMillisGMT(), mPref.getExpiryTime() * 60 * 1000);
+        }
+        else {
+            mLoop.clear();
+        }
      }
 }
\ No newline at end of file
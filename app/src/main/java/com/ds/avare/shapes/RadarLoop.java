@@ -0,0 +1,208 @@
+/*
+Copyright (c) 2015, Apps4Av Inc. (apps4av.com)
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package com.ds.avare.shapes;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import com.ds.avare.position.Origin;
+
+import java.util.LinkedList;
+
+/**
+ * Last few frames of radar, kept decoded at about screen resolution so a loop plays
+ * back without decoding images again.
+ */
+public class RadarLoop {
+
+    private static final int FRAME_TIME = 500; // ms each frame shows
+    private static final int HOLD_FRAMES = 4; // current image shows this many frame times before loop starts over
+
+    /**
+     * Images of one frame. Each image is drawn in horizontal strips stretched between its corners.
+     */
+    private static class Frame {
+        long date;
+        Bitmap bitmaps[];
+        float bounds[]; // lon left, lat top, lon right, lat bottom of each image
+        int strips;
+        int bytes;
+    }
+
+    private LinkedList<Frame> mFrames;
+    private int mMaxFrames;
+    private int mBudget;
+    private int mBytes;
+    private Rect mSrc;
+    private RectF mDst;
+
+    /**
+     * @param frames most frames kept
+     * @param budget bytes of bitmaps at most
+     */
+    public RadarLoop(int frames, int budget) {
+        mFrames = new LinkedList<Frame>();
+        mMaxFrames = frames;
+        mBudget = budget;
+        mBytes = 0;
+        mSrc = new Rect();
+        mDst = new RectF();
+    }
+
+    /**
+     * Add a frame, dropping oldest ones to stay within frame count and budget.
+     * Bitmaps are owned by the loop from here on.
+     * @param date time of radar data, same or older than latest frame is ignored
+     * @param bitmaps
+     * @param bounds lon left, lat top, lon right, lat bottom of each bitmap
+     * @param strips strips each bitmap is drawn in, more for tall images in mercator
+     */
+    public synchronized void add(long date, Bitmap bitmaps[], float bounds[], int strips) {
+        if(null == bitmaps || 0 == bitmaps.length || bounds.length < bitmaps.length * 4
+                || (!mFrames.isEmpty() && mFrames.getLast().date >= date)) {
+            recycle(bitmaps);
+            return;
+        }
+        Frame f = new Frame();
+        f.date = date;
+        f.bitmaps = bitmaps;
+        f.bounds = bounds;
+        f.strips = Math.max(1, strips);
+        for(Bitmap b : bitmaps) {
+            f.bytes += b.getRowBytes() * b.getHeight();
+        }
+        if(f.bytes > mBudget) {
+            recycle(bitmaps);
+            return;
+        }
+        while(!mFrames.isEmpty() && (mFrames.size() >= mMaxFrames || mBytes + f.bytes > mBudget)) {
+            Frame old = mFrames.removeFirst();
+            mBytes -= old.bytes;
+            recycle(old.bitmaps);
+        }
+        mFrames.add(f);
+        mBytes += f.bytes;
+    }
+
+    private static void recycle(Bitmap bitmaps[]) {
+        if(null == bitmaps) {
+            return;
+        }
+        for(Bitmap b : bitmaps) {
+            if(null != b) {
+                b.recycle();
+            }
+        }
+    }
+
+    /**
+     * Drop frames older than expiry
+     * @param now
+     * @param expiry ms
+     */
+    public synchronized void expire(long now, long expiry) {
+        while(!mFrames.isEmpty() && now - mFrames.getFirst().date > expiry) {
+            Frame old = mFrames.removeFirst();
+            mBytes -= old.bytes;
+            recycle(old.bitmaps);
+        }
+    }
+
+    /**
+     *
+     */
+    public synchronized void clear() {
+        for(Frame f : mFrames) {
+            recycle(f.bitmaps);
+        }
+        mFrames.clear();
+        mBytes = 0;
+    }
+
+    /**
+     * @return frames in loop
+     */
+    public synchronized int getFrames() {
+        return mFrames.size();
+    }
+
+    /**
+     * Time of latest frame
+     * @return 0 if none
+     */
+    public synchronized long getLatest() {
+        return mFrames.isEmpty() ? 0 : mFrames.getLast().date;
+    }
+
+    /**
+     * Draw the frame that shows at this time, oldest to latest. After the frames, the
+     * current image is held for a while, which the caller draws as usual.
+     * @param canvas
+     * @param paint
+     * @param origin
+     * @param now ms of clock driving the loop
+     * @param current time of current image, frames as new are not played
+     * @return time of radar data drawn, 0 if caller should draw the current image
+     */
+    public synchronized long draw(Canvas canvas, Paint paint, Origin origin, long now, long current) {
+        int count = mFrames.size();
+        while(count > 0 && mFrames.get(count - 1).date >= current) {
+            count--;
+        }
+        if(0 == count) {
+            return 0;
+        }
+        int index = (int)((now / FRAME_TIME) % (count + HOLD_FRAMES));
+        if(index >= count) {
+            return 0;
+        }
+        Frame f = mFrames.get(index);
+
+        for(int i = 0; i < f.bitmaps.length; i++) {
+            Bitmap b = f.bitmaps[i];
+            if(b.isRecycled()) {
+                continue;
+            }
+            float x0 = (float)origin.getOffsetX(f.bounds[i * 4]);
+            float x1 = (float)origin.getOffsetX(f.bounds[i * 4 + 2]);
+            float latU = f.bounds[i * 4 + 1];
+            float latD = f.bounds[i * 4 + 3];
+            int h = b.getHeight();
+            for(int s = 0; s < f.strips; s++) {
+                int top = h * s / f.strips;
+                int bottom = h * (s + 1) / f.strips;
+                mDst.set(x0,
+                        (float)origin.getOffsetY(latU + (latD - latU) * top / h),
+                        x1,
+                        (float)origin.getOffsetY(latU + (latD - latU) * bottom / h));
+                if(canvas.quickReject(mDst, Canvas.EdgeType.BW)) {
+                    continue;
+                }
+                mSrc.set(0, top, b.getWidth(), bottom);
+                canvas.drawBitmap(b, mSrc, mDst, paint);
+            }
+        }
+        return f.date;
+    }
+
+    /**
+     * @return ms until the next frame shows, to schedule a redraw
+     */
+    public static long getNextFrameDelay(long now) {
+        return FRAME_TIME - now % FRAME_TIME;
+    }
+}
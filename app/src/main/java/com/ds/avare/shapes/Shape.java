@@ -14,9 +14,9 @@ package com.ds.avare.shapes;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 
 import com.ds.avare.place.Plan;
-import com.ds.avare.position.Coordinate;
 import com.ds.avare.position.Movement;
 import com.ds.avare.position.Origin;
 import com.ds.avare.position.Scale;
@@ -25,17 +25,27 @@ import com.sromku.polygon.Point;
 import com.sromku.polygon.Polygon;
 import com.sromku.polygon.Polygon.Builder;
 
+import java.util.Arrays;
 import java.util.Date;
-import java.util.LinkedList;
 
 /**
  * @author zkhan
  * @author plinel
  *
  */
-public abstract class Shape {
+public abstract class Shape implements Bounded {
 
-    protected LinkedList<Coordinate> mCoords;
+    private static final int FLAG_SEPARATE = 1;
+    private static final int INITIAL_COORDS = 16;
+
+    /*
+     * Packed coordinates, mCount valid
+     */
+    protected double mLon[];
+    protected double mLat[];
+    protected int mSegment[];
+    protected int mFlags[];
+    protected int mCount;
     protected double mLonMin;
     protected double mLonMax;
     protected double mLatMin;
@@ -47,12 +57,39 @@ public abstract class Shape {
     private Polygon mPoly;
 
     private Date mDate;
+
+    /*
+     * Projected points and lines, reused every draw
+     */
+    private float mX[];
+    private float mY[];
+    private float mPts[];
+
+    /*
+     * Douglas-Peucker levels, level k has the coordinates needed at tolerance LOD_TOLERANCE * LOD_STEP^k degrees.
+     * Made on first draw after coordinates change.
+     */
+    private static final double LOD_TOLERANCE = 0.0005;
+    private static final double LOD_STEP = 4;
+    private static final int LOD_LEVELS = 7;
+    private static final int LOD_MIN_COORDS = 32;
+    private int mLevels[][];
+    private int mLevelSizes[];
+
+    /*
+     * Clip of canvas being drawn, shapes are drawn on UI thread only
+     */
+    private static final Rect mClip = new Rect();
     
     /**
      * 
      */
     public Shape(String label, Date date) {
-        mCoords = new LinkedList<Coordinate>();
+        mLon = new double[INITIAL_COORDS];
+        mLat = new double[INITIAL_COORDS];
+        mSegment = new int[INITIAL_COORDS];
+        mFlags = new int[INITIAL_COORDS];
+        mCount = 0;
         mLonMin = 180;
         mLonMax = -180;
         mLatMin = 180;
@@ -91,13 +128,20 @@ public abstract class Shape {
     }
     
     public void add(double lon, double lat, boolean issep, int segment) {
-        Coordinate c = new Coordinate(lon, lat);
-        if(issep) {
-            c.makeSeparate();
+        if(mCount == mLon.length) {
+            int size = mCount * 2;
+            mLon = Arrays.copyOf(mLon, size);
+            mLat = Arrays.copyOf(mLat, size);
+            mSegment = Arrays.copyOf(mSegment, size);
+            mFlags = Arrays.copyOf(mFlags, size);
         }
-        c.setSegment(segment);
-        
-        mCoords.add(c);
+        mLon[mCount] = lon;
+        mLat[mCount] = lat;
+        mSegment[mCount] = segment;
+        mFlags[mCount] = issep ? FLAG_SEPARATE : 0;
+        mCount++;
+        mLevels = null;
+
         mPolyBuilder.addVertex(new Point((float)lon, (float)lat));
         
         /*
@@ -117,9 +161,154 @@ public abstract class Shape {
         }
     }
 
+    /**
+     * Remove all coordinates, storage is kept
+     */
+    protected void clear() {
+        mCount = 0;
+        mLevels = null;
+        mLonMin = 180;
+        mLonMax = -180;
+        mLatMin = 180;
+        mLatMax = -180;
+    }
+
+    /**
+     * @param coord
+     * @return
+     */
+    public boolean isSeparate(int coord) {
+        return (mFlags[coord] & FLAG_SEPARATE) != 0;
+    }
+
     public void drawShape(Canvas c, Origin origin, Scale scale, Movement movement, Paint paint, boolean night, boolean drawTrack) {
     	drawShape(c, origin, scale,movement,paint,night, drawTrack, null);
     }
+
+    /**
+     * Project coordinates to screen once in mX, mY
+     * @param index coordinates to project, null for all
+     * @param count
+     */
+    private void project(Origin origin, int index[], int count) {
+        if(null == mX || mX.length < count) {
+            mX = new float[mLon.length];
+            mY = new float[mLon.length];
+        }
+        for(int i = 0; i < count; i++) {
+            int coord = null == index ? i : index[i];
+            mX[i] = (float)origin.getOffsetX(mLon[coord]);
+            mY[i] = (float)origin.getOffsetY(mLat[coord]);
+        }
+    }
+
+    /**
+     * Find for every coordinate the largest tolerance at which Douglas-Peucker keeps it, then
+     * make index lists for each level.
+     */
+    private void makeLevels() {
+        int n = mCount;
+        double keep[] = new double[n];
+        keep[0] = Double.MAX_VALUE;
+        keep[n - 1] = Double.MAX_VALUE;
+
+        // latitude in units of longitude so distances match the screen in mercator
+        double c = Math.cos(Math.toRadians((mLatMax + mLatMin) / 2));
+        double latScale = c > 0.01 ? 1 / c : 100;
+
+        int stack[] = new int[n * 2];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while(top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            if(last - first < 2) {
+                continue;
+            }
+            double x0 = mLon[first];
+            double y0 = mLat[first] * latScale;
+            double dx = mLon[last] - x0;
+            double dy = mLat[last] * latScale - y0;
+            double len = dx * dx + dy * dy;
+            double max = -1;
+            int farthest = first + 1;
+            for(int i = first + 1; i < last; i++) {
+                double px = mLon[i] - x0;
+                double py = mLat[i] * latScale - y0;
+                double d;
+                if(len > 0) {
+                    double cross = px * dy - py * dx;
+                    d = cross * cross / len;
+                }
+                else {
+                    d = px * px + py * py;
+                }
+                if(d > max) {
+                    max = d;
+                    farthest = i;
+                }
+            }
+            // a point never stays beyond where the segment it split away goes
+            keep[farthest] = Math.min(Math.sqrt(max), Math.min(keep[first], keep[last]));
+            stack[top++] = first;
+            stack[top++] = farthest;
+            stack[top++] = farthest;
+            stack[top++] = last;
+        }
+
+        mLevels = new int[LOD_LEVELS][];
+        mLevelSizes = new int[LOD_LEVELS];
+        double tolerance = LOD_TOLERANCE;
+        for(int level = 0; level < LOD_LEVELS; level++) {
+            int index[] = new int[n];
+            int size = 0;
+            for(int i = 0; i < n; i++) {
+                if(keep[i] >= tolerance || isSeparate(i)) {
+                    index[size++] = i;
+                }
+            }
+            mLevels[level] = index;
+            mLevelSizes[level] = size;
+            tolerance *= LOD_STEP;
+        }
+    }
+
+    /**
+     * @return level for what a pixel is on screen now, -1 for all coordinates
+     */
+    private int getLevel(Origin origin) {
+        if(mCount < LOD_MIN_COORDS) {
+            return -1;
+        }
+        double pixel = Math.abs(origin.getLongitudeOf(1) - origin.getLongitudeOf(0));
+        int level = -1;
+        double tolerance = LOD_TOLERANCE;
+        while(level < LOD_LEVELS - 1 && tolerance <= pixel) {
+            level++;
+            tolerance *= LOD_STEP;
+        }
+        return level;
+    }
+
+    /**
+     * Lines for coordinates from..to (inclusive) in mPts
+     * @return number of floats
+     */
+    private int makeLines(int from, int to) {
+        int size = (to - from) * 4;
+        if(null == mPts || mPts.length < size) {
+            mPts = new float[Math.max(size, mLon.length * 4)];
+        }
+        int i = 0;
+        for(int coord = from; coord < to; coord++) {
+            mPts[i++] = mX[coord];
+            mPts[i++] = mY[coord];
+            mPts[i++] = mX[coord + 1];
+            mPts[i++] = mY[coord + 1];
+        }
+        return i;
+    }
     
     /**
      * This will draw the closed shape in canvas with given screen params
@@ -139,76 +328,71 @@ public abstract class Shape {
          */
         float width = paint.getStrokeWidth();
         int color = paint.getColor();
+
+        if(mCount < 1 || (!isOnScreen(origin, c))) {
+            return;
+        }
         
         // TrackShape type is used for a flight plan destination
         if (this instanceof TrackShape) {
+            project(origin, null, mCount);
             
             /*
              * Draw background on track shapes, so draw twice
              */
-        	int cMax = getNumCoords();
-            for(int coord = 0; coord < (cMax - 1); coord++) {
-                float x1 = (float)origin.getOffsetX(mCoords.get(coord).getLongitude());
-                float x2 = (float)origin.getOffsetX(mCoords.get(coord + 1).getLongitude());
-                float y1 = (float)origin.getOffsetY(mCoords.get(coord).getLatitude());
-                float y2 = (float)origin.getOffsetY(mCoords.get(coord + 1).getLatitude());;
-
-                if(drawTrack) {
-	                paint.setStrokeWidth(width + 4);
-	                paint.setColor(night? Color.WHITE : Color.BLACK);
-	                c.drawLine(x1, y1, x2, y2, paint);
-	                paint.setStrokeWidth(width);
-
-	                if(null == plan) {
-	                	paint.setColor(color);
-	                } else {
-	                	paint.setColor(TrackShape.getLegColor(plan, mCoords.get(coord).getLeg()));
-	                }
-
-	                c.drawLine(x1, y1, x2, y2, paint);
-                }
+            if(drawTrack && mCount > 1) {
+                int n = makeLines(0, mCount - 1);
+                paint.setStrokeWidth(width + 4);
+                paint.setColor(night? Color.WHITE : Color.BLACK);
+                c.drawLines(mPts, 0, n, paint);
+                paint.setStrokeWidth(width);
 
-				if(mCoords.get(coord + 1).isSeparate()) {
-                    paint.setColor(night? Color.WHITE : Color.BLACK);
-                    c.drawCircle(x2, y2, width + 8, paint);
-                    paint.setColor(Color.GREEN);
-                    c.drawCircle(x2, y2, width + 6, paint);
+                if(null == plan) {
                     paint.setColor(color);
+                    c.drawLines(mPts, 0, n, paint);
+                }
+                else {
+                    /*
+                     * One batch per run of same leg color
+                     */
+                    int start = 0;
+                    for(int coord = 1; coord < mCount; coord++) {
+                        if(coord == mCount - 1 || mSegment[coord] != mSegment[start]) {
+                            paint.setColor(TrackShape.getLegColor(plan, mSegment[start]));
+                            c.drawLines(mPts, start * 4, (coord - start) * 4, paint);
+                            start = coord;
+                        }
+                    }
                 }
-                if(mCoords.get(coord).isSeparate()) {
+                paint.setColor(color);
+            }
+
+            for(int coord = 0; coord < mCount; coord++) {
+                if(isSeparate(coord)) {
                     paint.setColor(night? Color.WHITE : Color.BLACK);
-                    c.drawCircle(x1, y1, width + 8, paint);
+                    c.drawCircle(mX[coord], mY[coord], width + 8, paint);
                     paint.setColor(Color.GREEN);
-                    c.drawCircle(x1, y1, width + 6, paint);
+                    c.drawCircle(mX[coord], mY[coord], width + 6, paint);
                     paint.setColor(color);
                 }
             }
         } else {
             /*
-             * Draw the shape segment by segment
+             * Draw the shape segment by segment, in one call, with detail smaller than a pixel left out
              */
-            if(getNumCoords() > 0) {
-                float pts[] = new float[(getNumCoords()) * 4];
-                int i = 0;
-                int coord = 0;
-                float x1 = (float) origin.getOffsetX(mCoords.get(coord).getLongitude());
-                float y1 = (float) origin.getOffsetY(mCoords.get(coord).getLatitude());
-                float x2;
-                float y2;
-
-                for (coord = 1; coord < getNumCoords(); coord++) {
-                    x2 = (float) origin.getOffsetX(mCoords.get(coord).getLongitude());
-                    y2 = (float) origin.getOffsetY(mCoords.get(coord).getLatitude());
-
-                    pts[i++] = x1;
-                    pts[i++] = y1;
-                    pts[i++] = x2;
-                    pts[i++] = y2;
-
-                    x1 = x2;
-                    y1 = y2;
+            int level = getLevel(origin);
+            int count = mCount;
+            int index[] = null;
+            if(level >= 0) {
+                if(null == mLevels) {
+                    makeLevels();
                 }
-                c.drawLines(pts, paint);
+                index = mLevels[level];
+                count = mLevelSizes[level];
+            }
+            project(origin, index, count);
+            if(count > 1) {
+                c.drawLines(mPts, 0, makeLines(0, count - 1), paint);
             }
         }
     }
@@ -230,12 +414,29 @@ public abstract class Shape {
 
     }
 
+    /*
+     * Determine if shape is in the part of canvas being drawn. Clip is in canvas coordinates
+     * so it covers corners of a rotated canvas, and the margin of an offscreen canvas.
+     */
+    public boolean isOnScreen(Origin origin, Canvas c) {
+        c.getClipBounds(mClip);
+
+        double maxLatScreen = origin.getLatitudeOf(mClip.top);
+        double minLatScreen = origin.getLatitudeOf(mClip.bottom);
+        double minLonScreen = origin.getLongitudeOf(mClip.left);
+        double maxLonScreen = origin.getLongitudeOf(mClip.right);
+
+        boolean isInLat = mLatMin < maxLatScreen && mLatMax > minLatScreen;
+        boolean isInLon = mLonMin < maxLonScreen && mLonMax > minLonScreen;
+        return isInLat && isInLon;
+    }
+
     /**
      * 
      * @return
      */
     public int getNumCoords() {
-        return mCoords.size();
+        return mCount;
     }
 
     /**
@@ -245,6 +446,40 @@ public abstract class Shape {
     public double getLatitudeMinimum() {
         return mLatMin;
     }
+
+    /**
+     *
+     * @return
+     */
+    public double getLatitudeMaximum() {
+        return mLatMax;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public double getLongitudeMinimum() {
+        return mLonMin;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public double getLongitudeMaximum() {
+        return mLonMax;
+    }
+
+    /**
+     * Cheap check before a polygon test
+     * @param lon
+     * @param lat
+     * @return
+     */
+    public boolean isInBounds(double lon, double lat) {
+        return lon >= mLonMin && lon <= mLonMax && lat >= mLatMin && lat <= mLatMax;
+    }
     
     /**
      * 
@@ -256,6 +491,9 @@ public abstract class Shape {
         if(null == mPoly) {
             return null;
         }
+        if(!isInBounds(lon, lat)) {
+            return null;
+        }
         if(mPoly.contains(new Point((float)lon, (float)lat))) {
             return mText;
         }
@@ -114,15 +114,13 @@ public class ShapeFileShape extends Shape {
             ctx.paint.setStrokeWidth(3 * ctx.dip2pix);
             ctx.paint.setShadowLayer(0, 0, 0, 0);
 
-            for (int shape = 0; shape < shapes.size(); shape++) {
-                Shape todraw = shapes.get(shape);
+            for (Shape todraw : shapes) {
                 if (null == todraw) {
                     continue;
                 }
                 ctx.paint.setColor(Color.BLUE);
-                if (todraw.isOnScreen(ctx.origin)) {
-                    todraw.drawShape(ctx.canvas, ctx.origin, ctx.scale, ctx.movement, ctx.paint, ctx.pref.isNightMode(), true);
-                }
+                // shapes off screen are skipped in drawShape
+                todraw.drawShape(ctx.canvas, ctx.origin, ctx.scale, ctx.movement, ctx.paint, ctx.pref.isNightMode(), true);
             }
         }
     }
@@ -0,0 +1,122 @@
+/*
+Copyright (c) 2012, Apps4Av Inc. (apps4av.com) 
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.ds.avare.shapes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+
+/**
+ * Uniform grid over bounding boxes of shapes so a point lookup only ray casts shapes whose box
+ * covers the cell of the point. Shapes must not change after the index is made.
+ */
+public class ShapeIndex<T extends Bounded> {
+
+    private static final int MAX_SIDE = 64;
+
+    private double mLonMin;
+    private double mLatMin;
+    private double mCellLon;
+    private double mCellLat;
+    private int mCols;
+    private int mRows;
+    private ArrayList<ArrayList<T>> mCells;
+
+    /**
+     * @param shapes
+     */
+    public ShapeIndex(Collection<T> shapes) {
+        double lonMin = 180;
+        double lonMax = -180;
+        double latMin = 90;
+        double latMax = -90;
+        int count = 0;
+        for(T s : shapes) {
+            if(null == s || s.getLongitudeMinimum() > s.getLongitudeMaximum()) {
+                continue;
+            }
+            lonMin = Math.min(lonMin, s.getLongitudeMinimum());
+            lonMax = Math.max(lonMax, s.getLongitudeMaximum());
+            latMin = Math.min(latMin, s.getLatitudeMinimum());
+            latMax = Math.max(latMax, s.getLatitudeMaximum());
+            count++;
+        }
+
+        /*
+         * About one cell per shape, shaped like the area covered
+         */
+        double width = Math.max(lonMax - lonMin, 1e-6);
+        double height = Math.max(latMax - latMin, 1e-6);
+        double side = Math.sqrt(Math.max(count, 1) / (width * height));
+        mCols = (int)Math.max(1, Math.min(MAX_SIDE, Math.ceil(width * side)));
+        mRows = (int)Math.max(1, Math.min(MAX_SIDE, Math.ceil(height * side)));
+        mLonMin = lonMin;
+        mLatMin = latMin;
+        mCellLon = width / mCols;
+        mCellLat = height / mRows;
+
+        mCells = new ArrayList<ArrayList<T>>(mCols * mRows);
+        for(int i = 0; i < mCols * mRows; i++) {
+            mCells.add(null);
+        }
+        for(T s : shapes) {
+            if(null == s || s.getLongitudeMinimum() > s.getLongitudeMaximum()) {
+                continue;
+            }
+            int c0 = col(s.getLongitudeMinimum());
+            int c1 = col(s.getLongitudeMaximum());
+            int r0 = row(s.getLatitudeMinimum());
+            int r1 = row(s.getLatitudeMaximum());
+            for(int r = r0; r <= r1; r++) {
+                for(int c = c0; c <= c1; c++) {
+                    int cell = r * mCols + c;
+                    ArrayList<T> list = mCells.get(cell);
+                    if(null == list) {
+                        list = new ArrayList<T>(2);
+                        mCells.set(cell, list);
+                    }
+                    list.add(s);
+                }
+            }
+        }
+    }
+
+    private int col(double lon) {
+        int c = (int)((lon - mLonMin) / mCellLon);
+        return Math.max(0, Math.min(mCols - 1, c));
+    }
+
+    private int row(double lat) {
+        int r = (int)((lat - mLatMin) / mCellLat);
+        return Math.max(0, Math.min(mRows - 1, r));
+    }
+
+    /**
+     * Shapes whose bounding box has this point, in the order they were given
+     * @param lon
+     * @param lat
+     * @return
+     */
+    public LinkedList<T> find(double lon, double lat) {
+        LinkedList<T> ret = new LinkedList<T>();
+        ArrayList<T> list = mCells.get(row(lat) * mCols + col(lon));
+        if(null == list) {
+            return ret;
+        }
+        for(T s : list) {
+            if(s.isInBounds(lon, lat)) {
+                ret.add(s);
+            }
+        }
+        return ret;
+    }
+}
@@ -15,6 +15,7 @@ package com.ds.avare.shapes;
 
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 
 import com.ds.avare.place.GameTFR;
 import com.ds.avare.position.LabelCoordinate;
@@ -62,12 +63,17 @@ public class TFRShape extends Shape {
             ctx.paint.setShadowLayer(0, 0, 0, 0);
             Paint.Style style = ctx.paint.getStyle();
             ctx.paint.setStyle(Paint.Style.STROKE);
+            Rect clip = ctx.canvas.getClipBounds();
             for (int shape = 0; shape < GameTFR.GAME_TFR_COORDS.length; shape++) {
                 double lat = GameTFR.GAME_TFR_COORDS[shape][0];
                 double lon = GameTFR.GAME_TFR_COORDS[shape][1];
                 float x = (float) ctx.origin.getOffsetX(lon);
                 float y = (float) ctx.origin.getOffsetY(lat);
                 float radius = ctx.origin.getPixelsInNmAtLatitude(GameTFR.RADIUS_NM, lat);
+                if(x + radius < clip.left || y + radius < clip.top || x - radius > clip.right || y - radius > clip.bottom) {
+                    // not on screen
+                    continue;
+                }
                 ctx.canvas.drawCircle(x, y, radius, ctx.paint);
             }
             ctx.paint.setStyle(style);
@@ -115,17 +121,15 @@ public class TFRShape extends Shape {
             ctx.paint.setStrokeWidth(3 * ctx.dip2pix);
             ctx.paint.setShadowLayer(0, 0, 0, 0);
 
-            for(int shape = 0; shape < shapes.size(); shape++) {
-                Shape todraw = shapes.get(shape);
+            for(Shape todraw : shapes) {
                 if(null == todraw) {
                     continue;
                 }
                 if (todraw.isOld(expiry)) {
                     continue;
                 }
-                if(todraw.isOnScreen(ctx.origin) ) {
-                    todraw.drawShape(ctx.canvas, ctx.origin, ctx.scale, ctx.movement, ctx.paint, ctx.pref.isNightMode(), true);
-                }
+                // shapes off screen are skipped in drawShape
+                todraw.drawShape(ctx.canvas, ctx.origin, ctx.scale, ctx.movement, ctx.paint, ctx.pref.isNightMode(), true);
             }
         }
 
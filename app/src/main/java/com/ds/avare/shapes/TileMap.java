@@ -23,6 +23,10 @@ import com.ds.avare.utils.BitmapHolder;
 import com.ds.avare.utils.GenericCallback;
 import com.ds.avare.utils.Helper;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
 
 /**
  * 
@@ -33,6 +37,12 @@ public class TileMap extends MapBase {
 
 
     private static final int SIZE = BitmapHolder.HEIGHT * BitmapHolder.WIDTH * 2; // RGB565 = 2
+
+    /*
+     * Prefetch tiles ahead of us when moving faster than this, in knots
+     */
+    private static final double PREFETCH_SPEED = 30;
+    private static final double PREFETCH_COMPONENT = 0.38; // sin 22.5
     private int mNumShowing;
 
     /**
@@ -44,8 +54,8 @@ public class TileMap extends MapBase {
         mTileTask = null;
     }
 
-    public void reload(String[] tileNames, GenericCallback c) {
-        mNumShowing = super.reloadMap(tileNames, c);
+    public void reload(String[] tileNames) {
+        mNumShowing = super.reloadMap(tileNames);
     }
 
     private AsyncTask mTileTask;
@@ -66,7 +76,7 @@ public class TileMap extends MapBase {
      * Function that loads new tiles in background
      *
      */
-    public void loadTiles(final double lon, final double lat, final Pan panIn, final float macro, final Scale scale, final double bearing, final GenericCallback callbackDone) {
+    public void loadTiles(final double lon, final double lat, final Pan panIn, final float macro, final Scale scale, final double bearing, final double speed, final GenericCallback callbackDone) {
 
         if(mTileTask != null && mTileTask.getStatus() == AsyncTask.Status.RUNNING) {
             mTileTask.cancel(true);
@@ -79,6 +89,7 @@ public class TileMap extends MapBase {
             int     movey;
             float factor;
             String   tileNames[];
+            String   prefetchNames[];
             Tile centerTile;
             Tile gpsTile;
             String chart = "";
@@ -135,6 +146,8 @@ public class TileMap extends MapBase {
                         tileNames[i++] = centerTile.getTileNeighbor(tilex, tiley);
                     }
                 }
+
+                prefetchNames = getTilesAhead(centerTile, tx, ty, bearing, speed);
             }
 
             @Override
@@ -143,19 +156,14 @@ public class TileMap extends MapBase {
                 /*
                  * Load tiles, draw in UI thread
                  */
-                reload(tileNames,
-                        // As tiles are loaded, callback to notify us
-                        new GenericCallback() {
-                            @Override
-                            public Object callback(Object o1, Object o2) {
-                                publishProgress(o1, o2);
-                                return null;
-                            }
-                        }
-                );
+                reload(tileNames);
+                if(isCancelled()) {
+                    return null;
+                }
+                prefetch(prefetchNames);
                 if(isChartPartial()) {
                     // If tiles not found, find name of chart we are on to show to user
-                    chart = Boundaries.getInstance().findChartOn(centerTile.getChartIndex(), centerTile.getLongitude(), centerTile.getLatitude());
+                    chart = Boundaries.getInstance(mContext).findChartOn(centerTile.getChartIndex(), centerTile.getLongitude(), centerTile.getLatitude());
                 }
                 TileUpdate t = new TileUpdate();
                 t.movex = movex;
@@ -169,15 +177,6 @@ public class TileMap extends MapBase {
                 return t;
             }
 
-            @Override
-            protected void onProgressUpdate(Object... objs) {
-                // Put in bitmap cache a new loaded tile
-                TileMap t = (TileMap)objs[0];
-                BitmapHolder b = (BitmapHolder)objs[1];
-                t.addInCache(b);
-                // Do we really want to update the location view and show user the tiles being loaded?
-            }
-
             @Override
             protected void onPostExecute(TileUpdate t) {
                 /*
@@ -191,6 +190,71 @@ public class TileMap extends MapBase {
         }.execute(null, null, null);
     }
 
+    /**
+     * Find the ring of tiles just outside the loaded set in the direction of travel
+     *
+     * @param center
+     * @param tx half width of loaded tiles
+     * @param ty half height of loaded tiles
+     * @param bearing
+     * @param speed
+     * @return
+     */
+    private String[] getTilesAhead(Tile center, int tx, int ty, double bearing, double speed) {
+        if(speed < PREFETCH_SPEED) {
+            return new String[0];
+        }
+        final double east = Math.sin(Math.toRadians(bearing));
+        final double north = Math.cos(Math.toRadians(bearing));
+        int dx = east > PREFETCH_COMPONENT ? 1 : (east < -PREFETCH_COMPONENT ? -1 : 0);
+        int dy = north > PREFETCH_COMPONENT ? 1 : (north < -PREFETCH_COMPONENT ? -1 : 0);
+
+        // col, row of each tile ahead
+        ArrayList<int[]> ahead = new ArrayList<int[]>();
+        if(dx != 0) {
+            for(int tiley = -ty; tiley <= ty; tiley++) {
+                ahead.add(new int[] {dx * (tx + 1), tiley});
+            }
+        }
+        if(dy != 0) {
+            for(int tilex = -tx; tilex <= tx; tilex++) {
+                ahead.add(new int[] {tilex, dy * (ty + 1)});
+            }
+        }
+        if(dx != 0 && dy != 0) {
+            ahead.add(new int[] {dx * (tx + 1), dy * (ty + 1)});
+        }
+
+        /*
+         * Ones straight ahead first
+         */
+        Collections.sort(ahead, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return Double.compare(
+                        angle(b[0], b[1], east, north),
+                        angle(a[0], a[1], east, north));
+            }
+        });
+
+        /*
+         * Keep prefetch within overhead so it does not push out tiles being shown
+         */
+        int num = Math.min(ahead.size(), getOverhead() / 2);
+        String names[] = new String[num];
+        for(int i = 0; i < num; i++) {
+            names[i] = center.getTileNeighbor(ahead.get(i)[0], ahead.get(i)[1]);
+        }
+        return names;
+    }
+
+    /**
+     * Cosine of angle between tile offset and direction of travel
+     */
+    private static double angle(int col, int row, double east, double north) {
+        return (col * east + row * north) / Math.sqrt(col * col + row * row);
+    }
+
     /**
      * Use this with handler to update tiles in UI thread
      * @author zkhan
@@ -90,7 +90,7 @@ public class TrackShape extends Shape {
         Projection p = new Projection(lastLon, lastLat, destLon, destLat);
         int segments = (int) p.getDistance() / MILES_PER_SEGMENT + 3; // Min 3 points
         Coordinate coord[] = p.findPoints(segments);
-        super.mCoords.clear();
+        clear();
         
         /*
          * Now make shape from coordinates with segments
@@ -107,7 +107,7 @@ public class TrackShape extends Shape {
      */
     public void updateShapeFromPlan(Coordinate[] coord) {
 
-        super.mCoords.clear();
+        clear();
 
         if (null == coord) {
             return;
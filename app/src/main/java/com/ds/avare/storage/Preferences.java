@@ -659,6 +659,20 @@ public class Preferences {
         return (mPref.getBoolean(mContext.getString(R.string.ADSBWeather), false));
     }
 
+    /**
+     * @return
+     */
+    public boolean isRadarLoop() {
+        return (mPref.getBoolean(mContext.getString(R.string.RadarLoop), false));
+    }
+
+    /**
+     * @return
+     */
+    public boolean isProfileMap() {
+        return (mPref.getBoolean(mContext.getString(R.string.ProfileMap), false));
+    }
+
     /**
      * @return
      */
@@ -1257,6 +1271,42 @@ public class Preferences {
         return mPref.getString(mContext.getString(R.string.WIFIPort), "4000");
     }
 
+    /**
+     * Capture file to replay, full path or in maps folder, null if none
+     * @return
+     */
+    public String getReplayFile() {
+        String file = mPref.getString(mContext.getString(R.string.ReplayFile), "").trim();
+        if(file.length() == 0) {
+            return null;
+        }
+        if(!file.startsWith("/")) {
+            file = mapsFolder() + "/" + file;
+        }
+        return file;
+    }
+
+    /**
+     * Replay is done once, so forget the file when it starts
+     */
+    public void clearReplayFile() {
+        SharedPreferences.Editor editor = mPref.edit();
+        editor.remove(mContext.getString(R.string.ReplayFile));
+        editor.commit();
+    }
+
+    /**
+     * @return 1 for real time, 0 for as fast as possible
+     */
+    public float getReplaySpeed() {
+        try {
+            return Float.parseFloat(mPref.getString(mContext.getString(R.string.ReplaySpeed), "1"));
+        }
+        catch (Exception e) {
+            return 1;
+        }
+    }
+
     public String getAutopilotBluetoothDevice() {
         return mPref.getString(mContext.getString(R.string.AutopilotBTDevice), BTListPreferenceWithSummary.NONE);
     }
@@ -0,0 +1,96 @@
+/*
+Copyright (c) 2016, Apps4Av Inc. (apps4av.com)
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package com.ds.avare.threed;
+
+import androidx.collection.LruCache;
+
+import com.ds.avare.shapes.SubTile;
+import com.ds.avare.threed.objects.Map;
+import com.ds.avare.utils.BitmapHolder;
+
+/**
+ * Terrain meshes made from elevation sub tiles, by sub tile name and detail, so going back and forth over a tile edge,
+ * or into a tile fetched ahead, swaps buffers instead of decoding images and making meshes again.
+ */
+public class TerrainCache {
+
+    private static final int MESHES = 6; // full detail meshes, about 1.2 MB each
+
+    private LruCache<String, short[]> mCache;
+
+    public TerrainCache() {
+        // sized in shorts as far away meshes are smaller
+        mCache = new LruCache<String, short[]>(MESHES * Map.getNumVertices(1) * Map.COMPONENTS) {
+            @Override
+            protected int sizeOf(String key, short[] value) {
+                return value.length;
+            }
+        };
+    }
+
+    /**
+     * Get full detail mesh of a tile, make if not cached
+     * @param tile elevation sub tile
+     * @param mapsFolder
+     * @return null if elevation tile not found
+     */
+    public short[] get(SubTile tile, String mapsFolder) {
+        return get(tile, mapsFolder, 1);
+    }
+
+    /**
+     * Get mesh of a tile, make if not cached
+     * @param tile elevation sub tile
+     * @param mapsFolder
+     * @param step pixels between vertices
+     * @return null if elevation tile not found
+     */
+    public short[] get(SubTile tile, String mapsFolder, int step) {
+        if(null == tile) {
+            return null;
+        }
+        String name = getKey(tile, step);
+        short vertices[] = mCache.get(name);
+        if(null != vertices) {
+            return vertices;
+        }
+        BitmapHolder b = new BitmapHolder(SubTile.DIM, SubTile.DIM);
+        if(tile.load(b, mapsFolder)) {
+            vertices = Map.genTerrainFromBitmap(b.getBitmap(), step);
+            mCache.put(name, vertices);
+        }
+        b.recycle();
+        return vertices;
+    }
+
+    /**
+     * Make mesh of a tile likely needed next
+     * @param tile
+     * @param mapsFolder
+     */
+    public void prefetch(SubTile tile, String mapsFolder) {
+        if(null == tile || null != mCache.get(getKey(tile, 1))) {
+            return;
+        }
+        get(tile, mapsFolder);
+    }
+
+    private static String getKey(SubTile tile, int step) {
+        return tile.getName() + "/" + step;
+    }
+
+    public void clear() {
+        mCache.evictAll();
+    }
+}
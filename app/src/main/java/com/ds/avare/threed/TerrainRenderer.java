@@ -31,6 +31,10 @@ import com.ds.avare.utils.BitmapHolder;
 import com.ds.avare.utils.GenericCallback;
 import com.ds.avare.utils.Helper;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
@@ -54,19 +58,26 @@ public class TerrainRenderer implements GLSurfaceView.Renderer {
     public static final String SURFACE_CREATED = "SurfaceCreated";
     public static final String DRAW_FRAME = "DrawFrame";
 
+    // terrain patches on each side, center patch is where we are
+    public static final int GRID = 3;
+
     private Context mContext;
 
     private final float[] mProjectionMatrix = new float[16];
     private final float[] mModelMatrix = new float[16];
     private final float[] mViewMatrix = new float[16];
     private final float[] mMVPMatrix = new float[16];
+    private final float[] mPatchMatrix = new float[16];
+    private final float[] mPatchMVPMatrix = new float[16];
     private int mWidth;
     private int mHeight;
     private Camera mCamera;
     private Orientation mOrientation;
 
     private float mAltitude; // current height
-    private Map mMap;
+    private Map mMap; // center patch
+    private Map mPatches[];
+    private Set<String> mPatchNames;
     private Ship mShip;
     private OwnShip mOwnShip;
     private Obstacles mObs;
@@ -78,11 +89,23 @@ public class TerrainRenderer implements GLSurfaceView.Renderer {
     private ColorShaderProgram mColorProgram;
     private GenericCallback mCallback;
 
-    private int mTexture;
+    /**
+     * Data of a terrain patch made off GL thread
+     */
+    public static class Patch {
+        public String name;
+        public int row; // from center patch, -GRID / 2 to GRID / 2
+        public int col;
+        public short vertices[]; // null when renderer already has this patch
+        public BitmapHolder texture;
+        public float ratio;
+    }
 
     public TerrainRenderer(Context ctx, GenericCallback cb) {
         mContext = ctx;
         mCallback = cb;
+        mPatches = new Map[GRID * GRID];
+        mPatchNames = Collections.synchronizedSet(new HashSet<String>());
     }
 
     @Override
@@ -96,7 +119,10 @@ public class TerrainRenderer implements GLSurfaceView.Renderer {
         glEnable(GL_DEPTH_TEST);
         glDepthFunc(GL_LEQUAL);//less or equal, use with DEPTH_BUFFER_BIT
 
+        // old GL objects went with old surface
         mMap = new Map();
+        mPatches = new Map[GRID * GRID];
+        mPatchNames.clear();
         mShip = new Ship();
         mObs = new Obstacles();
         mOwnShip = new OwnShip();
@@ -166,16 +192,24 @@ public class TerrainRenderer implements GLSurfaceView.Renderer {
         Matrix.multiplyMM(mMVPMatrix, 0, mProjectionMatrix, 0, mMVPMatrix, 0);
 
         if(mTextureSet && mMapSet) {
-            // Draw the map.
+            // Draw the map, patch by patch, each moved to its place next to center
             mTextureProgram.useProgram();
-            mTextureProgram.setUniforms(mMVPMatrix, mTexture);
-            mTextureProgram.setUniformsHeight(
-                    (float)Helper.ALTITUDE_FT_ELEVATION_PER_PIXEL_SLOPE,
-                    (float)Helper.ALTITUDE_FT_ELEVATION_PER_PIXEL_INTERCEPT,
-                    mMap.getRatio() / (float)Helper.ALTITUDE_FT_ELEVATION_PLUSZ,
-                    mAltitude);
-            mMap.bindData(mTextureProgram);
-            mMap.draw();
+            for(Map map : mPatches) {
+                if(null == map || 0 == map.getTexture()) {
+                    continue;
+                }
+                Matrix.setIdentityM(mPatchMatrix, 0);
+                Matrix.translateM(mPatchMatrix, 0, map.getOffsetX(), map.getOffsetY(), 0.0f);
+                Matrix.multiplyMM(mPatchMVPMatrix, 0, mMVPMatrix, 0, mPatchMatrix, 0);
+                mTextureProgram.setUniforms(mPatchMVPMatrix, map.getTexture());
+                mTextureProgram.setUniformsHeight(
+                        (float)Helper.ALTITUDE_FT_ELEVATION_PER_PIXEL_SLOPE,
+                        (float)Helper.ALTITUDE_FT_ELEVATION_PER_PIXEL_INTERCEPT,
+                        map.getRatio() / (float)Helper.ALTITUDE_FT_ELEVATION_PLUSZ,
+                        mAltitude);
+                map.bindData(mTextureProgram);
+                map.draw();
+            }
 
             // Draw the ships
             mColorProgram.useProgram();
@@ -194,13 +228,70 @@ public class TerrainRenderer implements GLSurfaceView.Renderer {
         }
     }
 
-    public void setTexture(BitmapHolder b) {
-        mTexture = TextureHelper.loadTexture(b);
-        mTextureSet = mTexture != 0;
+    /**
+     * Is this patch on GPU already so its data need not be made. Call from any thread.
+     * @param name
+     * @return
+     */
+    public boolean hasPatch(String name) {
+        return mPatchNames.contains(name);
     }
 
-    public void setTerrain(short vertexArray[], float ratio) {
-        mMapSet = mMap.loadTerrain(vertexArray, ratio);
+    /**
+     * Show new grid of patches. Patches by same name are kept as they are on GPU, others are loaded,
+     * and those not in grid any more are freed. Call on GL thread.
+     * @param patches
+     */
+    public void setPatches(Patch patches[]) {
+        Map old[] = mPatches;
+        Map grid[] = new Map[GRID * GRID];
+        Set<String> names = new HashSet<String>();
+
+        for(Patch p : patches) {
+            if(null == p) {
+                continue;
+            }
+            int index = (p.row + GRID / 2) * GRID + (p.col + GRID / 2);
+            for(int i = 0; i < old.length; i++) {
+                if(null != old[i] && old[i].getName().equals(p.name)) {
+                    // reuse, it only moves
+                    grid[index] = old[i];
+                    grid[index].setOffset(p.col * 2, -p.row * 2);
+                    old[i] = null;
+                    break;
+                }
+            }
+            if(null == grid[index]) {
+                Map map = new Map(p.name, p.col * 2, -p.row * 2); // patch is 2 units on a side
+                if(map.loadTerrain(p.vertices, p.ratio)) {
+                    map.setTexture(TextureHelper.createTexture(p.texture));
+                }
+                grid[index] = map;
+            }
+            if(null != p.texture) {
+                p.texture.recycle();
+            }
+            if(grid[index].isLoaded()) {
+                names.add(p.name);
+            }
+        }
+
+        // free what went out of view
+        for(Map map : old) {
+            if(null != map) {
+                map.release();
+            }
+        }
+
+        mPatches = grid;
+        mPatchNames.retainAll(names);
+        mPatchNames.addAll(names);
+        mMap = grid[GRID * GRID / 2];
+        if(null == mMap) {
+            mMap = new Map();
+        }
+        mMapSet = mMap.isLoaded();
+        mTextureSet = mMap.getTexture() != 0;
     }
 
     public void setAltitude(float alt) {
@@ -12,13 +12,20 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.ShortBuffer;
 
+import static android.opengl.GLES20.GL_ARRAY_BUFFER;
+import static android.opengl.GLES20.GL_STATIC_DRAW;
 import static android.opengl.GLES20.GL_UNSIGNED_SHORT;
+import static android.opengl.GLES20.glBindBuffer;
+import static android.opengl.GLES20.glBufferData;
+import static android.opengl.GLES20.glDeleteBuffers;
 import static android.opengl.GLES20.glEnableVertexAttribArray;
+import static android.opengl.GLES20.glGenBuffers;
 import static android.opengl.GLES20.glVertexAttribPointer;
 import static com.ds.avare.threed.Constants.BYTES_PER_SHORT;
 
 public class VertexArrayShort {
     private final ShortBuffer shortBuffer;
+    private int mBuffer; // GPU buffer when uploaded
 
     public VertexArrayShort(short[] vertexData) {
         shortBuffer = ByteBuffer
@@ -26,10 +33,46 @@ public class VertexArrayShort {
             .order(ByteOrder.nativeOrder())
             .asShortBuffer()
             .put(vertexData);
+        mBuffer = 0;
+    }
+
+    /**
+     * Copy data to a vertex buffer object once so draws do not send it again. Call on GL thread.
+     */
+    public void upload() {
+        int ids[] = new int[1];
+        glGenBuffers(1, ids, 0);
+        if(ids[0] == 0) {
+            return;
+        }
+        shortBuffer.position(0);
+        glBindBuffer(GL_ARRAY_BUFFER, ids[0]);
+        glBufferData(GL_ARRAY_BUFFER, shortBuffer.capacity() * BYTES_PER_SHORT, shortBuffer, GL_STATIC_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        mBuffer = ids[0];
+    }
+
+    /**
+     * Free vertex buffer object. Call on GL thread.
+     */
+    public void release() {
+        if(mBuffer != 0) {
+            glDeleteBuffers(1, new int[] {mBuffer}, 0);
+            mBuffer = 0;
+        }
     }
         
     public void setVertexAttribPointer(int dataOffset, int attributeLocation,
-        int componentCount, int stride) {        
+        int componentCount, int stride) {
+        if(mBuffer != 0) {
+            glBindBuffer(GL_ARRAY_BUFFER, mBuffer);
+            glVertexAttribPointer(attributeLocation, componentCount, GL_UNSIGNED_SHORT,
+                false, stride, dataOffset * BYTES_PER_SHORT);
+            glEnableVertexAttribArray(attributeLocation);
+            // others draw from client memory
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+            return;
+        }
         shortBuffer.position(dataOffset);
         glVertexAttribPointer(attributeLocation, componentCount, GL_UNSIGNED_SHORT,
             false, stride, shortBuffer);
@@ -45,4 +88,11 @@ public class VertexArrayShort {
         return shortBuffer.get(index);
     }
 
+    /**
+     * @return number of shorts
+     */
+    public int size() {
+        return shortBuffer.capacity();
+    }
+
 }
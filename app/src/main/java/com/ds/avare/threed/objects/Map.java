@@ -14,6 +14,7 @@ import com.ds.avare.shapes.SubTile;
 import com.ds.avare.threed.Constants;
 import com.ds.avare.threed.data.VertexArrayShort;
 import com.ds.avare.threed.programs.TextureShaderProgram;
+import com.ds.avare.threed.util.TextureHelper;
 import com.ds.avare.utils.Helper;
 
 import static android.opengl.GLES20.GL_TRIANGLE_STRIP;
@@ -33,8 +34,30 @@ public class Map {
 
     private VertexArrayShort mVertexArrayShort;
 
+    private int mVertices;
+    private int mTexture;
+    private String mName;
+    private float mOffsetX;
+    private float mOffsetY;
+
     public Map() {
         mRatio = 0;
+        mVertices = 0;
+        mTexture = 0;
+        mName = "";
+    }
+
+    /**
+     * A patch of terrain in a grid of patches
+     * @param name what is in it, same name is same patch
+     * @param offsetX where, in model units, from the center patch
+     * @param offsetY
+     */
+    public Map(String name, float offsetX, float offsetY) {
+        this();
+        mName = name;
+        mOffsetX = offsetX;
+        mOffsetY = offsetY;
     }
 
     public boolean loadTerrain(short vertexArray[], float ratio) {
@@ -42,11 +65,29 @@ public class Map {
         if(null == vertexArray) {
             return false;
         }
+        if(null != mVertexArrayShort) {
+            mVertexArrayShort.release();
+        }
         mVertexArrayShort = new VertexArrayShort(vertexArray);
+        // on GPU once, as terrain does not change till next tile
+        mVertexArrayShort.upload();
+        mVertices = vertexArray.length / COMPONENTS;
         mRatio = ratio;
         return true;
     }
 
+    /**
+     * Free GPU buffer and texture of this patch. Call on GL thread.
+     */
+    public void release() {
+        if(null != mVertexArrayShort) {
+            mVertexArrayShort.release();
+            mVertexArrayShort = null;
+        }
+        TextureHelper.deleteTexture(mTexture);
+        mTexture = 0;
+    }
+
     public void bindData(TextureShaderProgram textureProgram) {
         if(mVertexArrayShort == null) {
             return;
@@ -69,19 +110,19 @@ public class Map {
             return;
         }
 
-        glDrawArrays(GL_TRIANGLE_STRIP, 0, NUM_VERTICES);
+        glDrawArrays(GL_TRIANGLE_STRIP, 0, mVertices);
     }
 
     //http://www.learnopengles.com/android-lesson-eight-an-introduction-to-index-buffer-objects-ibos/ibo_with_degenerate_triangles/
 
     /**
-     * Elevation from vertex buffer
+     * Elevation from vertex buffer, only for a full detail patch
      * @param row
      * @param col
      * @return
      */
     public float getZ(int row, int col, float ratio) {
-        if(mVertexArrayShort == null || row >= ROWS || col >= COLS || row < 0 || col < 0) {
+        if(mVertexArrayShort == null || mVertices != NUM_VERTICES || row >= ROWS || col >= COLS || row < 0 || col < 0) {
             return -1;
         }
         int colp = 0;
@@ -97,17 +138,16 @@ public class Map {
     }
 
     /**
-     * rows, cols must be even
      * @param vertices
      * @param count
      * @param row
      * @param col
-     * @param b
+     * @param pixels all pixels of bitmap, row major
      * @return
      */
-    private static int makeVertix(short vertices[], int count, int row, int col, Bitmap b) {
+    private static int makeVertix(short vertices[], int count, int row, int col, int pixels[]) {
 
-        int px = b.getPixel(col, row) & 0xFF;
+        int px = pixels[row * COLS + col] & 0xFF;
         int pxr = (px / 64) & 0x3F;
         int pxc = px & 0x3F;
 
@@ -125,31 +165,64 @@ public class Map {
      * @return
      */
     public static short[] genTerrainFromBitmap(Bitmap b) {
-        if(null == b) {
+        return genTerrainFromBitmap(b, 1);
+    }
+
+    /**
+     * Rows or cols of a mesh, every step pixels, and always the last one so patches meet at edges
+     * @param step
+     * @return
+     */
+    private static int[] getLines(int step) {
+        int count = (SubTile.DIM - 2) / step + 2;
+        int lines[] = new int[count];
+        for(int i = 0; i < count - 1; i++) {
+            lines[i] = i * step;
+        }
+        lines[count - 1] = SubTile.DIM - 1;
+        return lines;
+    }
+
+    /**
+     * Number of vertices in a mesh
+     * @param step
+     * @return
+     */
+    public static int getNumVertices(int step) {
+        int lines = getLines(step).length;
+        return (lines - 1) * (lines * 2 + 2);
+    }
+
+    /**
+     * Make terrain index buffer from bitmap, with fewer vertices for far away terrain
+     * @param b
+     * @param step 1 for every pixel, 2 for every other pixel, and so on
+     * @return
+     */
+    public static short[] genTerrainFromBitmap(Bitmap b, int step) {
+        if(null == b || step < 1) {
             return null;
         }
-        short vertices[] = new short[NUM_VERTICES * COMPONENTS];
+        // one copy of all pixels instead of a call per pixel
+        int pixels[] = new int[ROWS * COLS];
+        b.getPixels(pixels, 0, COLS, 0, 0, COLS, ROWS);
+
+        int lines[] = getLines(step);
+        short vertices[] = new short[getNumVertices(step) * COMPONENTS];
         int count = 0;
-        int col;
-        int row;
-        for (row = 0; row < (ROWS - 1); row++) {
-            for (col = 0; col < (COLS - 1); col += 2) {
-
-                // 1
-                count = makeVertix(vertices, count, row + 0, col + 0, b);
-                // 6
-                count = makeVertix(vertices, count, row + 1, col + 0, b);
-                // 2
-                count = makeVertix(vertices, count, row + 0, col + 1, b);
-                // 7
-                count = makeVertix(vertices, count, row + 1, col + 1, b);
+        for (int row = 0; row < (lines.length - 1); row++) {
+            int row0 = lines[row];
+            int row1 = lines[row + 1];
+            for (int col : lines) {
+                count = makeVertix(vertices, count, row0, col, pixels);
+                count = makeVertix(vertices, count, row1, col, pixels);
             }
 
-            // degenerate 10
-            count = makeVertix(vertices, count, row + 1, col - 1, b);
+            // degenerate to end this strip
+            count = makeVertix(vertices, count, row1, lines[lines.length - 1], pixels);
 
-            // degenerate 6
-            count = makeVertix(vertices, count, row + 1, 0, b);
+            // degenerate to start next
+            count = makeVertix(vertices, count, row1, 0, pixels);
         }
 
         return vertices;
@@ -158,4 +231,34 @@ public class Map {
     public float getRatio() {
         return mRatio;
     }
+
+    public String getName() {
+        return mName;
+    }
+
+    public float getOffsetX() {
+        return mOffsetX;
+    }
+
+    public float getOffsetY() {
+        return mOffsetY;
+    }
+
+    public void setOffset(float offsetX, float offsetY) {
+        mOffsetX = offsetX;
+        mOffsetY = offsetY;
+    }
+
+    public boolean isLoaded() {
+        return mVertexArrayShort != null;
+    }
+
+    public int getTexture() {
+        return mTexture;
+    }
+
+    public void setTexture(int texture) {
+        TextureHelper.deleteTexture(mTexture);
+        mTexture = texture;
+    }
 }
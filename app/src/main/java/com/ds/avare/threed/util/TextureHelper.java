@@ -38,18 +38,29 @@ public class TextureHelper {
         if(textureObjectIds[0] != 0) {
             glDeleteTextures(1, textureObjectIds, 0);
         }
-        glGenTextures(1, textureObjectIds, 0);
+        textureObjectIds[0] = createTexture(b);
+        return textureObjectIds[0];
+    }
 
-        if (textureObjectIds[0] == 0) {
+    /**
+     * Make a texture that stays till deleteTexture(), for when many are shown
+     * @param b
+     * @return texture ID, 0 if failed
+     */
+    public static int createTexture(BitmapHolder b) {
+        int ids[] = new int[1];
+        glGenTextures(1, ids, 0);
+
+        if (ids[0] == 0) {
             return 0;
         }
 
         if (b == null || b.getBitmap() == null) {
-            glDeleteTextures(1, textureObjectIds, 0);
+            glDeleteTextures(1, ids, 0);
             return 0;
         } 
         // Bind to the texture in OpenGL
-        glBindTexture(GL_TEXTURE_2D, textureObjectIds[0]);
+        glBindTexture(GL_TEXTURE_2D, ids[0]);
 
         // Set filtering: a default must be set, or the texture will be
         // black.
@@ -71,6 +82,15 @@ public class TextureHelper {
         // Unbind from the texture.
         glBindTexture(GL_TEXTURE_2D, 0);
 
-        return textureObjectIds[0];
+        return ids[0];
+    }
+
+    /**
+     * @param texture from createTexture()
+     */
+    public static void deleteTexture(int texture) {
+        if(texture != 0) {
+            glDeleteTextures(1, new int[] {texture}, 0);
+        }
     }
 }
@@ -20,11 +20,14 @@ import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.Rect;
 
+import androidx.collection.LruCache;
+
 import com.ds.avare.position.Origin;
 import com.ds.avare.storage.Preferences;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author zkhan
@@ -55,6 +58,27 @@ public class BitmapHolder {
      */
     private String mName = null;
 
+    /*
+     * Bitmap was taken for reuse by another holder
+     */
+    private boolean mDetached = false;
+
+    /*
+     * File of an image by name without extension, MISSING if there is none.
+     * Tiles at edge of charts are looked for over and over again.
+     */
+    private static final int NAMES = 4096;
+    private static final String MISSING = new String();
+    private static LruCache<String, String> mNames = new LruCache<String, String>(NAMES);
+    private static AtomicLong mLookups = new AtomicLong();
+    private static AtomicLong mHits = new AtomicLong();
+    private static AtomicLong mProbes = new AtomicLong();
+
+    /**
+     * Image of a tile from an archive, till decoded
+     */
+    private byte mData[] = null;
+
 	/**
      *
      */    
@@ -183,6 +207,33 @@ public class BitmapHolder {
 
     private String getName(String name) {
 
+        // tiles packed in an archive need no file look up
+        mData = TileArchive.readTile(name);
+        if(null != mData) {
+            return name;
+        }
+
+        // found before, or known to be missing
+        mLookups.incrementAndGet();
+        String found = mNames.get(name);
+        if(null == found) {
+            found = findName(name);
+            mNames.put(name, found);
+        }
+        else {
+            mHits.incrementAndGet();
+        }
+        if(found != MISSING) {
+            return found;
+        }
+        mWidth = 0;
+        mHeight = 0;
+        mName = null;
+        return null;
+    }
+
+    private static String findName(String name) {
+
         String pngname = name + ".png";
         String webname = name + ".webp";
         String jpgname = name + ".jpg";
@@ -191,21 +242,51 @@ public class BitmapHolder {
 	// jpg is deprecated. For tiles there are many calls. (Limit
 	// the number of filesystem calls which are relatively
 	// expensive.)
+        mProbes.incrementAndGet();
         if( (new File(webname)).exists() ) {
             return webname;
         }
-        else if( (new File(pngname)).exists() ) {
+        mProbes.incrementAndGet();
+        if( (new File(pngname)).exists() ) {
             return pngname;
         }
-        else if( (new File(jpgname)).exists() ) {
+        mProbes.incrementAndGet();
+        if( (new File(jpgname)).exists() ) {
             return jpgname;
         }
-        else {
-            mWidth = 0;
-            mHeight = 0;
-            mName = null;
-            return null;
+        return MISSING;
+    }
+
+    /**
+     * Forget where images were found and which are missing, as when charts are downloaded or deleted
+     */
+    public static void clearNames() {
+        mNames.evictAll();
+    }
+
+    /**
+     * Counts of name look ups, to measure file system probes saved
+     * @return
+     */
+    public static String getNameStats() {
+        return "names " + mLookups.get() + " cached " + mHits.get() + " file probes " + mProbes.get();
+    }
+
+    /**
+     * Decode image found by getName()
+     * @param name
+     * @param opt
+     * @return
+     */
+    private Bitmap decode(String name, BitmapFactory.Options opt) {
+        if(null == mData) {
+            return BitmapFactory.decodeFile(name, opt);
         }
+        Bitmap b = BitmapFactory.decodeByteArray(mData, 0, mData.length, opt);
+        if(null != b) {
+            mData = null;
+        }
+        return b;
     }
 
     /**
@@ -213,19 +294,44 @@ public class BitmapHolder {
      * Get bitmap from a file
      */
     public BitmapHolder(Context context, Preferences pref, String name, int sampleSize) {
+        this(context, pref, name, sampleSize, (Bitmap)null);
+    }
+
+    /**
+     * @param name
+     * @param reuse bitmap to decode in, may be null
+     * Get bitmap from a file, decoding in memory of a bitmap not needed anymore if possible
+     */
+    public BitmapHolder(Context context, Preferences pref, String name, int sampleSize, Bitmap reuse) {
         BitmapFactory.Options opt = new BitmapFactory.Options();
         opt.inPreferredConfig = Bitmap.Config.RGB_565;
         opt.inSampleSize = sampleSize;
+        // so a tile can be decoded in it again when evicted
+        opt.inMutable = true;
 
         name = getName(pref, name);
         if(null == name) {
             return;
         }
 
-        try {
-            mBitmap = BitmapFactory.decodeFile(name, opt);
-        }
-        catch(OutOfMemoryError e) {
+        if(null != reuse) {
+            opt.inBitmap = reuse;
+            try {
+                mBitmap = decode(name, opt);
+            }
+            catch(IllegalArgumentException e) {
+                // cannot reuse for this image, decode in new memory below
+            }
+            catch(OutOfMemoryError e) {
+            }
+            opt.inBitmap = null;
+        }
+        if(null == mBitmap) {
+            try {
+                mBitmap = decode(name, opt);
+            }
+            catch(OutOfMemoryError e) {
+            }
         }
         if(null != mBitmap) {
             mWidth = mBitmap.getWidth();
@@ -252,7 +358,7 @@ public class BitmapHolder {
         }
 
         try {
-            mBitmap = BitmapFactory.decodeFile(name, opt);
+            mBitmap = decode(name, opt);
         }
         catch(OutOfMemoryError e) {
         }
@@ -281,7 +387,7 @@ public class BitmapHolder {
         }
 
         try {
-            mBitmap = BitmapFactory.decodeFile(name, opt);
+            mBitmap = decode(name, opt);
         }
         catch(OutOfMemoryError e){
         }
@@ -312,7 +418,7 @@ public class BitmapHolder {
         }
 
         try {
-            mBitmap = BitmapFactory.decodeFile(name, opt);
+            mBitmap = decode(name, opt);
         }
         catch(OutOfMemoryError e){
         }
@@ -343,7 +449,10 @@ public class BitmapHolder {
         }
 
         try {
-            BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(name, false);
+            BitmapRegionDecoder decoder = null == mData ?
+                    BitmapRegionDecoder.newInstance(name, false) :
+                    BitmapRegionDecoder.newInstance(mData, 0, mData.length, false);
+            mData = null;
             mBitmap = decoder.decodeRegion(r, opt);
         }
         catch(OutOfMemoryError e) {
@@ -405,6 +514,28 @@ public class BitmapHolder {
         mHeight = 0;
     }
     
+    /**
+     * Give up the bitmap without recycling it, so it can be reused
+     * @return
+     */
+    public Bitmap detach() {
+        Bitmap b = mBitmap;
+        mDetached = null != b;
+        mBitmap = null;
+        mCanvas = null;
+        mName = null;
+        mWidth = 0;
+        mHeight = 0;
+        return b;
+    }
+
+    /**
+     * @return true if bitmap was taken with detach()
+     */
+    public boolean isDetached() {
+        return mDetached;
+    }
+
     /**
      * @return
      */
@@ -0,0 +1,94 @@
+/*
+Copyright (c) 2012, Apps4Av Inc. (apps4av.com) 
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package com.ds.avare.utils;
+
+import android.graphics.Bitmap;
+
+import java.util.LinkedList;
+
+/**
+ * @author zkhan
+ * A fixed size pool of same sized bitmaps so tiles can be decoded into memory of evicted tiles
+ * instead of allocating and recycling large bitmaps. Safe to use from any thread.
+ */
+public class BitmapPool {
+
+    private LinkedList<Bitmap> mFree;
+    private int mSize;
+    private long mHits;
+    private long mMisses;
+
+    /**
+     * @param size max bitmaps to keep
+     */
+    public BitmapPool(int size) {
+        mSize = size;
+        mFree = new LinkedList<Bitmap>();
+    }
+
+    /**
+     * @return a bitmap to decode in, or null if none available
+     */
+    public synchronized Bitmap get() {
+        return mFree.poll();
+    }
+
+    /**
+     * Count a decoded tile, missing tiles are not counted
+     * @param reused true if it was decoded in a bitmap from pool
+     */
+    public synchronized void count(boolean reused) {
+        if(reused) {
+            mHits++;
+        }
+        else {
+            mMisses++;
+        }
+    }
+
+    /**
+     * Return a bitmap for reuse
+     * @param b
+     * @return false if pool is full, and caller should recycle the bitmap
+     */
+    public synchronized boolean put(Bitmap b) {
+        if(null == b || b.isRecycled() || !b.isMutable() || mFree.size() >= mSize) {
+            return false;
+        }
+        mFree.add(b);
+        return true;
+    }
+
+    /**
+     * Free all bitmaps in pool
+     */
+    public synchronized void clear() {
+        for(Bitmap b : mFree) {
+            b.recycle();
+        }
+        mFree.clear();
+    }
+
+    /**
+     * @return number of times a bitmap was reused
+     */
+    public synchronized long getHits() {
+        return mHits;
+    }
+
+    /**
+     * @return number of times a new bitmap had to be allocated
+     */
+    public synchronized long getMisses() {
+        return mMisses;
+    }
+}
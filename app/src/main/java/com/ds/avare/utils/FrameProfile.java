@@ -0,0 +1,369 @@
+/*
+Copyright (c) 2017, Apps4Av Inc. (apps4av.com)
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package com.ds.avare.utils;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+import java.io.FileWriter;
+import java.util.Locale;
+
+/**
+ * Opt in timing of each layer drawn on the map, with counts of objects drawn and time between frames.
+ * Times go in fixed size histograms and the summary is formatted in a reused buffer,
+ * so there is no allocation while drawing. Only dump() for export allocates.
+ */
+public class FrameProfile {
+
+    public static final int TILES = 0;
+    public static final int LAYERS = 1;
+    public static final int CAP_GRIDS = 2;
+    public static final int OBSTACLES = 3;
+    public static final int TFR = 4;
+    public static final int SHAPES = 5;
+    public static final int AIRSIGMET = 6;
+    public static final int RUNWAYS = 7;
+    public static final int FAVORITES = 8;
+    public static final int BASE = 9;
+    public static final int DRAWING = 10;
+    public static final int TRAFFIC = 11;
+    public static final int TRACKS = 12;
+    public static final int TRACK = 13;
+    public static final int AIRCRAFT = 14;
+    public static final int WAYPOINTS = 15;
+    public static final int OVERLAYS = 16;
+    public static final int FRAME = 17;
+    public static final int INTERVAL = 18;
+    public static final int MAX = 19;
+
+    private static final String NAMES[] = {
+            "Tiles", "Layers", "CAP Grids", "Obstacles", "TFR", "Shapes", "AIR/SIGMET", "Runways", "Favorites",
+            "Base", "Drawing", "Traffic", "Tracks", "Track", "Aircraft", "Waypoints", "Overlays", "Frame", "Interval"
+    };
+
+    private static final int BINS = 16;
+    private static final long BIN0 = 125000; // ns, upper end of first bin, each next bin is twice as wide
+    private static final long INTERVAL_MAX = 5000000000L; // ns, longer gaps are idle, not frames
+
+    private static final String HEADER = String.format(Locale.US, "%-10s %6s %6s %7s %s", "ms", "avg", "p95", "max", "n/max");
+
+    private long mBins[][];
+    private long mCount[];
+    private long mTotal[];
+    private long mMax[];
+    private int mObjects[];
+    private int mObjectsMax[];
+    private long mLastFrame;
+    private boolean mEnabled;
+
+    private StringBuilder mLine;
+    private char mChars[];
+
+    public FrameProfile() {
+        mBins = new long[MAX][BINS];
+        mCount = new long[MAX];
+        mTotal = new long[MAX];
+        mMax = new long[MAX];
+        mObjects = new int[MAX];
+        mObjectsMax = new int[MAX];
+        mEnabled = false;
+        mLine = new StringBuilder();
+        mChars = new char[64];
+    }
+
+    /**
+     * Turn on or off, turning on starts over
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled) {
+        if(enabled && !mEnabled) {
+            reset();
+        }
+        mEnabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     *
+     */
+    public void reset() {
+        for(int layer = 0; layer < MAX; layer++) {
+            for(int bin = 0; bin < BINS; bin++) {
+                mBins[layer][bin] = 0;
+            }
+            mCount[layer] = mTotal[layer] = mMax[layer] = 0;
+            mObjects[layer] = mObjectsMax[layer] = 0;
+        }
+        mLastFrame = 0;
+    }
+
+    /**
+     * @return time to pass to end(), 0 when not enabled
+     */
+    public long start() {
+        return mEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record time a layer took since start()
+     * @param layer
+     * @param start
+     */
+    public void end(int layer, long start) {
+        if(0 == start) {
+            return;
+        }
+        add(layer, System.nanoTime() - start);
+    }
+
+    /**
+     * Start of a frame, records time from last frame
+     * @return time to pass to end() of FRAME
+     */
+    public long frame() {
+        if(!mEnabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        if(0 != mLastFrame && now - mLastFrame < INTERVAL_MAX) {
+            add(INTERVAL, now - mLastFrame);
+        }
+        mLastFrame = now;
+        return now;
+    }
+
+    /**
+     * Objects drawn by a layer in this frame
+     * @param layer
+     * @param objects
+     */
+    public void count(int layer, int objects) {
+        if(!mEnabled) {
+            return;
+        }
+        mObjects[layer] = objects;
+        if(objects > mObjectsMax[layer]) {
+            mObjectsMax[layer] = objects;
+        }
+    }
+
+    private void add(int layer, long ns) {
+        int bin = 0;
+        long top = BIN0;
+        while(ns >= top && bin < BINS - 1) {
+            top *= 2;
+            bin++;
+        }
+        mBins[layer][bin]++;
+        mCount[layer]++;
+        mTotal[layer] += ns;
+        if(ns > mMax[layer]) {
+            mMax[layer] = ns;
+        }
+    }
+
+    /**
+     * Percentile from histogram, as upper end of bin it falls in
+     * @param layer
+     * @param percent
+     * @return ns
+     */
+    public long getPercentile(int layer, int percent) {
+        long want = (mCount[layer] * percent + 99) / 100;
+        long seen = 0;
+        long top = BIN0;
+        for(int bin = 0; bin < BINS; bin++) {
+            seen += mBins[layer][bin];
+            if(seen >= want && seen > 0) {
+                return Math.min(top, mMax[layer]);
+            }
+            top *= 2;
+        }
+        return mMax[layer];
+    }
+
+    /**
+     * @param layer
+     * @return ns
+     */
+    public long getAverage(int layer) {
+        return 0 == mCount[layer] ? 0 : mTotal[layer] / mCount[layer];
+    }
+
+    private static float ms(long ns) {
+        return ns / 1000000f;
+    }
+
+    /**
+     * Pad what was appended to mLine since start to width, on left to right align
+     * @param start
+     * @param width
+     * @param right
+     */
+    private void pad(int start, int width, boolean right) {
+        while(mLine.length() - start < width) {
+            if(right) {
+                mLine.insert(start, ' ');
+            }
+            else {
+                mLine.append(' ');
+            }
+        }
+    }
+
+    /**
+     * Append ms with two decimals, right aligned
+     * @param ns
+     * @param width
+     */
+    private void appendMs(long ns, int width) {
+        mLine.append(' ');
+        int start = mLine.length();
+        long hundredths = (ns + 5000) / 10000;
+        long fraction = hundredths % 100;
+        mLine.append(hundredths / 100).append('.');
+        if(fraction < 10) {
+            mLine.append('0');
+        }
+        mLine.append(fraction);
+        pad(start, width, true);
+    }
+
+    /**
+     * One line per layer in mLine, average, 95th percentile and max in ms, then objects
+     * @param layer
+     * @return length of line, also copied in mChars
+     */
+    private int line(int layer) {
+        mLine.setLength(0);
+        mLine.append(NAMES[layer]);
+        pad(0, 10, false);
+        appendMs(getAverage(layer), 6);
+        appendMs(getPercentile(layer, 95), 6);
+        appendMs(mMax[layer], 7);
+        mLine.append(' ');
+        int start = mLine.length();
+        mLine.append(mObjects[layer]);
+        pad(start, 6, true);
+        mLine.append('/').append(mObjectsMax[layer]);
+
+        int length = mLine.length();
+        if(length > mChars.length) {
+            mChars = new char[length];
+        }
+        mLine.getChars(0, length, mChars, 0);
+        return length;
+    }
+
+    /**
+     * Draw summary of layers that were timed
+     * @param canvas
+     * @param paint
+     * @param x
+     * @param y top
+     */
+    public void draw(Canvas canvas, Paint paint, float x, float y) {
+        if(!mEnabled) {
+            return;
+        }
+        float h = paint.getTextSize() * 1.2f;
+        int lines = 1;
+        for(int layer = 0; layer < MAX; layer++) {
+            if(mCount[layer] > 0) {
+                lines++;
+            }
+        }
+        int color = paint.getColor();
+        Paint.Style style = paint.getStyle();
+        Paint.Align align = paint.getTextAlign();
+        Typeface face = paint.getTypeface();
+        paint.setTypeface(Typeface.MONOSPACE);
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(0xA0000000);
+        int length = line(FRAME);
+        canvas.drawRect(x, y, x + paint.measureText(mChars, 0, length) + h, y + h * lines + h / 2, paint);
+        paint.setColor(Color.WHITE);
+        paint.setTextAlign(Paint.Align.LEFT);
+        y += h;
+        canvas.drawText(HEADER, x + h / 2, y, paint);
+        for(int layer = 0; layer < MAX; layer++) {
+            if(mCount[layer] > 0) {
+                y += h;
+                length = line(layer);
+                canvas.drawText(mChars, 0, length, x + h / 2, y, paint);
+            }
+        }
+        paint.setColor(color);
+        paint.setStyle(style);
+        paint.setTextAlign(align);
+        paint.setTypeface(face);
+    }
+
+    /**
+     * Summary and histograms as text, bins are upper ends in ms
+     * @return
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(HEADER).append('\n');
+        for(int layer = 0; layer < MAX; layer++) {
+            line(layer);
+            sb.append(mLine).append('\n');
+        }
+        sb.append("\nhistogram");
+        long top = BIN0;
+        for(int bin = 0; bin < BINS; bin++) {
+            sb.append(String.format(Locale.US, ",%.3f", ms(top)));
+            top *= 2;
+        }
+        sb.append('\n');
+        for(int layer = 0; layer < MAX; layer++) {
+            sb.append(NAMES[layer]);
+            for(int bin = 0; bin < BINS; bin++) {
+                sb.append(',').append(mBins[layer][bin]);
+            }
+            sb.append('\n');
+        }
+        sb.append('\n').append(BitmapHolder.getNameStats()).append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Write dump to a file in background
+     * @param file
+     */
+    public void export(final String file) {
+        if(!mEnabled) {
+            return;
+        }
+        final String text = dump();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    FileWriter fw = new FileWriter(file);
+                    fw.write(text);
+                    fw.close();
+                }
+                catch (Exception e) {
+                }
+            }
+        }, "Profile").start();
+    }
+}
@@ -22,6 +22,7 @@ import com.ds.avare.StorageService;
 import com.ds.avare.instruments.CDI;
 import com.ds.avare.instruments.Odometer;
 import com.ds.avare.place.Destination;
+import com.ds.avare.shapes.ElevationCache;
 import com.ds.avare.storage.Preferences;
 
 import java.util.ArrayList;
@@ -112,7 +113,8 @@ public class InfoLines {
     private static final int ID_FLD_SPP = 19;
     private static final int ID_FLD_HDP = 20;
     private static final int ID_FLD_MSP = 21;
-    private static final int ID_FLD_MAX = 22;
+    private static final int ID_FLD_AGL = 22;
+    private static final int ID_FLD_MAX = 23;
     private static final String NOVALUE = "     ";
 
     private static final double TITLE_TO_TEXT_RATIO = 2.5;
@@ -835,6 +837,19 @@ public class InfoLines {
                 }
                 break;
             }
+            case ID_FLD_AGL: {
+                if (mService != null && mService.getGpsParams() != null) {
+                    // tile is loaded in background, invalid till then
+                    double elev = mService.getElevationCache().elevationIfLoaded(
+                            mService.getGpsParams().getLongitude(), mService.getGpsParams().getLatitude());
+                    if(elev == ElevationCache.INVALID) {
+                        break;
+                    }
+                    return Helper.centerString(Helper
+                            .calculateAGLFromMSL(mAltitude, (float) elev), MAX_FIELD_SIZE_IN_CHARS);
+                }
+                break;
+            }
         }
         return NOVALUE;
     }
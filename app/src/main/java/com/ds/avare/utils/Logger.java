@@ -32,6 +32,14 @@ public class Logger {
         mHandler.sendMessage(m);
     }
 
+    /**
+     * Check before building a log string on a busy path
+     * @return
+     */
+    public static boolean isLogging() {
+        return null != mTv;
+    }
+
     /**
      *
      * @param tv
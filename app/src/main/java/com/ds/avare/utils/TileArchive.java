@@ -0,0 +1,466 @@
+/*
+Copyright (c) 2017, Apps4Av Inc. (apps4av.com)
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+    *     * Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+    *
+    *     THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+
+package com.ds.avare.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * Chart tiles of a chart packed in one file, read with one positioned read each.
+ * Placed as tiles/name.tpk in maps folder, next to tiles as loose files, which are looked for when not in an archive.
+ * Downloads are packed with pack() once unzipped.
+ *
+ * Format, big endian:
+ * magic, version, count (ints), then count index entries of key (long), offset (long), length (int)
+ * sorted by key, then tile images (webp, png or jpg as in loose files).
+ * Key is chart index, zoom, x, y of tile name tiles/index/zoom/x/y.
+ */
+public class TileArchive {
+
+    public static final String EXTENSION = ".tpk";
+
+    private static final int MAGIC = 0x41565450; // AVTP
+    private static final int VERSION = 1;
+    private static final int HEADER = 12;
+    private static final int ENTRY = 20;
+
+    // archives by maps folder, found once
+    private static HashMap<String, TileArchive[]> mArchives = new HashMap<String, TileArchive[]>();
+
+    private RandomAccessFile mFile;
+    private FileChannel mChannel;
+    private MappedByteBuffer mIndex;
+    private int mCount;
+
+    /*
+     * Readers of this archive and its owner, file is closed when none is left
+     */
+    private int mUsers = 1;
+
+    /**
+     * Open archive, mapping its index in memory
+     * @param file
+     * @throws IOException if not an archive
+     */
+    public TileArchive(File file) throws IOException {
+        mFile = new RandomAccessFile(file, "r");
+        try {
+            mChannel = mFile.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            if(mChannel.read(header, 0) != HEADER) {
+                throw new IOException("Short archive " + file.getName());
+            }
+            header.flip();
+            if(header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not an archive " + file.getName());
+            }
+            mCount = header.getInt();
+            if(mCount < 0 || HEADER + (long)mCount * ENTRY > mChannel.size()) {
+                throw new IOException("Bad archive index " + file.getName());
+            }
+            mIndex = mChannel.map(FileChannel.MapMode.READ_ONLY, HEADER, (long)mCount * ENTRY);
+        }
+        catch (IOException e) {
+            mFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return tiles in archive
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Key of a tile
+     */
+    public static long getKey(int index, int zoom, int x, int y) {
+        return ((long)(index & 0xFF) << 56) | ((long)(zoom & 0xFF) << 48) | ((long)(x & 0xFFFFFF) << 24) | (y & 0xFFFFFF);
+    }
+
+    /**
+     * Key of a tile from its path, as in tiles/index/zoom/x/y
+     * @param path
+     * @return -1 if not a tile path
+     */
+    public static long getKey(String path) {
+        int start = path.lastIndexOf("tiles/");
+        if(start < 0) {
+            return -1;
+        }
+        int values[] = new int[4];
+        int count = 0;
+        int value = -1;
+        for(int i = start + 6; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if(c == '/') {
+                if(value >= 0) {
+                    if(count == 4) {
+                        return -1;
+                    }
+                    values[count++] = value;
+                }
+                value = -1;
+            }
+            else if(c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+            }
+            else {
+                // extension, or not a tile
+                return -1;
+            }
+        }
+        if(value < 0 || count != 3) {
+            return -1;
+        }
+        return getKey(values[0], values[1], values[2], value);
+    }
+
+    /**
+     * Find index entry
+     * @param key
+     * @return entry number, -1 if not found
+     */
+    private int find(long key) {
+        int lo = 0;
+        int hi = mCount - 1;
+        while(lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = mIndex.getLong(mid * ENTRY);
+            if(k < key) {
+                lo = mid + 1;
+            }
+            else if(k > key) {
+                hi = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param key
+     * @return
+     */
+    public boolean contains(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Read image of a tile
+     * @param key
+     * @return null if not in archive or cannot read
+     */
+    public byte[] read(long key) {
+        int entry = find(key);
+        if(entry < 0) {
+            return null;
+        }
+        long offset = mIndex.getLong(entry * ENTRY + 8);
+        int length = mIndex.getInt(entry * ENTRY + 16);
+        if(length <= 0) {
+            return null;
+        }
+        byte data[] = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            // positioned read is safe from many threads
+            while(buffer.hasRemaining()) {
+                if(mChannel.read(buffer, offset + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+        }
+        catch (IOException e) {
+            return null;
+        }
+        return data;
+    }
+
+    /**
+     * Done with this archive, file is closed once readers are done too
+     */
+    public void close() {
+        release();
+    }
+
+    private synchronized void acquire() {
+        mUsers++;
+    }
+
+    private void release() {
+        synchronized(this) {
+            if(--mUsers > 0) {
+                return;
+            }
+        }
+        try {
+            mFile.close();
+        }
+        catch (IOException e) {
+        }
+    }
+
+    /**
+     * Pack tiles in to an archive
+     * @param out archive file
+     * @param keys keys of tiles
+     * @param files image file of each tile
+     * @throws IOException
+     */
+    public static void write(File out, long keys[], File files[]) throws IOException {
+        Integer order[] = new Integer[keys.length];
+        for(int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        final long k[] = keys;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return k[a] < k[b] ? -1 : (k[a] > k[b] ? 1 : 0);
+            }
+        });
+
+        RandomAccessFile raf = new RandomAccessFile(out, "rw");
+        try {
+            raf.setLength(0);
+            FileChannel channel = raf.getChannel();
+            ByteBuffer index = ByteBuffer.allocate(HEADER + keys.length * ENTRY);
+            index.putInt(MAGIC);
+            index.putInt(VERSION);
+            index.putInt(keys.length);
+            long offset = HEADER + (long)keys.length * ENTRY;
+            // room for index, written last, as images can only be put at end of file
+            channel.write(ByteBuffer.allocate((int)offset), 0);
+            for(Integer i : order) {
+                FileInputStream in = new FileInputStream(files[i]);
+                long length = 0;
+                try {
+                    long size = in.getChannel().size();
+                    while(length < size) {
+                        long n = channel.transferFrom(in.getChannel(), offset + length, size - length);
+                        if(n <= 0) {
+                            throw new IOException("Cannot pack " + files[i].getName());
+                        }
+                        length += n;
+                    }
+                }
+                finally {
+                    in.close();
+                }
+                index.putLong(keys[i]);
+                index.putLong(offset);
+                index.putInt((int)length);
+                offset += length;
+            }
+            index.flip();
+            channel.write(index, 0);
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Order of preference of a tile image, as in BitmapHolder
+     * @param name
+     * @return -1 if not a tile image
+     */
+    private static int getRank(String name) {
+        if(name.endsWith(".webp")) {
+            return 0;
+        }
+        if(name.endsWith(".png")) {
+            return 1;
+        }
+        if(name.endsWith(".jpg")) {
+            return 2;
+        }
+        return -1;
+    }
+
+    /**
+     * Pack loose tiles of a download in to tiles/name.tpk, then remove them.
+     * Files of a download are listed in its manifest, folder/name, after a version line. The archive is listed
+     * there in place of the tiles so deleting the download removes it.
+     * Loose tiles are only removed when archive and manifest are written.
+     * @param folder maps folder
+     * @param name name of download
+     * @return tiles packed
+     * @throws IOException
+     */
+    public static int pack(String folder, String name) throws IOException {
+        File manifest = new File(folder, name);
+        if(!manifest.isFile()) {
+            return 0;
+        }
+        LinkedList<String> keep = new LinkedList<String>();
+        LinkedList<File> loose = new LinkedList<File>();
+        HashMap<Long, String> tiles = new HashMap<Long, String>();
+        BufferedReader br = new BufferedReader(new FileReader(manifest));
+        try {
+            // version
+            String line = br.readLine();
+            if(null == line) {
+                return 0;
+            }
+            keep.add(line);
+            while(null != (line = br.readLine())) {
+                int rank = getRank(line);
+                long key = rank < 0 ? -1 : getKey(line.substring(0, line.lastIndexOf('.')));
+                File f = new File(folder, line);
+                if(key < 0 || !f.isFile()) {
+                    keep.add(line);
+                    continue;
+                }
+                loose.add(f);
+                String other = tiles.get(key);
+                if(null == other || getRank(other) > rank) {
+                    tiles.put(key, line);
+                }
+            }
+        }
+        finally {
+            br.close();
+        }
+        if(tiles.isEmpty()) {
+            return 0;
+        }
+
+        long keys[] = new long[tiles.size()];
+        File files[] = new File[keys.length];
+        int i = 0;
+        for(Long key : tiles.keySet()) {
+            keys[i] = key;
+            files[i] = new File(folder, tiles.get(key));
+            i++;
+        }
+        String archive = "tiles/" + name + EXTENSION;
+        File tmp = new File(folder, archive + ".tmp");
+        write(tmp, keys, files);
+        if(!tmp.renameTo(new File(folder, archive))) {
+            tmp.delete();
+            throw new IOException("Cannot place " + archive);
+        }
+
+        keep.add(archive);
+        tmp = new File(folder, name + ".tmp");
+        FileWriter out = new FileWriter(tmp);
+        try {
+            for(String line : keep) {
+                out.write(line + "\n");
+            }
+        }
+        finally {
+            out.close();
+        }
+        if(!tmp.renameTo(manifest)) {
+            tmp.delete();
+            throw new IOException("Cannot update " + name);
+        }
+
+        // tiles are read from archive from now on
+        reset();
+        for(File f : loose) {
+            f.delete();
+        }
+        return keys.length;
+    }
+
+    /**
+     * Archives in a maps folder, found once. Each is held for the caller, who must release it.
+     */
+    private static synchronized TileArchive[] getArchives(String folder) {
+        TileArchive archives[] = mArchives.get(folder);
+        if(null != archives) {
+            for(TileArchive a : archives) {
+                a.acquire();
+            }
+            return archives;
+        }
+        LinkedList<TileArchive> list = new LinkedList<TileArchive>();
+        File files[] = new File(folder, "tiles").listFiles();
+        if(null != files) {
+            for(File f : files) {
+                if(f.getName().endsWith(EXTENSION)) {
+                    try {
+                        list.add(new TileArchive(f));
+                    }
+                    catch (IOException e) {
+                    }
+                }
+            }
+        }
+        archives = list.toArray(new TileArchive[list.size()]);
+        mArchives.put(folder, archives);
+        for(TileArchive a : archives) {
+            a.acquire();
+        }
+        return archives;
+    }
+
+    /**
+     * Find image of a tile in archives of its maps folder
+     * @param path full path of tile without extension, as in mapsFolder/tiles/index/zoom/x/y
+     * @return null if not in an archive
+     */
+    public static byte[] readTile(String path) {
+        long key = getKey(path);
+        if(key < 0) {
+            return null;
+        }
+        TileArchive archives[] = getArchives(path.substring(0, path.lastIndexOf("tiles/")));
+        byte data[] = null;
+        for(TileArchive a : archives) {
+            if(null == data) {
+                data = a.read(key);
+            }
+            a.release();
+        }
+        return data;
+    }
+
+    /**
+     * Forget archives so new or deleted ones are found, as after a download or delete.
+     * Archives being read are closed when their readers are done.
+     */
+    public static void reset() {
+        HashMap<String, TileArchive[]> old;
+        synchronized(TileArchive.class) {
+            old = mArchives;
+            mArchives = new HashMap<String, TileArchive[]>();
+        }
+        for(TileArchive archives[] : old.values()) {
+            for(TileArchive a : archives) {
+                a.release();
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ import android.graphics.Paint;
 import android.graphics.Point;
 import android.graphics.Typeface;
 import android.os.AsyncTask;
+import android.os.SystemClock;
 import android.text.TextPaint;
 import android.util.AttributeSet;
 import android.view.GestureDetector;
@@ -48,7 +49,9 @@ import com.ds.avare.position.Scale;
 import com.ds.avare.shapes.DrawingContext;
 import com.ds.avare.shapes.Layer;
 import com.ds.avare.shapes.MetShape;
+import com.ds.avare.shapes.RadarLoop;
 import com.ds.avare.shapes.ShapeFileShape;
+import com.ds.avare.shapes.ShapeIndex;
 import com.ds.avare.shapes.TFRShape;
 import com.ds.avare.shapes.Tile;
 import com.ds.avare.shapes.TileMap;
@@ -59,6 +62,7 @@ import com.ds.avare.touch.GestureInterface;
 import com.ds.avare.touch.LongTouchDestination;
 import com.ds.avare.utils.BitmapHolder;
 import com.ds.avare.utils.DisplayIcon;
+import com.ds.avare.utils.FrameProfile;
 import com.ds.avare.utils.GenericCallback;
 import com.ds.avare.utils.Helper;
 import com.ds.avare.utils.InfoLines.InfoLineFieldLoc;
@@ -77,6 +81,7 @@ import org.metalev.multitouch.controller.MultiTouchController.MultiTouchObjectCa
 import org.metalev.multitouch.controller.MultiTouchController.PointInfo;
 import org.metalev.multitouch.controller.MultiTouchController.PositionAndScale;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Vector;
@@ -204,6 +209,40 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
 
     private Tile mGpsTile;
 
+    /*
+     * Static items drawn offscreen, with lon / lat of view top left and scale when drawn
+     */
+    private Bitmap mBase;
+    private Canvas mBaseCanvas;
+    private boolean mBaseValid;
+    private double mBaseLon;
+    private double mBaseLat;
+    private float mBaseX;
+    private float mBaseY;
+    private float mBaseScale;
+    private long mBaseTime;
+    private int mBaseEnd;
+
+    /*
+     * Data drawn on base, compared by reference so base is drawn again when any is replaced.
+     * ADS-B data changes in place, base is invalidated when IO tells of that.
+     */
+    private Object mBaseTfr;
+    private Object mBaseGameTfr;
+    private Object mBaseShapes;
+    private Object mBaseAirSig;
+    private Object mBaseObstacles;
+    private Object mBaseDestination;
+    private long mBaseRadarTime;
+    private long mBaseMetarTime;
+
+    /*
+     * Opt in timing of layers
+     */
+    private FrameProfile mProfile;
+    private long mProfileSaved;
+    private ArrayList<Traffic> mProfileTraffic;
+
     private String mOnChart = "";
     
     /*
@@ -215,6 +254,19 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
     private static final float MOVEMENT_THRESHOLD = 32.f;
     
     private static final int MAX_SCALE = 4;
+
+    private static final int BASE_MARGIN = 128; // pixels map can move before base is drawn again
+    private static final long BASE_AGE = 60000; // ms, base is drawn again to show TFRs, weather that expired
+
+    /*
+     * Static items in the order they are drawn. Base holds those before a stage, rest are drawn on it.
+     */
+    private static final int STATIC_TILES = 0;
+    private static final int STATIC_LAYERS = 1;
+    private static final int STATIC_OVERLAYS = 2;
+    private static final int STATIC_LABELS = 3;
+    private static final int STATIC_END = 4;
+    private static final long PROFILE_SAVE_TIME = 30000; // ms between saving profile to file
     
     /*
      * dip to pix scaling factor
@@ -250,6 +302,9 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
         mPaint.setAntiAlias(true);
         mPointProjection = null;
         mDraw = false;
+        mProfile = new FrameProfile();
+        mProfileTraffic = new ArrayList<Traffic>();
+        mProfileSaved = 0;
 
         mPref = new Preferences(context);
 
@@ -705,6 +760,10 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
             if (mLayerType.equals("NEXRAD")) {
                 NexradBitmap.draw(ctx, mService.getAdsbWeather().getNexrad(),
                         mService.getAdsbWeather().getNexradConus(), null == mPointProjection);
+                if(mPref.isRadarLoop() && (mService.getAdsbWeather().getNexrad().getLoop().getFrames() > 0
+                        || mService.getAdsbWeather().getNexradConus().getLoop().getFrames() > 0)) {
+                    postInvalidateDelayed(RadarLoop.getNextFrameDelay(System.currentTimeMillis()));
+                }
             }
             else if (mLayerType.equals("METAR")) {
                 AdsbWeatherCache.drawMetars(ctx, mService.getAdsbWeather().getAllMetars(), null == mPointProjection);
@@ -731,7 +790,22 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
             }
 
             mPaint.setAlpha(mPref.showLayer());
-            mLayer.draw(canvas, mPaint, mOrigin);
+            if (mLayerType.equals("NEXRAD") && mPref.isRadarLoop()) {
+                /*
+                 * Past frames are already decoded, then current image held for a while
+                 */
+                long now = System.currentTimeMillis();
+                RadarLoop loop = mService.getRadarLayer().getLoop();
+                if (0 == loop.draw(canvas, mPaint, mOrigin, now, mLayer.getTime())) {
+                    mLayer.draw(canvas, mPaint, mOrigin);
+                }
+                if (loop.getFrames() > 0) {
+                    postInvalidateDelayed(RadarLoop.getNextFrameDelay(now));
+                }
+            }
+            else {
+                mLayer.draw(canvas, mPaint, mOrigin);
+            }
             mPaint.setAlpha(255);
         }
     }
@@ -742,7 +816,7 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
      * @param ctx
      */
     private void drawTraffic(Canvas canvas, DrawingContext ctx) {
-        Traffic.draw(ctx, mService.getTrafficCache().getTraffic(),
+        Traffic.draw(ctx, mService.getTrafficCache(),
                 mService.getTrafficCache().getOwnAltitude(), mGpsParams, mPref.getAircraftICAOCode(), null == mPointProjection);
     }
 
@@ -953,6 +1027,199 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
         }
     }
     
+    /**
+     * Layer that redraws with time on its own
+     * @return
+     */
+    private boolean isLayerAnimated() {
+        return "NEXRAD".equals(mLayerType) && mPref.isRadarLoop();
+    }
+
+    /**
+     * Items that change only when map moves or their data changes
+     * @param canvas
+     * @param ctx
+     * @param from first stage to draw
+     * @param to stage to stop before
+     */
+    private void drawStatic(Canvas canvas, DrawingContext ctx, int from, int to) {
+        long t;
+        for(int stage = from; stage < to; stage++) {
+            switch(stage) {
+                case STATIC_TILES:
+                    t = mProfile.start();
+                    drawTiles(canvas, ctx);
+                    mProfile.end(FrameProfile.TILES, t);
+                    break;
+                case STATIC_LAYERS:
+                    t = mProfile.start();
+                    drawLayers(canvas, ctx);
+                    mProfile.end(FrameProfile.LAYERS, t);
+                    break;
+                case STATIC_OVERLAYS:
+                    t = mProfile.start();
+                    drawCapGrids(canvas, ctx);
+                    mProfile.end(FrameProfile.CAP_GRIDS, t);
+                    t = mProfile.start();
+                    drawObstacles(canvas, ctx);
+                    mProfile.end(FrameProfile.OBSTACLES, t);
+                    t = mProfile.start();
+                    drawTFR(canvas, ctx);
+                    mProfile.end(FrameProfile.TFR, t);
+                    t = mProfile.start();
+                    drawShapes(canvas, ctx);
+                    mProfile.end(FrameProfile.SHAPES, t);
+                    t = mProfile.start();
+                    drawAirSigMet(canvas, ctx);
+                    mProfile.end(FrameProfile.AIRSIGMET, t);
+                    break;
+                case STATIC_LABELS:
+                    t = mProfile.start();
+                    drawRunways(canvas, ctx);
+                    mProfile.end(FrameProfile.RUNWAYS, t);
+                    t = mProfile.start();
+                    drawFavorites(canvas, ctx);
+                    mProfile.end(FrameProfile.FAVORITES, t);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Stage before which static items can be drawn from base.
+     * An animated layer changes every frame, so it and all above it are drawn directly.
+     * In track up, runway numbers are turned upright with track, so they are drawn directly.
+     * @param rotated
+     * @return
+     */
+    private int getBaseEnd(boolean rotated) {
+        if(isLayerAnimated()) {
+            return STATIC_LAYERS;
+        }
+        if(rotated) {
+            return STATIC_LABELS;
+        }
+        return STATIC_END;
+    }
+
+    /**
+     * @return true if data drawn on base was replaced since base was drawn
+     */
+    private boolean isBaseDataChanged() {
+        return mBaseTfr != mService.getTFRShapes()
+                || mBaseGameTfr != mService.getGameTfrLabels()
+                || mBaseShapes != mService.getShapeShapes()
+                || mBaseAirSig != mService.getInternetWeatherCache().getAirSigMetIndex()
+                || mBaseObstacles != mService.getObstacles()
+                || mBaseDestination != mService.getDestination()
+                || mBaseRadarTime != mService.getRadarLayer().getTime()
+                || mBaseMetarTime != mService.getMetarLayer().getTime();
+    }
+
+    /**
+     * Remember data drawn on base
+     */
+    private void saveBaseData() {
+        mBaseTfr = mService.getTFRShapes();
+        mBaseGameTfr = mService.getGameTfrLabels();
+        mBaseShapes = mService.getShapeShapes();
+        mBaseAirSig = mService.getInternetWeatherCache().getAirSigMetIndex();
+        mBaseObstacles = mService.getObstacles();
+        mBaseDestination = mService.getDestination();
+        mBaseRadarTime = mService.getRadarLayer().getTime();
+        mBaseMetarTime = mService.getMetarLayer().getTime();
+    }
+
+    /**
+     * Draw static items from an offscreen bitmap, a little larger than the map in view.
+     * It is drawn again only on zoom, on moving more than its margin, on data change, or when old.
+     * Moving the map within margin is only an offset since map is mercator at a given scale.
+     * @param canvas
+     * @param ctx
+     * @param end stage before which static items are drawn on base
+     * @param rotated canvas is turned for track up
+     * @return false if no memory for base, draw directly then
+     */
+    private boolean drawBase(Canvas canvas, DrawingContext ctx, int end, boolean rotated) {
+        int width = getWidth();
+        int height = getHeight();
+        float cx = width / 2.f;
+        float cy = height / 2.f;
+        if(rotated) {
+            /*
+             * Canvas is turned around aircraft. At any angle the map in view fits in a square
+             * as wide as the view diagonal, around where view center is on the map.
+             */
+            width = height = (int)Math.ceil(Math.hypot(width, height));
+            float px = (float)mOrigin.getOffsetX(mGpsParams.getLongitude());
+            float py = (float)mOrigin.getOffsetY(mGpsParams.getLatitude());
+            double angle = Math.toRadians((int)mGpsParams.getBearing());
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            float x = cx - px;
+            float y = cy - py;
+            cx = px + (float)(x * cos - y * sin);
+            cy = py + (float)(x * sin + y * cos);
+        }
+        int baseWidth = width + BASE_MARGIN * 2;
+        int baseHeight = height + BASE_MARGIN * 2;
+        if(null == mBase || mBase.getWidth() != baseWidth || mBase.getHeight() != baseHeight) {
+            if(null != mBase) {
+                mBase.recycle();
+                mBase = null;
+            }
+            try {
+                // charts are opaque
+                mBase = Bitmap.createBitmap(baseWidth, baseHeight, Bitmap.Config.RGB_565);
+            }
+            catch (OutOfMemoryError e) {
+                return false;
+            }
+            mBaseCanvas = new Canvas(mBase);
+            mBaseValid = false;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        // where top left of base is now
+        float bx = (float)mOrigin.getOffsetX(mBaseLon) + mBaseX;
+        float by = (float)mOrigin.getOffsetY(mBaseLat) + mBaseY;
+        // map in view must be on base
+        boolean moved = cx - width / 2.f < bx || cx + width / 2.f > bx + baseWidth
+                || cy - height / 2.f < by || cy + height / 2.f > by + baseHeight;
+        if((!mBaseValid) || end != mBaseEnd || moved || mScale.getScaleFactor() != mBaseScale
+                || (now - mBaseTime) > BASE_AGE || isBaseDataChanged()) {
+            bx = (float)Math.floor(cx - baseWidth / 2.f);
+            by = (float)Math.floor(cy - baseHeight / 2.f);
+            mBase.eraseColor(Color.BLACK);
+            mBaseCanvas.save();
+            mBaseCanvas.translate(-bx, -by);
+            ctx.canvas = mBaseCanvas;
+            drawStatic(mBaseCanvas, ctx, STATIC_TILES, end);
+            ctx.canvas = canvas;
+            mBaseCanvas.restore();
+
+            mBaseLon = mOrigin.getLonScreenLeft();
+            mBaseLat = mOrigin.getLatScreenTop();
+            mBaseX = bx;
+            mBaseY = by;
+            mBaseScale = mScale.getScaleFactor();
+            mBaseTime = now;
+            mBaseEnd = end;
+            saveBaseData();
+            mBaseValid = true;
+        }
+        canvas.drawBitmap(mBase, bx, by, null);
+        return true;
+    }
+
+    /**
+     * Static items changed, draw them again on next draw
+     */
+    public void invalidateBase() {
+        mBaseValid = false;
+        postInvalidate();
+    }
+
     /**
      * @param canvas
      * Does pretty much all drawing on screen
@@ -963,6 +1230,12 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
             return;
         }
 
+        mProfile.setEnabled(mPref.isProfileMap());
+        long frame = mProfile.frame();
+        if(mProfile.isEnabled()) {
+            countObjects();
+        }
+
     	// If our track is supposed to be at the top, save the current
     	// canvas and rotate it based upon our bearing if we have one
     	boolean bRotated = false;
@@ -993,22 +1266,33 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
         ctx.view = this;
 
         // Call the draw routines for the items that rotate with
-        // the chart
-        drawTiles(canvas, ctx);
-        drawLayers(canvas, ctx);
+        // the chart. Items that only change with the map are drawn from a cached base,
+        // those above an animated layer are drawn on it every frame to stay on top.
+        long t = mProfile.start();
+        int end = getBaseEnd(bRotated);
+        boolean base = null == mPointProjection && drawBase(canvas, ctx, end, bRotated);
+        if(base) {
+            mProfile.end(FrameProfile.BASE, t);
+        }
+        drawStatic(canvas, ctx, base ? end : STATIC_TILES, STATIC_END);
+        t = mProfile.start();
         drawDrawing(canvas, ctx);
-        drawCapGrids(canvas, ctx);
+        mProfile.end(FrameProfile.DRAWING, t);
+        t = mProfile.start();
         drawTraffic(canvas, ctx);
-        drawObstacles(canvas, ctx);
-        drawTFR(canvas, ctx);
-        drawShapes(canvas, ctx);
-        drawAirSigMet(canvas, ctx);
+        mProfile.end(FrameProfile.TRAFFIC, t);
+        t = mProfile.start();
         drawTracks(canvas, ctx);
+        mProfile.end(FrameProfile.TRACKS, t);
+        t = mProfile.start();
         drawTrack(canvas, ctx);
-        drawRunways(canvas, ctx);
+        mProfile.end(FrameProfile.TRACK, t);
+        t = mProfile.start();
         drawAircraft(canvas, ctx);
-        drawFavorites(canvas, ctx);
+        mProfile.end(FrameProfile.AIRCRAFT, t);
+        t = mProfile.start();
       	drawUserDefinedWaypoints(canvas, ctx);
+        mProfile.end(FrameProfile.WAYPOINTS, t);
         
       	// Restore the canvas to be upright again
         if(true == bRotated) {
@@ -1016,12 +1300,47 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
         }
         
         // Now draw the items that do NOT rotate with the chart
+        t = mProfile.start();
         drawDistanceRings(canvas);
         drawCDI(canvas);
         drawVASI(canvas);
         drawStatusLines(canvas);
       	drawEdgeMarkers(canvas); // Must be after the infolines
       	drawNavComments(canvas);
+        mProfile.end(FrameProfile.OVERLAYS, t);
+        mProfile.end(FrameProfile.FRAME, frame);
+
+        drawProfile(canvas);
+    }
+
+    /**
+     * Objects each layer has to draw, for profile
+     */
+    private void countObjects() {
+        mProfile.count(FrameProfile.TILES, mService.getTiles().getTilesNum());
+        LinkedList<Obstacle> obs = mService.getObstacles();
+        mProfile.count(FrameProfile.OBSTACLES, null == obs ? 0 : obs.size());
+        LinkedList<TFRShape> tfr = mService.getTFRShapes();
+        mProfile.count(FrameProfile.TFR, null == tfr ? 0 : tfr.size());
+        LinkedList<ShapeFileShape> shapes = mService.getShapeShapes();
+        mProfile.count(FrameProfile.SHAPES, null == shapes ? 0 : shapes.size());
+        mProfile.count(FrameProfile.TRAFFIC, mService.getTrafficCache().getTraffic(mProfileTraffic));
+    }
+
+    /**
+     * Show profile under info lines, and save it now and then
+     * @param canvas
+     */
+    private void drawProfile(Canvas canvas) {
+        if(!mProfile.isEnabled()) {
+            return;
+        }
+        mProfile.draw(canvas, mMsgPaint, 0, mService.getInfoLines().getHeight());
+        long now = SystemClock.uptimeMillis();
+        if(now - mProfileSaved > PROFILE_SAVE_TIME) {
+            mProfileSaved = now;
+            mProfile.export(mPref.mapsFolder() + "/" + "profile.txt");
+        }
     }    
 
     /**
@@ -1045,6 +1364,7 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
                 updateCoordinates();                
             }
         }
+        invalidateBase();
     }
 
     /**
@@ -1169,7 +1489,7 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
         }
 
         TileMap map = mService.getTiles();
-        map.loadTiles(mGpsParams.getLongitude(), mGpsParams.getLatitude(), mPan, mMacro, mScale, mGpsParams.getBearing(),
+        map.loadTiles(mGpsParams.getLongitude(), mGpsParams.getLatitude(), mPan, mMacro, mScale, mGpsParams.getBearing(), mGpsParams.getSpeedInKnots(),
                 new GenericCallback() {
                     @Override
                     public Object callback(Object map, Object tu) {
@@ -1195,6 +1515,7 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
                         mMacro = mScale.getMacroFactor();
                         mScale.updateMacro();
                         updateCoordinates();
+                        mBaseValid = false;
                         invalidate();
 
                         return null;
@@ -1226,8 +1547,7 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
         private String getTfrTextOnTouch(LinkedList<TFRShape> shapes) {
             String out = "";
             if(null != shapes) {
-                for(int shape = 0; shape < shapes.size(); shape++) {
-                    TFRShape cshape = shapes.get(shape);
+                for(TFRShape cshape : shapes) {
                     /*
                      * Get TFR text
                      */
@@ -1265,13 +1585,15 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
             if(isCancelled())
                 return "";
 
+            // only look in air/sigmets around touch
             List<AirSigMet> mets = null;
             if(null != mService) {
                 if(mPref.useAdsbWeather()) {
-                    mets = mService.getAdsbWeather().getAirSigMet();
+                    mets = mService.getAdsbWeather().getAirSigMetIndex().find(lon, lat);
                 }
                 else {
-                    mets = mService.getInternetWeatherCache().getAirSigMet();
+                    ShapeIndex<AirSigMet> index = mService.getInternetWeatherCache().getAirSigMetIndex();
+                    mets = null == index ? mService.getInternetWeatherCache().getAirSigMet() : index.find(lon, lat);
                 }
             }
 
@@ -1280,13 +1602,13 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
              * Air/sigmets
              */
             if(null != mets) {
-                for(int i = 0; i < mets.size(); i++) {
-                    MetShape cshape = mets.get(i).shape;
+                for(AirSigMet met : mets) {
+                    MetShape cshape = met.shape;
                     if(null != cshape) {
                         /*
                          * Set MET
                          */
-                        textMets += cshape.getHTMLMetOnTouch(mContext, mets.get(i), lon, lat);
+                        textMets += cshape.getHTMLMetOnTouch(mContext, met, lon, lat);
                     }
                 }
             }            
@@ -1404,8 +1726,10 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
                 if(null != wa) {
                     wa.updateStationWithLocation(lon, lat, mGpsParams.getDeclinition());
                 }
-                tfr = getTfrTextOnTouch(mService.getTFRShapes());
-                tfra = getTfrTextOnTouch(mService.getAdsbTFRShapes());
+                // TFRs are indexed, only look in ones around touch
+                ShapeIndex<TFRShape> index = mService.getTFRIndex();
+                tfr = getTfrTextOnTouch(null == index ? mService.getTFRShapes() : index.find(lon, lat));
+                tfra = getTfrTextOnTouch(mService.getAdsbTFRIndex().find(lon, lat));
                 mLongTouchDestination.tfr = tfr + "\n" + tfra;
                 mLongTouchDestination.taf = taf;
                 mLongTouchDestination.metar = metar;
@@ -1634,6 +1958,7 @@ public class LocationView extends View implements MultiTouchObjectCanvas<Object>
             mService.getMetarLayer().parse();
         }
 
+        mBaseValid = false;
         invalidate();
     }
 
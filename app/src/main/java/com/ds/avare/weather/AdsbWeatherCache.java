@@ -12,29 +12,30 @@ Redistribution and use in source and binary forms, with or without modification,
 package com.ds.avare.weather;
 
 import android.content.Context;
-import android.util.SparseArray;
+import android.graphics.Rect;
 
 import com.ds.avare.StorageService;
-import com.ds.avare.adsb.NexradBitmap;
 import com.ds.avare.adsb.NexradImage;
 import com.ds.avare.adsb.NexradImageConus;
 import com.ds.avare.place.Destination;
 import com.ds.avare.position.Origin;
 import com.ds.avare.shapes.DrawingContext;
 import com.ds.avare.shapes.MetShape;
+import com.ds.avare.shapes.ShapeIndex;
 import com.ds.avare.content.DataSource;
 import com.ds.avare.storage.Preferences;
+import com.ds.avare.utils.Helper;
 import com.ds.avare.utils.RateLimitedBackgroundQueue;
 import com.ds.avare.utils.WeatherHelper;
 
 import java.sql.Date;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Locale;
-import java.util.Set;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 
@@ -44,31 +45,37 @@ import java.util.TimeZone;
  */
 public class AdsbWeatherCache {
 
-    private HashMap<String, Taf> mTaf;
-    private HashMap<String, Metar> mMetar;
-    private HashMap<String, Airep> mAirep;
-    private HashMap<String, WindsAloft> mWinds;
-    private HashMap<String, Sua> mSua;
+    private ConcurrentHashMap<String, Taf> mTaf;
+    private ConcurrentHashMap<String, Metar> mMetar;
+    private ConcurrentHashMap<String, Airep> mAirep;
+    private ConcurrentHashMap<String, WindsAloft> mWinds;
+    private ConcurrentHashMap<String, Sua> mSua;
     private NexradImage mNexrad;
     private NexradImageConus mNexradConus;
     private Preferences mPref;
     private RateLimitedBackgroundQueue mMetarQueue;
-    private HashMap<String, AirSigMet> mAirSig;
+    private ConcurrentHashMap<String, AirSigMet> mAirSig;
+
+    /*
+     * Index of AIR/SIGMETs, made again on lookup after they change
+     */
+    private ShapeIndex<AirSigMet> mAirSigIndex;
+    private volatile boolean mAirSigChanged;
 
     /**
      * 
      */
     public AdsbWeatherCache(Context context, StorageService service) {
         mPref = new Preferences(context);
-        mTaf = new HashMap<String, Taf>();
-        mMetar = new HashMap<String, Metar>();
-        mAirep = new HashMap<String, Airep>();
-        mWinds = new HashMap<String, WindsAloft>();
+        mTaf = new ConcurrentHashMap<String, Taf>();
+        mMetar = new ConcurrentHashMap<String, Metar>();
+        mAirep = new ConcurrentHashMap<String, Airep>();
+        mWinds = new ConcurrentHashMap<String, WindsAloft>();
         mNexrad = new NexradImage();
         mMetarQueue = new RateLimitedBackgroundQueue(service);
         mNexradConus = new NexradImageConus();
-        mSua = new HashMap<String, Sua>();
-        mAirSig = new HashMap<String, AirSigMet>();
+        mSua = new ConcurrentHashMap<String, Sua>();
+        mAirSig = new ConcurrentHashMap<String, AirSigMet>();
     }
 
     /**
@@ -134,20 +141,22 @@ public class AdsbWeatherCache {
      * @param map
      * @param shouldDraw
      */
-    public static void drawMetars(DrawingContext ctx, HashMap<String, Metar> map, boolean shouldDraw) {
+    public static void drawMetars(DrawingContext ctx, Map<String, Metar> map, boolean shouldDraw) {
         if(0 == ctx.pref.showLayer() || (!shouldDraw) || (!ctx.pref.useAdsbWeather())) {
             // This shows only for metar layer, and when adsb is used
             return;
         }
 
-        Set<String> keys = map.keySet();
-        for(String key : keys) {
-            Metar m = map.get(key);
-            if(!isOnScreen(ctx.origin, m.lat, m.lon)) {
-                continue;
-            }
+        // part of canvas being drawn, larger than screen when drawn offscreen
+        Rect clip = ctx.canvas.getClipBounds();
+
+        // filled in from IO thread while drawn
+        for(Metar m : map.values()) {
             float x = (float)ctx.origin.getOffsetX(m.lon);
             float y = (float)ctx.origin.getOffsetY(m.lat);
+            if(x < clip.left || y < clip.top || x > clip.right || y > clip.bottom) {
+                continue;
+            }
             String text = m.flightCategory;
             if (ctx.pref.isShowLabelMETARS()) {
                 if(WeatherHelper.metarColorString(m.flightCategory).equals("white")) {
@@ -177,7 +186,7 @@ public class AdsbWeatherCache {
      *
      * @return
      */
-    public HashMap<String, Metar> getAllMetars() {
+    public Map<String, Metar> getAllMetars() {
         return mMetar;
     }
 
@@ -352,6 +361,7 @@ public class AdsbWeatherCache {
 
 
         mAirSig.put(id, s);
+        mAirSigChanged = true;
 
     }
 
@@ -451,10 +461,10 @@ public class AdsbWeatherCache {
             return;
         }
         if(isConus) {
-            mNexradConus.putImg(time, block, empty, isConus, data, cols, rows);            
+            mNexradConus.putImg(time, block, empty, isConus, data, cols, rows, mPref.isRadarLoop());
         }
         else {
-            mNexrad.putImg(time, block, empty, isConus, data, cols, rows);            
+            mNexrad.putImg(time, block, empty, isConus, data, cols, rows, mPref.isRadarLoop());
         }
     }
 
@@ -532,6 +542,19 @@ public class AdsbWeatherCache {
         return ret;
     }
 
+    /**
+     * Index on AIR/SIGMETs for touch lookups
+     * @return
+     */
+    public synchronized ShapeIndex<AirSigMet> getAirSigMetIndex() {
+        if(mAirSigChanged || null == mAirSigIndex) {
+            // changes from now on make it again
+            mAirSigChanged = false;
+            mAirSigIndex = new ShapeIndex<AirSigMet>(mAirSig.values());
+        }
+        return mAirSigIndex;
+    }
+
     /**
      * 
      * @param lon
@@ -671,22 +694,17 @@ public class AdsbWeatherCache {
         }
         for(String key : keys) {
             mAirSig.remove(key);
+            mAirSigChanged = true;
         }
 
         /*
          * Nexrad
          */
-        LinkedList<Integer>keyi = new LinkedList<Integer>();
-        SparseArray<NexradBitmap> img = mNexrad.getImages();
-        for(int i = 0; i < img.size(); i++) {
-            NexradBitmap n = img.valueAt(i);
-            long diff = (now - n.timestamp) - expiry;
-            if(diff > 0) {
-                keyi.add(img.keyAt(i));
-            }
-        }
-        for(Integer key : keyi) {
-            img.remove(key);
-        }
+        mNexrad.getMosaic().expire(now, expiry);
+        mNexradConus.getMosaic().expire(now, expiry);
+        // loop frames are dated with the time data came in, which is on the GMT clock
+        long gmt = Helper.getMillisGMT();
+        mNexrad.getLoop().expire(gmt, expiry);
+        mNexradConus.getLoop().expire(gmt, expiry);
     }
 }
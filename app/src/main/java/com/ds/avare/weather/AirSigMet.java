@@ -12,6 +12,7 @@ Redistribution and use in source and binary forms, with or without modification,
 
 package com.ds.avare.weather;
 
+import com.ds.avare.shapes.Bounded;
 import com.ds.avare.shapes.MetShape;
 
 /**
@@ -20,7 +21,7 @@ import com.ds.avare.shapes.MetShape;
  * @author zkhan
  *
  */
-public class AirSigMet {
+public class AirSigMet implements Bounded {
 
     public String rawText;
     public String timeFrom;
@@ -35,4 +36,32 @@ public class AirSigMet {
     public String reportType;
     public long   timestamp;
     public MetShape shape;
+
+    /*
+     * Bounds are those of the shape, none without one
+     */
+    public double getLongitudeMinimum() {
+        MetShape s = shape;
+        return null == s ? 180 : s.getLongitudeMinimum();
+    }
+
+    public double getLongitudeMaximum() {
+        MetShape s = shape;
+        return null == s ? -180 : s.getLongitudeMaximum();
+    }
+
+    public double getLatitudeMinimum() {
+        MetShape s = shape;
+        return null == s ? 180 : s.getLatitudeMinimum();
+    }
+
+    public double getLatitudeMaximum() {
+        MetShape s = shape;
+        return null == s ? -180 : s.getLatitudeMaximum();
+    }
+
+    public boolean isInBounds(double lon, double lat) {
+        MetShape s = shape;
+        return null != s && s.isInBounds(lon, lat);
+    }
 }
@@ -15,6 +15,7 @@ package com.ds.avare.weather;
 import com.ds.avare.StorageService;
 import com.ds.avare.content.ContentProviderHelper;
 import com.ds.avare.shapes.MetShape;
+import com.ds.avare.shapes.ShapeIndex;
 import com.ds.avare.storage.Preferences;
 import com.ds.avare.utils.Helper;
 
@@ -37,6 +38,7 @@ public class InternetWeatherCache {
     private WeatherTask                mWeatherTask; 
     private Thread                     mWeatherThread;
     private LinkedList<AirSigMet>      mAirSig;
+    private volatile ShapeIndex<AirSigMet> mAirSigIndex;
     private StorageService             mService;
     private Date                       mDate;
 
@@ -96,6 +98,14 @@ public class InternetWeatherCache {
         return mAirSig;
     }
 
+    /**
+     * Index on AIR/SIGMETs for touch lookups, null till their shapes are made
+     * @return
+     */
+    public ShapeIndex<AirSigMet> getAirSigMetIndex() {
+        return mAirSigIndex;
+    }
+
     private class WeatherTask implements Runnable {
 
         @Override
@@ -105,6 +115,7 @@ public class InternetWeatherCache {
                 /*
                  * Create a list of air/sigmets
                  */
+                mAirSigIndex = null;
                 mAirSig = mService.getDBResource().getAirSigMets();
 
                 String filenameManifest = new Preferences(mService).mapsFolder() + "/weather";
@@ -169,6 +180,7 @@ public class InternetWeatherCache {
                     }
                     asm.shape.makePolygon();
                 }
+                mAirSigIndex = new ShapeIndex<AirSigMet>(mAirSig);
             }
             catch(Exception e) {
             }
@@ -0,0 +1,94 @@
+package com.ds.avare.test;
+
+import com.ds.avare.connections.CaptureWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * tests timestamped capture records and rotation of capture files
+ */
+public class CaptureWriterTest {
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws Exception {
+        mFile = File.createTempFile("capture", ".cap");
+        mFile.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mFile.delete();
+        for (int i = 1; i <= 3; i++) {
+            new File(mFile.getPath() + "." + i).delete();
+        }
+    }
+
+    // count records in a capture, checking their time and content
+    private static int read(File f, long time) throws Exception {
+        DataInputStream in = new DataInputStream(new FileInputStream(f));
+        assertEquals(CaptureWriter.MAGIC, in.readInt());
+        assertEquals(CaptureWriter.VERSION, in.readInt());
+        int count = 0;
+        while (in.available() > 0) {
+            assertEquals(time, in.readLong());
+            int len = in.readInt();
+            byte data[] = new byte[len];
+            in.readFully(data);
+            for (byte b : data) {
+                assertEquals((byte) len, b);
+            }
+            count++;
+        }
+        in.close();
+        return count;
+    }
+
+    private static byte[] data(int len) {
+        byte data[] = new byte[len];
+        for (int i = 0; i < len; i++) {
+            data[i] = (byte) len;
+        }
+        return data;
+    }
+
+    @Test
+    public void testRecords() throws Exception {
+        CaptureWriter w = new CaptureWriter(mFile.getPath(), 1024 * 1024, 60000, 3);
+        for (int len = 1; len <= 100; len++) {
+            assertTrue(w.write(1234, data(len), len));
+        }
+        w.close();
+        assertEquals(100, read(mFile, 1234));
+        assertFalse(w.write(1234, data(1), 1));
+        assertEquals(0, w.getDropped());
+    }
+
+    @Test
+    public void testRotate() throws Exception {
+        CaptureWriter w = new CaptureWriter(mFile.getPath(), 200, 60000, 2);
+        for (int i = 0; i < 5; i++) {
+            // each flush goes over size, so to a new file
+            assertTrue(w.write(5, data(100), 100));
+            w.flush();
+        }
+        w.close();
+
+        int count = read(mFile, 5) + read(new File(mFile.getPath() + ".1"), 5) +
+                read(new File(mFile.getPath() + ".2"), 5);
+        // oldest two are gone
+        assertEquals(3, count);
+        assertFalse(new File(mFile.getPath() + ".3").exists());
+    }
+}
@@ -0,0 +1,133 @@
+package com.ds.avare.test;
+
+import com.ds.avare.adsb.gdl90.Crc;
+import com.ds.avare.adsb.gdl90.DataBuffer;
+import com.ds.avare.adsb.gdl90.Decode;
+import com.ds.avare.adsb.gdl90.Message;
+import com.ds.avare.adsb.gdl90.MessageType;
+import com.ds.avare.adsb.gdl90.OwnshipGeometricAltitudeMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * tests GDL90 framing in DataBuffer and in place decode in Decode
+ */
+public class Gdl90DecodeTest {
+
+    private DataBuffer mBuffer;
+    private Decode mDecode;
+    private byte mFrame[];
+
+    @Before
+    public void setUp() throws Exception {
+        // small so that frames wrap around the ring
+        mBuffer = new DataBuffer(64);
+        mDecode = new Decode();
+        mFrame = new byte[2048];
+    }
+
+    // make a stuffed frame with flags and CRC
+    private static byte[] frame(int type, byte data[]) {
+        byte payload[] = new byte[data.length + 3];
+        payload[0] = (byte) type;
+        System.arraycopy(data, 0, payload, 1, data.length);
+        int crc = Crc.compute(0, payload, 0, data.length + 1);
+        payload[data.length + 1] = (byte) (crc & 0xFF);
+        payload[data.length + 2] = (byte) (crc >> 8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0x7E);
+        for (byte b : payload) {
+            if (b == 0x7E || b == 0x7D) {
+                out.write(0x7D);
+                out.write(b ^ 0x20);
+            } else {
+                out.write(b);
+            }
+        }
+        out.write(0x7E);
+        return out.toByteArray();
+    }
+
+    // 0x7E in data must be unstuffed
+    private static final byte ALTITUDE[] = {0x00, 0x7E, 0x00, 0x00};
+
+    @Test
+    public void testFragmentedFramesAcrossRing() throws Exception {
+        byte f[] = frame(MessageType.OWNSHIP_GEOMETRIC_ALTITUDE, ALTITUDE);
+        byte tail[] = new byte[f.length - 3];
+        System.arraycopy(f, 3, tail, 0, tail.length);
+
+        Message first = null;
+        for (int i = 0; i < 20; i++) {
+            mBuffer.put(f, 3);
+            assertEquals(0, mBuffer.get(mFrame));
+            mBuffer.put(tail, tail.length);
+            int len = mBuffer.get(mFrame);
+            assertEquals(f.length, len);
+            Message m = mDecode.decode(mFrame, len);
+            assertTrue(m instanceof OwnshipGeometricAltitudeMessage);
+            assertEquals(192, ((OwnshipGeometricAltitudeMessage) m).mAltitudeWGS84);
+            if (null == first) {
+                first = m;
+            }
+            // pooled
+            assertSame(first, m);
+        }
+    }
+
+    @Test
+    public void testGarbageBeforeFrame() throws Exception {
+        byte junk[] = {0x01, 0x02, 0x7E};
+        byte f[] = frame(MessageType.OWNSHIP_GEOMETRIC_ALTITUDE, ALTITUDE);
+        mBuffer.put(junk, junk.length);
+        mBuffer.put(f, f.length);
+        int len = mBuffer.get(mFrame);
+        assertEquals(f.length, len);
+        assertTrue(mDecode.decode(mFrame, len) instanceof OwnshipGeometricAltitudeMessage);
+        assertEquals(0, mBuffer.get(mFrame));
+    }
+
+    @Test
+    public void testShortFrameAfterLong() throws Exception {
+        byte data[] = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = 0x55;
+        }
+        byte f[] = frame(MessageType.OWNSHIP_GEOMETRIC_ALTITUDE, data);
+        mBuffer = new DataBuffer(1024);
+        mBuffer.put(f, f.length);
+        int len = mBuffer.get(mFrame);
+        mDecode.decode(mFrame, len);
+
+        f = frame(MessageType.OWNSHIP_GEOMETRIC_ALTITUDE, ALTITUDE);
+        mBuffer.put(f, f.length);
+        len = mBuffer.get(mFrame);
+        assertTrue(mDecode.decode(mFrame, len) instanceof OwnshipGeometricAltitudeMessage);
+        // nothing of the long frame is left past the data
+        for (int i = ALTITUDE.length; i < mFrame.length; i++) {
+            assertEquals(0, mFrame[i]);
+        }
+    }
+
+    @Test
+    public void testBadCrc() throws Exception {
+        byte f[] = frame(MessageType.OWNSHIP_GEOMETRIC_ALTITUDE, ALTITUDE);
+        f[f.length - 2] ^= 0x01;
+        mBuffer.put(f, f.length);
+        int len = mBuffer.get(mFrame);
+        assertNull(mDecode.decode(mFrame, len));
+        // left clean for next frame
+        for (int i = 0; i < len; i++) {
+            assertEquals(0, mFrame[i]);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ds.avare.test;
+
+import com.ds.avare.connections.ReplayStats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * tests decode latency percentiles and counts of a replay
+ */
+public class ReplayStatsTest {
+
+    private ReplayStats mStats;
+
+    @Before
+    public void setUp() throws Exception {
+        mStats = new ReplayStats();
+        mStats.start();
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        // 90 fast records, 10 slow
+        for (int i = 0; i < 90; i++) {
+            mStats.add(100, 2, 1, 1500, 10, 100);
+        }
+        for (int i = 0; i < 10; i++) {
+            mStats.add(100, 2, 1, 300000, 10, 100);
+        }
+        mStats.end();
+
+        assertEquals(100, mStats.getRecords());
+        assertEquals(200, mStats.getFrames());
+        // bins are powers of two from 1 us
+        assertEquals(2000, mStats.getPercentile(50));
+        assertEquals(2000, mStats.getPercentile(90));
+        assertEquals(300000, mStats.getPercentile(99));
+        assertTrue(mStats.getFramesPerSecond() > 0);
+        assertTrue(mStats.getReport().contains("alloc per frame 5.0 objects 50 bytes"));
+    }
+
+    @Test
+    public void testAllocNotKnown() throws Exception {
+        mStats.add(100, 2, 1, 1500, -1, 64);
+        mStats.end();
+        assertTrue(mStats.getReport().contains("alloc per frame 32 bytes"));
+
+        mStats.start();
+        mStats.add(100, 2, 1, 1500, -1, -1);
+        mStats.end();
+        assertTrue(mStats.getReport().contains("alloc per frame not known"));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        mStats.end();
+        assertEquals(0, mStats.getPercentile(99));
+        assertTrue(mStats.getReport().startsWith("records 0"));
+    }
+}
@@ -0,0 +1,172 @@
+package com.ds.avare.test;
+
+import com.ds.avare.utils.TileArchive;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * tests packing tiles in an archive and reading them back by tile path
+ */
+public class TileArchiveTest {
+
+    private File mFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        mFolder = File.createTempFile("maps", "");
+        mFolder.delete();
+        new File(mFolder, "tiles").mkdirs();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TileArchive.reset();
+        delete(mFolder);
+    }
+
+    private static void delete(File f) {
+        File files[] = f.listFiles();
+        if (null != files) {
+            for (File c : files) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+
+    // a loose tile as unzipped from a download
+    private void tile(String name, int n) throws Exception {
+        File f = new File(mFolder, name);
+        f.getParentFile().mkdirs();
+        FileOutputStream out = new FileOutputStream(f);
+        out.write(new byte[]{(byte) n});
+        out.close();
+    }
+
+    // a tile image, content tells which tile it is
+    private File image(int n, int length) throws Exception {
+        File f = new File(mFolder, "tiles/" + n + ".png");
+        byte data[] = new byte[length];
+        Arrays.fill(data, (byte) n);
+        FileOutputStream out = new FileOutputStream(f);
+        out.write(data);
+        out.close();
+        return f;
+    }
+
+    @Test
+    public void testKeyFromPath() throws Exception {
+        assertEquals(TileArchive.getKey(0, 9, 85, 310), TileArchive.getKey("/sdcard/avare/tiles/0/9/85/310"));
+        // double slash as in Tile.getTileNeighbor()
+        assertEquals(TileArchive.getKey(6, 7, 20, 77), TileArchive.getKey("/sdcard/avare/tiles//6/7/20/77"));
+        assertEquals(-1, TileArchive.getKey("/sdcard/avare/tiles/0/9/85/310.webp"));
+        assertEquals(-1, TileArchive.getKey("/sdcard/avare/plates/KBOS/AREA"));
+        assertEquals(-1, TileArchive.getKey("/sdcard/avare/tiles/0/9/85"));
+    }
+
+    @Test
+    public void testPackAndRead() throws Exception {
+        // not in key order
+        long keys[] = {
+                TileArchive.getKey(0, 9, 85, 311),
+                TileArchive.getKey(0, 9, 85, 310),
+                TileArchive.getKey(6, 7, 20, 77)};
+        File files[] = {image(1, 100), image(2, 5000), image(3, 1)};
+        File archive = new File(mFolder, "tiles/chart" + TileArchive.EXTENSION);
+        TileArchive.write(archive, keys, files);
+
+        TileArchive a = new TileArchive(archive);
+        assertEquals(3, a.getCount());
+        a.close();
+
+        String folder = mFolder.getPath() + "/";
+        byte data[] = TileArchive.readTile(folder + "tiles/0/9/85/310");
+        assertEquals(5000, data.length);
+        assertEquals(2, data[4999]);
+        data = TileArchive.readTile(folder + "tiles/0/9/85/311");
+        assertEquals(100, data.length);
+        assertEquals(1, data[0]);
+        data = TileArchive.readTile(folder + "tiles//6/7/20/77");
+        assertEquals(1, data.length);
+        assertEquals(3, data[0]);
+        assertNull(TileArchive.readTile(folder + "tiles/0/9/85/312"));
+        assertNull(TileArchive.readTile(folder + "tiles/1/9/85/310"));
+    }
+
+    @Test
+    public void testPackDownload() throws Exception {
+        tile("tiles/0/9/85/310.webp", 1);
+        tile("tiles/0/9/85/310.png", 2);
+        tile("tiles/0/9/85/311.png", 3);
+        tile("plates/KBOS/AREA.png", 4);
+        FileOutputStream out = new FileOutputStream(new File(mFolder, "SEC"));
+        out.write(("1801\ntiles/0/9/85/310.webp\ntiles/0/9/85/310.png\ntiles/0/9/85/311.png\n" +
+                "plates/KBOS/AREA.png\n").getBytes());
+        out.close();
+
+        assertEquals(2, TileArchive.pack(mFolder.getPath(), "SEC"));
+
+        // webp preferred, like loose tiles
+        String folder = mFolder.getPath() + "/";
+        assertEquals(1, TileArchive.readTile(folder + "tiles/0/9/85/310")[0]);
+        assertEquals(3, TileArchive.readTile(folder + "tiles/0/9/85/311")[0]);
+        assertFalse(new File(mFolder, "tiles/0/9/85/310.webp").exists());
+        assertFalse(new File(mFolder, "tiles/0/9/85/310.png").exists());
+        assertTrue(new File(mFolder, "plates/KBOS/AREA.png").exists());
+
+        // delete finds archive in manifest
+        BufferedReader in = new BufferedReader(new FileReader(new File(mFolder, "SEC")));
+        assertEquals("1801", in.readLine());
+        assertEquals("plates/KBOS/AREA.png", in.readLine());
+        assertEquals("tiles/SEC" + TileArchive.EXTENSION, in.readLine());
+        assertNull(in.readLine());
+        in.close();
+
+        // nothing left to pack
+        assertEquals(0, TileArchive.pack(mFolder.getPath(), "SEC"));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        File archive = new File(mFolder, "tiles/chart" + TileArchive.EXTENSION);
+        TileArchive.write(archive, new long[]{TileArchive.getKey(0, 9, 85, 310)}, new File[]{image(1, 10)});
+        String folder = mFolder.getPath() + "/";
+        assertEquals(10, TileArchive.readTile(folder + "tiles/0/9/85/310").length);
+
+        // a new archive is found after reset
+        File other = new File(mFolder, "tiles/other" + TileArchive.EXTENSION);
+        TileArchive.write(other, new long[]{TileArchive.getKey(0, 9, 85, 311)}, new File[]{image(2, 20)});
+        assertNull(TileArchive.readTile(folder + "tiles/0/9/85/311"));
+        TileArchive.reset();
+        assertEquals(20, TileArchive.readTile(folder + "tiles/0/9/85/311").length);
+        assertEquals(10, TileArchive.readTile(folder + "tiles/0/9/85/310").length);
+    }
+
+    @Test
+    public void testNotAnArchive() throws Exception {
+        File f = image(4, 64);
+        File bad = new File(mFolder, "tiles/bad" + TileArchive.EXTENSION);
+        assertTrue(f.renameTo(bad));
+        try {
+            new TileArchive(bad);
+            assertTrue(false);
+        }
+        catch (java.io.IOException e) {
+        }
+        // ignored when looking for tiles
+        assertNull(TileArchive.readTile(mFolder.getPath() + "/tiles/0/9/85/310"));
+    }
+}